@@ -0,0 +1,21 @@
+/* Generated By:JJTree: Do not edit this line. ASTAwait.java Version 7.0 */
+/* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=false,NODE_PREFIX=AST,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
+public
+class ASTAwait extends SimpleNode {
+  public ASTAwait(int id) {
+    super(id);
+  }
+
+  public ASTAwait(VNM p, int id) {
+    super(p, id);
+  }
+
+
+  /** Accept the visitor. **/
+  public Object jjtAccept(VNMVisitor visitor, Object data) throws Exception {
+
+    return
+    visitor.visit(this, data);
+  }
+}
+/* JavaCC - OriginalChecksum=eae0c7b1996fadac5d4b75d712b2466a (do not edit this line) */
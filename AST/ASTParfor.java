@@ -0,0 +1,21 @@
+/* Generated By:JJTree: Do not edit this line. ASTParfor.java Version 7.0 */
+/* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=false,NODE_PREFIX=AST,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
+public
+class ASTParfor extends SimpleNode {
+  public ASTParfor(int id) {
+    super(id);
+  }
+
+  public ASTParfor(VNM p, int id) {
+    super(p, id);
+  }
+
+
+  /** Accept the visitor. **/
+  public Object jjtAccept(VNMVisitor visitor, Object data) throws Exception {
+
+    return
+    visitor.visit(this, data);
+  }
+}
+/* JavaCC - OriginalChecksum=f41cc93809b56032e9b6cbd946ab8c5c (do not edit this line) */
@@ -0,0 +1,21 @@
+/* Generated By:JJTree: Do not edit this line. ASTSpawn.java Version 7.0 */
+/* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=false,NODE_PREFIX=AST,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
+public
+class ASTSpawn extends SimpleNode {
+  public ASTSpawn(int id) {
+    super(id);
+  }
+
+  public ASTSpawn(VNM p, int id) {
+    super(p, id);
+  }
+
+
+  /** Accept the visitor. **/
+  public Object jjtAccept(VNMVisitor visitor, Object data) throws Exception {
+
+    return
+    visitor.visit(this, data);
+  }
+}
+/* JavaCC - OriginalChecksum=7a3052f897680679474b5e8de84ea085 (do not edit this line) */
@@ -0,0 +1,21 @@
+/* Generated By:JJTree: Do not edit this line. ASTYield.java Version 7.0 */
+/* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=false,NODE_PREFIX=AST,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
+public
+class ASTYield extends SimpleNode {
+  public ASTYield(int id) {
+    super(id);
+  }
+
+  public ASTYield(VNM p, int id) {
+    super(p, id);
+  }
+
+
+  /** Accept the visitor. **/
+  public Object jjtAccept(VNMVisitor visitor, Object data) throws Exception {
+
+    return
+    visitor.visit(this, data);
+  }
+}
+/* JavaCC - OriginalChecksum=d0be535da4c483077cc9885b16413742 (do not edit this line) */
@@ -0,0 +1,21 @@
+/* Generated By:JJTree: Do not edit this line. ASTindex.java Version 7.0 */
+/* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=false,NODE_PREFIX=AST,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
+public
+class ASTindex extends SimpleNode {
+  public ASTindex(int id) {
+    super(id);
+  }
+
+  public ASTindex(VNM p, int id) {
+    super(p, id);
+  }
+
+
+  /** Accept the visitor. **/
+  public Object jjtAccept(VNMVisitor visitor, Object data) throws Exception {
+
+    return
+    visitor.visit(this, data);
+  }
+}
+/* JavaCC - OriginalChecksum=34e00111e8ef3c35da0b58fc40cc3c1b (do not edit this line) */
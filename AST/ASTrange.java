@@ -0,0 +1,21 @@
+/* Generated By:JJTree: Do not edit this line. ASTrange.java Version 7.0 */
+/* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=false,NODE_PREFIX=AST,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
+public
+class ASTrange extends SimpleNode {
+  public ASTrange(int id) {
+    super(id);
+  }
+
+  public ASTrange(VNM p, int id) {
+    super(p, id);
+  }
+
+
+  /** Accept the visitor. **/
+  public Object jjtAccept(VNMVisitor visitor, Object data) throws Exception {
+
+    return
+    visitor.visit(this, data);
+  }
+}
+/* JavaCC - OriginalChecksum=711a955fe0d34f2df13371fea6732ed2 (do not edit this line) */
@@ -0,0 +1,21 @@
+/* Generated By:JJTree: Do not edit this line. ASTslice.java Version 7.0 */
+/* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=false,NODE_PREFIX=AST,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
+public
+class ASTslice extends SimpleNode {
+  public ASTslice(int id) {
+    super(id);
+  }
+
+  public ASTslice(VNM p, int id) {
+    super(p, id);
+  }
+
+
+  /** Accept the visitor. **/
+  public Object jjtAccept(VNMVisitor visitor, Object data) throws Exception {
+
+    return
+    visitor.visit(this, data);
+  }
+}
+/* JavaCC - OriginalChecksum=5c12531d826e76d5d7e54b9892f4c2bc (do not edit this line) */
@@ -31,12 +31,18 @@ public class VNMDefaultVisitor implements VNMVisitor{
   public Object visit(ASTexp_list node, Object data) throws Exception{
     return defaultVisit(node, data);
   }
+  public Object visit(ASTrange node, Object data) throws Exception{
+    return defaultVisit(node, data);
+  }
   public Object visit(ASTcondition_list node, Object data) throws Exception{
     return defaultVisit(node, data);
   }
   public Object visit(ASTReturn node, Object data) throws Exception{
     return defaultVisit(node, data);
   }
+  public Object visit(ASTYield node, Object data) throws Exception{
+    return defaultVisit(node, data);
+  }
   public Object visit(ASTPrint node, Object data) throws Exception{
     return defaultVisit(node, data);
   }
@@ -55,6 +61,9 @@ public class VNMDefaultVisitor implements VNMVisitor{
   public Object visit(ASTFor node, Object data) throws Exception{
     return defaultVisit(node, data);
   }
+  public Object visit(ASTParfor node, Object data) throws Exception{
+    return defaultVisit(node, data);
+  }
   public Object visit(ASTWhile node, Object data) throws Exception{
     return defaultVisit(node, data);
   }
@@ -112,6 +121,18 @@ public class VNMDefaultVisitor implements VNMVisitor{
   public Object visit(ASTmod node, Object data) throws Exception{
     return defaultVisit(node, data);
   }
+  public Object visit(ASTSpawn node, Object data) throws Exception{
+    return defaultVisit(node, data);
+  }
+  public Object visit(ASTAwait node, Object data) throws Exception{
+    return defaultVisit(node, data);
+  }
+  public Object visit(ASTslice node, Object data) throws Exception{
+    return defaultVisit(node, data);
+  }
+  public Object visit(ASTindex node, Object data) throws Exception{
+    return defaultVisit(node, data);
+  }
   public Object visit(ASTvec_const node, Object data) throws Exception{
     return defaultVisit(node, data);
   }
@@ -137,4 +158,4 @@ public class VNMDefaultVisitor implements VNMVisitor{
     return defaultVisit(node, data);
   }
 }
-/* JavaCC - OriginalChecksum=22d58c5389ead436110ed9c53d7f4358 (do not edit this line) */
+/* JavaCC - OriginalChecksum=546865623e9d88fb63af79f22978d1ae (do not edit this line) */
@@ -10,41 +10,48 @@ public interface VNMTreeConstants
   public int JJTFN_CALL = 6;
   public int JJTBOOLEAN_CALL = 7;
   public int JJTEXP_LIST = 8;
-  public int JJTCONDITION_LIST = 9;
-  public int JJTRETURN = 10;
-  public int JJTPRINT = 11;
-  public int JJTPRINT_LN = 12;
-  public int JJTASSIGN = 13;
-  public int JJTIF = 14;
-  public int JJTNULL = 15;
-  public int JJTFOR = 16;
-  public int JJTWHILE = 17;
-  public int JJTOR = 18;
-  public int JJTAND = 19;
-  public int JJTNOT = 20;
-  public int JJTCOMPARISON = 21;
-  public int JJTLE = 22;
-  public int JJTLEQ = 23;
-  public int JJTGRE = 24;
-  public int JJTGEQ = 25;
-  public int JJTEQ = 26;
-  public int JJTNEQ = 27;
-  public int JJTIN = 28;
-  public int JJTNOTIN = 29;
-  public int JJTSUM = 30;
-  public int JJTNEG = 31;
-  public int JJTPOS = 32;
-  public int JJTMUL = 33;
-  public int JJTDIV = 34;
-  public int JJTMOD = 35;
-  public int JJTVEC_CONST = 36;
-  public int JJTTRUE = 37;
-  public int JJTFALSE = 38;
-  public int JJTIDVEC = 39;
-  public int JJTIDNUM = 40;
-  public int JJTIDBOOL = 41;
-  public int JJTNUMBER = 42;
-  public int JJTSTRING = 43;
+  public int JJTRANGE = 9;
+  public int JJTCONDITION_LIST = 10;
+  public int JJTRETURN = 11;
+  public int JJTYIELD = 12;
+  public int JJTPRINT = 13;
+  public int JJTPRINT_LN = 14;
+  public int JJTASSIGN = 15;
+  public int JJTIF = 16;
+  public int JJTNULL = 17;
+  public int JJTFOR = 18;
+  public int JJTPARFOR = 19;
+  public int JJTWHILE = 20;
+  public int JJTOR = 21;
+  public int JJTAND = 22;
+  public int JJTNOT = 23;
+  public int JJTCOMPARISON = 24;
+  public int JJTLE = 25;
+  public int JJTLEQ = 26;
+  public int JJTGRE = 27;
+  public int JJTGEQ = 28;
+  public int JJTEQ = 29;
+  public int JJTNEQ = 30;
+  public int JJTIN = 31;
+  public int JJTNOTIN = 32;
+  public int JJTSUM = 33;
+  public int JJTNEG = 34;
+  public int JJTPOS = 35;
+  public int JJTMUL = 36;
+  public int JJTDIV = 37;
+  public int JJTMOD = 38;
+  public int JJTSPAWN = 39;
+  public int JJTAWAIT = 40;
+  public int JJTSLICE = 41;
+  public int JJTINDEX = 42;
+  public int JJTVEC_CONST = 43;
+  public int JJTTRUE = 44;
+  public int JJTFALSE = 45;
+  public int JJTIDVEC = 46;
+  public int JJTIDNUM = 47;
+  public int JJTIDBOOL = 48;
+  public int JJTNUMBER = 49;
+  public int JJTSTRING = 50;
 
 
   public String[] jjtNodeName = {
@@ -57,14 +64,17 @@ public interface VNMTreeConstants
     "fn_call",
     "boolean_call",
     "exp_list",
+    "range",
     "condition_list",
     "Return",
+    "Yield",
     "Print",
     "Print_ln",
     "Assign",
     "If",
     "NULL",
     "For",
+    "Parfor",
     "While",
     "or",
     "and",
@@ -84,6 +94,10 @@ public interface VNMTreeConstants
     "mul",
     "div",
     "mod",
+    "Spawn",
+    "Await",
+    "slice",
+    "index",
     "vec_const",
     "TRUE",
     "FALSE",
@@ -94,4 +108,4 @@ public interface VNMTreeConstants
     "string",
   };
 }
-/* JavaCC - OriginalChecksum=0e4ffac7ade34a167241a446a8c4e21f (do not edit this line) */
+/* JavaCC - OriginalChecksum=837f39104ce294d8eed59690765f3da2 (do not edit this line) */
@@ -10,14 +10,17 @@ public interface VNMVisitor
   public Object visit(ASTfn_call node, Object data) throws Exception;
   public Object visit(ASTboolean_call node, Object data) throws Exception;
   public Object visit(ASTexp_list node, Object data) throws Exception;
+  public Object visit(ASTrange node, Object data) throws Exception;
   public Object visit(ASTcondition_list node, Object data) throws Exception;
   public Object visit(ASTReturn node, Object data) throws Exception;
+  public Object visit(ASTYield node, Object data) throws Exception;
   public Object visit(ASTPrint node, Object data) throws Exception;
   public Object visit(ASTPrint_ln node, Object data) throws Exception;
   public Object visit(ASTAssign node, Object data) throws Exception;
   public Object visit(ASTIf node, Object data) throws Exception;
   public Object visit(ASTNULL node, Object data) throws Exception;
   public Object visit(ASTFor node, Object data) throws Exception;
+  public Object visit(ASTParfor node, Object data) throws Exception;
   public Object visit(ASTWhile node, Object data) throws Exception;
   public Object visit(ASTor node, Object data) throws Exception;
   public Object visit(ASTand node, Object data) throws Exception;
@@ -37,6 +40,10 @@ public interface VNMVisitor
   public Object visit(ASTmul node, Object data) throws Exception;
   public Object visit(ASTdiv node, Object data) throws Exception;
   public Object visit(ASTmod node, Object data) throws Exception;
+  public Object visit(ASTSpawn node, Object data) throws Exception;
+  public Object visit(ASTAwait node, Object data) throws Exception;
+  public Object visit(ASTslice node, Object data) throws Exception;
+  public Object visit(ASTindex node, Object data) throws Exception;
   public Object visit(ASTvec_const node, Object data) throws Exception;
   public Object visit(ASTTRUE node, Object data) throws Exception;
   public Object visit(ASTFALSE node, Object data) throws Exception;
@@ -46,4 +53,4 @@ public interface VNMVisitor
   public Object visit(ASTnumber node, Object data) throws Exception;
   public Object visit(ASTstring node, Object data) throws Exception;
 }
-/* JavaCC - OriginalChecksum=a4e9091c5fe546655bc58b00d3ba5c0f (do not edit this line) */
+/* JavaCC - OriginalChecksum=770903b717513b9d531f5c432898cf6a (do not edit this line) */
@@ -0,0 +1,58 @@
+/**
+ * Throughput of the element-wise kernels: the SIMD kernel picked at startup
+ * against the plain scalar loops, at several vector sizes.
+ *
+ *   javac -classpath . -d Bench Bench/VNMKernelBench.java
+ *   java --add-modules jdk.incubator.vector -classpath .:./simd:./Bench VNMKernelBench
+ *
+ * Prints millions of elements per second for each operation.
+ */
+public class VNMKernelBench {
+
+    public static void main(String[] args) {
+        VNMKernel simd = VNMKernel.INSTANCE;
+        VNMKernel scalar = new VNMScalarKernel();
+        System.out.println("kernel: " + simd.name());
+        System.out.printf("%-10s %-6s %12s %12s %8s%n", "size", "op", "scalar", simd.name(), "speedup");
+        int[] sizes = {1 << 10, 1 << 16, 1 << 20, 1 << 24};
+        String[] ops = {"add", "mul", "lt", "sum", "max"};
+        for (int n : sizes) {
+            int[] a = new int[n], b = new int[n], out = new int[n];
+            long[] bits = new long[(n + 63) >>> 6];
+            for (int i = 0; i < n; i++) {
+                a[i] = i * 31 + 7;
+                b[i] = n - i;
+            }
+            for (String op : ops) {
+                double s = rate(scalar, op, a, b, out, bits, n);
+                double v = rate(simd, op, a, b, out, bits, n);
+                System.out.printf("%-10d %-6s %12.0f %12.0f %7.2fx%n", n, op, s, v, v / s);
+            }
+        }
+    }
+
+    static long sink;
+
+    // Millions of elements per second, best of several timed rounds after warm-up.
+    static double rate(VNMKernel k, String op, int[] a, int[] b, int[] out, long[] bits, int n) {
+        int reps = Math.max(1, (1 << 26) / n);
+        double best = 0;
+        for (int round = 0; round < 8; round++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < reps; r++) {
+                switch (op) {
+                    case "add": k.binary(VNMKernel.ADD, a, 0, b, 0, out, 0, n); break;
+                    case "mul": k.binary(VNMKernel.MUL, a, 0, b, 0, out, 0, n); break;
+                    case "lt":  k.compare(VNMKernel.LT, a, 0, b, 0, bits, n); break;
+                    case "sum": sink += k.sum(a, 0, n); break;
+                    default:    sink += k.max(a, 0, n); break;
+                }
+            }
+            long time = System.nanoTime() - start;
+            if (round >= 3) {
+                best = Math.max(best, (double) n * reps / time * 1000.0);
+            }
+        }
+        return best;
+    }
+}
@@ -6,6 +6,10 @@ class TestVNM {
     private static VNMTokenManager scanner;
     private static VNM parser;
     private static VNMEval evaluator;
+    private static VNMStatements statements;
+    private static VNMParseAhead trees;
+    private static VNMOutput sink;
+    private static boolean interactive;
      
     public static void main(String args[]) {
 
@@ -26,22 +30,79 @@ class TestVNM {
 		scanner = new VNMTokenManager(instream);
 		parser = new VNM(scanner);
 		evaluator = new VNMEval();   
+		if (VNMConfig.PARALLEL_STATEMENTS) {
+			statements = new VNMStatements(evaluator);
+		}
 
-		// Call parse-eval until EOF reached
-		while (nextParse());
+		// Pipelined: parsing and writing output get threads of their own
+		VNMOutputPipe pipe = null;
+		java.io.OutputStream target = new java.io.FileOutputStream(java.io.FileDescriptor.out);
+		if (VNMConfig.PIPELINE) {
+			trees = new VNMParseAhead(parser, VNMConfig.PIPELINE_STATEMENTS);
+			pipe = new VNMOutputPipe(target, VNMConfig.PIPELINE_OUTPUT);
+			target = pipe;
+		}
+
+		// Everything printed collects in one buffer (see VNMOutput)
+		sink = new VNMOutput(target, VNMConfig.OUTPUT_FLUSH, VNMConfig.OUTPUT_BUFFER, VNMConfig.OUTPUT_FLUSH_MS);
+		System.setOut(new java.io.PrintStream(sink, false, VNMOutput.CHARSET));
+		evaluator.setOutput(sink);
+		interactive = (args.length < 1);
+
+		try {
+			// Call parse-eval until EOF reached
+			while (nextParse());
+			if (statements != null) {
+				statements.flush();
+			}
+
+			// Tasks that were SPAWNed but never AWAITed still get to print
+			while (nextTask());
+
+			// Calls counted for the next run's inlining decisions
+			evaluator.saveProfile();
+		} finally {
+			// Everything printed so far gets written, even after a crash
+			sink.close();
+			if (pipe != null) {
+				try {
+					pipe.close();
+				} catch (java.io.IOException e) {
+					// The output is gone, nothing left to tell
+				}
+			}
+		}
     }
 
+    private static boolean nextTask() {
+		  try {
+			  return evaluator.awaitOldest();
+		  } catch (Exception e) {
+			  System.out.println(e);
+		  }
+		  return true;
+	  }
+
     private static boolean nextParse() {
 		  SimpleNode tree;
 		  Object value;
 
+		  // Typed-in statements show their output before the next one is read
+		  if (interactive)  System.out.flush();
+
 		  try {
-        tree = parser.start();
+        tree = (trees != null) ? trees.take() : parser.start();
   		  // tree.dump("");  // Uncomment to display  AST
 			  if (tree == null)	return true;
+
+        // Independent statements are collected and run together
+        if (statements != null) {
+          statements.add(tree);
+          return true;
+        }
              
         // Evaluate non-null tree
-			  value = tree.jjtAccept(evaluator,null);
+			  value = evaluator.evaluate(tree);
 			  if (value!=null)  System.out.println(value);
         
       // Handle EOF
@@ -21,6 +21,10 @@ SimpleNode start() throws ParseException {
     case PRINT:
     case PRINTLN:
     case VAR:
+    case YIELD:
+    case PARFOR:
+    case SPAWN:
+    case AWAIT:
     case NUMBER:
     case IDNUM:
     case IDBOOL:
@@ -52,7 +56,9 @@ SimpleNode start() throws ParseException {
     case RETURN:
     case PRINT:
     case PRINTLN:
-    case VAR:{
+    case VAR:
+    case YIELD:
+    case PARFOR:{
       statement_LL1();
       jj_consume_token(SCOL);
       break;
@@ -68,6 +74,8 @@ SimpleNode start() throws ParseException {
         case MINUS:
         case LRND:
         case LSQU:
+        case SPAWN:
+        case AWAIT:
         case NUMBER:
         case IDNUM:
         case IDVEC:{
@@ -123,10 +131,18 @@ SimpleNode start() throws ParseException {
       for_stat();
       break;
       }
+    case PARFOR:{
+      parfor_stat();
+      break;
+      }
     case WHILE:{
       while_stat();
       break;
       }
+    case YIELD:{
+      yield_stat();
+      break;
+      }
     default:
       jj_la1[3] = jj_gen;
       jj_consume_token(-1);
@@ -147,7 +163,9 @@ void statement() throws ParseException {
     case RETURN:
     case PRINT:
     case PRINTLN:
-    case VAR:{
+    case VAR:
+    case YIELD:
+    case PARFOR:{
       statement_LL1();
       break;
       }
@@ -188,6 +206,8 @@ void statement() throws ParseException {
         case PRINT:
         case PRINTLN:
         case VAR:
+        case YIELD:
+        case PARFOR:
         case IDNUM:
         case IDBOOL:
         case IDVEC:{
@@ -240,6 +260,8 @@ if (jjtc000) {
         case PRINT:
         case PRINTLN:
         case VAR:
+        case YIELD:
+        case PARFOR:
         case IDNUM:
         case IDBOOL:
         case IDVEC:{
@@ -422,6 +444,9 @@ if (jjtc000) {
         case MINUS:
         case LRND:
         case LSQU:
+        case SPAWN:
+        case AWAIT:
+        case STRING:
         case NUMBER:
         case IDNUM:
         case IDVEC:{
@@ -443,6 +468,9 @@ if (jjtc000) {
         case MINUS:
         case LRND:
         case LSQU:
+        case SPAWN:
+        case AWAIT:
+        case STRING:
         case NUMBER:
         case IDNUM:
         case IDVEC:{
@@ -494,6 +522,9 @@ if (jjtc000) {
       case MINUS:
       case LRND:
       case LSQU:
+      case SPAWN:
+      case AWAIT:
+      case STRING:
       case NUMBER:
       case IDNUM:
       case IDVEC:{
@@ -531,7 +562,7 @@ if (jjtc000) {
   boolean jjtc000 = true;
   jjtree.openNodeScope(jjtn000);
     try {
-      expression();
+      list_item();
       label_5:
       while (true) {
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
@@ -544,7 +575,7 @@ if (jjtc000) {
           break label_5;
         }
         jj_consume_token(COMMA);
-        expression();
+        list_item();
       }
     } catch (Throwable jjte000) {
 if (jjtc000) {
@@ -567,6 +598,72 @@ if (jjtc000) {
     }
 }
 
+// String literals are allowed in a list so file names can be passed to
+// builtins, e.g. v_load("data.vnm"). The evaluator rejects them anywhere else.
+  static final public void list_item() throws ParseException {
+    switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+    case STRING:{
+      string();
+      break;
+      }
+    case PLUS:
+    case MINUS:
+    case LRND:
+    case LSQU:
+    case SPAWN:
+    case AWAIT:
+    case NUMBER:
+    case IDNUM:
+    case IDVEC:{
+      range_exp();
+      break;
+      }
+    default:
+      jj_la1[16] = jj_gen;
+      jj_consume_token(-1);
+      throw new ParseException();
+    }
+}
+
+// A list element can also be a range "lo..hi". Ranges are kept as a
+// single node with the two bounds and are never expanded by the parser.
+  static final public void range_exp() throws ParseException {
+ASTrange jjtn001 = new ASTrange(JJTRANGE);
+          boolean jjtc001 = true;
+          jjtree.openNodeScope(jjtn001);
+    try {
+      expression();
+      switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+      case RANGE:{
+        jj_consume_token(RANGE);
+        expression();
+        break;
+        }
+      default:
+        jj_la1[17] = jj_gen;
+        ;
+      }
+    } catch (Throwable jjte001) {
+if (jjtc001) {
+            jjtree.clearNodeScope(jjtn001);
+            jjtc001 = false;
+          } else {
+            jjtree.popNode();
+          }
+          if (jjte001 instanceof RuntimeException) {
+            {if (true) throw (RuntimeException)jjte001;}
+          }
+          if (jjte001 instanceof ParseException) {
+            {if (true) throw (ParseException)jjte001;}
+          }
+          {if (true) throw (Error)jjte001;}
+    } finally {
+if (jjtc001) {
+            jjtree.closeNodeScope(jjtn001, jjtree.nodeArity() > 1);
+          }
+    }
+}
+
 // Since we split function calls by boolean and numerical,
 // we need an explicit condition list
   static final public void condition_list() throws ParseException {/*@bgen(jjtree) condition_list */
@@ -583,7 +680,7 @@ if (jjtc000) {
           break;
           }
         default:
-          jj_la1[16] = jj_gen;
+          jj_la1[18] = jj_gen;
           break label_6;
         }
         jj_consume_token(COMMA);
@@ -638,7 +735,9 @@ if (jjtc000) {
     }
 }
 
-// syntactic lookahead to distinguish conditions and expressions.
+// syntactic lookahead to distinguish conditions and expressions. The
+// condition has to run up to the ";", since AWAIT #t on its own could be
+// either, but AWAIT #t + 1 is an expression.
   static final public void returnval() throws ParseException {
     if (jj_2_3(2147483647)) {
       condition();
@@ -648,6 +747,8 @@ if (jjtc000) {
       case MINUS:
       case LRND:
       case LSQU:
+      case SPAWN:
+      case AWAIT:
       case NUMBER:
       case IDNUM:
       case IDVEC:{
@@ -655,13 +756,43 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[17] = jj_gen;
+        jj_la1[19] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
     }
 }
 
+// YIELD hands the next element (or, for a vector, its elements) to whoever
+// is consuming the FUNCTION it appears in, see VNMGenerator.
+  static final public void yield_stat() throws ParseException {/*@bgen(jjtree) Yield */
+  ASTYield jjtn000 = new ASTYield(JJTYIELD);
+  boolean jjtc000 = true;
+  jjtree.openNodeScope(jjtn000);
+    try {
+      jj_consume_token(YIELD);
+      expression();
+    } catch (Throwable jjte000) {
+if (jjtc000) {
+            jjtree.clearNodeScope(jjtn000);
+            jjtc000 = false;
+          } else {
+            jjtree.popNode();
+          }
+          if (jjte000 instanceof RuntimeException) {
+            {if (true) throw (RuntimeException)jjte000;}
+          }
+          if (jjte000 instanceof ParseException) {
+            {if (true) throw (ParseException)jjte000;}
+          }
+          {if (true) throw (Error)jjte000;}
+    } finally {
+if (jjtc000) {
+            jjtree.closeNodeScope(jjtn000, true);
+          }
+    }
+}
+
   static final public void print_stat() throws ParseException {/*@bgen(jjtree) Print */
   ASTPrint jjtn000 = new ASTPrint(JJTPRINT);
   boolean jjtc000 = true;
@@ -703,6 +834,8 @@ if (jjtc000) {
       case LSQU:
       case TRUE:
       case FALSE:
+      case SPAWN:
+      case AWAIT:
       case STRING:
       case NUMBER:
       case IDNUM:
@@ -712,7 +845,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[18] = jj_gen;
+        jj_la1[20] = jj_gen;
         ;
       }
     } catch (Throwable jjte000) {
@@ -748,6 +881,8 @@ if (jjtc000) {
     case MINUS:
     case LRND:
     case LSQU:
+    case SPAWN:
+    case AWAIT:
     case NUMBER:
     case IDNUM:
     case IDVEC:{
@@ -768,7 +903,7 @@ if (jjtc000) {
       break;
       }
     default:
-      jj_la1[19] = jj_gen;
+      jj_la1[21] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -780,7 +915,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[20] = jj_gen;
+        jj_la1[22] = jj_gen;
         break label_7;
       }
       jj_consume_token(COMMA);
@@ -789,6 +924,8 @@ if (jjtc000) {
       case MINUS:
       case LRND:
       case LSQU:
+      case SPAWN:
+      case AWAIT:
       case NUMBER:
       case IDNUM:
       case IDVEC:{
@@ -809,13 +946,17 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[21] = jj_gen;
+        jj_la1[23] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
     }
 }
 
+// A vector can be assigned any vector expression (v_a := v_b shares storage
+// until one of them changes), and single elements can be assigned with
+// v_a[i] := value. The element value is a condition for boolean vectors and
+// an expression for numeric ones, so it is parsed like a RETURN value.
   static final public void assign_stat() throws ParseException {/*@bgen(jjtree) Assign */
   ASTAssign jjtn000 = new ASTAssign(JJTASSIGN);
   boolean jjtc000 = true;
@@ -834,16 +975,26 @@ if (jjtc000) {
         condition();
         break;
         }
-      case IDVEC:{
-        idvec();
-        jj_consume_token(ASSGN);
-        vec_const();
-        break;
-        }
       default:
-        jj_la1[22] = jj_gen;
-        jj_consume_token(-1);
-        throw new ParseException();
+        jj_la1[24] = jj_gen;
+        if (jj_2_4(2)) {
+          idvec();
+          jj_consume_token(ASSGN);
+          expression();
+        } else {
+          switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+          case IDVEC:{
+            element();
+            jj_consume_token(ASSGN);
+            returnval();
+            break;
+            }
+          default:
+            jj_la1[25] = jj_gen;
+            jj_consume_token(-1);
+            throw new ParseException();
+          }
+        }
       }
     } catch (Throwable jjte000) {
 if (jjtc000) {
@@ -937,7 +1088,7 @@ if (jjtc001) {
       break;
       }
     default:
-      jj_la1[23] = jj_gen;
+      jj_la1[26] = jj_gen;
 ASTNULL jjtn002 = new ASTNULL(JJTNULL);
      boolean jjtc002 = true;
      jjtree.openNodeScope(jjtn002);
@@ -986,6 +1137,41 @@ if (jjtc000) {
     }
 }
 
+// Same shape as FOR. The iterations run in parallel when the evaluator can
+// show they don't depend on each other, see VNMDependence.
+  static final public void parfor_stat() throws ParseException {/*@bgen(jjtree) Parfor */
+  ASTParfor jjtn000 = new ASTParfor(JJTPARFOR);
+  boolean jjtc000 = true;
+  jjtree.openNodeScope(jjtn000);
+    try {
+      jj_consume_token(PARFOR);
+      idnum();
+      jj_consume_token(IN);
+      exp_list();
+      jj_consume_token(DO);
+      body();
+      jj_consume_token(END);
+    } catch (Throwable jjte000) {
+if (jjtc000) {
+            jjtree.clearNodeScope(jjtn000);
+            jjtc000 = false;
+          } else {
+            jjtree.popNode();
+          }
+          if (jjte000 instanceof RuntimeException) {
+            {if (true) throw (RuntimeException)jjte000;}
+          }
+          if (jjte000 instanceof ParseException) {
+            {if (true) throw (ParseException)jjte000;}
+          }
+          {if (true) throw (Error)jjte000;}
+    } finally {
+if (jjtc000) {
+            jjtree.closeNodeScope(jjtn000, true);
+          }
+    }
+}
+
   static final public void while_stat() throws ParseException {/*@bgen(jjtree) While */
   ASTWhile jjtn000 = new ASTWhile(JJTWHILE);
   boolean jjtc000 = true;
@@ -1033,7 +1219,7 @@ ASTor jjtn001 = new ASTor(JJTOR);
           break;
           }
         default:
-          jj_la1[24] = jj_gen;
+          jj_la1[27] = jj_gen;
           break label_8;
         }
         jj_consume_token(VBAR);
@@ -1074,7 +1260,7 @@ ASTand jjtn001 = new ASTand(JJTAND);
           break;
           }
         default:
-          jj_la1[25] = jj_gen;
+          jj_la1[28] = jj_gen;
           break label_9;
         }
         jj_consume_token(AND);
@@ -1133,8 +1319,8 @@ if (jjtc001) {
       break;
       }
     default:
-      jj_la1[26] = jj_gen;
-      if (jj_2_4(2147483647)) {
+      jj_la1[29] = jj_gen;
+      if (jj_2_5(2147483647)) {
         comparison();
       } else {
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
@@ -1145,11 +1331,15 @@ if (jjtc001) {
           break;
           }
         default:
-          jj_la1[27] = jj_gen;
-          if (jj_2_5(2)) {
+          jj_la1[30] = jj_gen;
+          if (jj_2_6(2)) {
             boolean_call();
           } else {
             switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+            case AWAIT:{
+              await_exp();
+              break;
+              }
             case TRUE:
             case FALSE:
             case IDBOOL:{
@@ -1157,7 +1347,7 @@ if (jjtc001) {
               break;
               }
             default:
-              jj_la1[28] = jj_gen;
+              jj_la1[31] = jj_gen;
               jj_consume_token(-1);
               throw new ParseException();
             }
@@ -1167,6 +1357,7 @@ if (jjtc001) {
     }
 }
 
+// The right-hand side may be a range, for "#x =in 1..10".
   static final public void comparison() throws ParseException {/*@bgen(jjtree) comparison */
   ASTcomparison jjtn000 = new ASTcomparison(JJTCOMPARISON);
   boolean jjtc000 = true;
@@ -1174,7 +1365,7 @@ if (jjtc001) {
     try {
       expression();
       comparator();
-      expression();
+      range_exp();
     } catch (Throwable jjte000) {
 if (jjtc000) {
             jjtree.clearNodeScope(jjtn000);
@@ -1303,7 +1494,7 @@ if (jjtc008) {
       break;
       }
     default:
-      jj_la1[29] = jj_gen;
+      jj_la1[32] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1329,7 +1520,7 @@ ASTsum jjtn001 = new ASTsum(JJTSUM);
             break;
             }
           default:
-            jj_la1[30] = jj_gen;
+            jj_la1[33] = jj_gen;
             break label_10;
           }
           summand();
@@ -1370,7 +1561,7 @@ ASTsum jjtn002 = new ASTsum(JJTSUM);
             break;
             }
           default:
-            jj_la1[31] = jj_gen;
+            jj_la1[34] = jj_gen;
             break label_11;
           }
           summand();
@@ -1398,6 +1589,8 @@ if (jjtc002) {
       }
     case LRND:
     case LSQU:
+    case SPAWN:
+    case AWAIT:
     case NUMBER:
     case IDNUM:
     case IDVEC:{
@@ -1415,7 +1608,7 @@ ASTsum jjtn003 = new ASTsum(JJTSUM);
             break;
             }
           default:
-            jj_la1[32] = jj_gen;
+            jj_la1[35] = jj_gen;
             break label_12;
           }
           summand();
@@ -1442,7 +1635,7 @@ if (jjtc003) {
       break;
       }
     default:
-      jj_la1[33] = jj_gen;
+      jj_la1[36] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1535,7 +1728,7 @@ if (jjtc002) {
       break;
       }
     default:
-      jj_la1[34] = jj_gen;
+      jj_la1[37] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1606,8 +1799,8 @@ if (jjtc002) {
       moreterms();
       break;
       }
-    case 54:{
-      jj_consume_token(54);
+    case 58:{
+      jj_consume_token(58);
 ASTmod jjtn003 = new ASTmod(JJTMOD);
               boolean jjtc003 = true;
               jjtree.openNodeScope(jjtn003);
@@ -1636,7 +1829,7 @@ if (jjtc003) {
       break;
       }
     default:
-      jj_la1[35] = jj_gen;
+      jj_la1[38] = jj_gen;
 
     }
 }
@@ -1651,11 +1844,19 @@ if (jjtc003) {
       break;
       }
     default:
-      jj_la1[36] = jj_gen;
-      if (jj_2_6(2)) {
+      jj_la1[39] = jj_gen;
+      if (jj_2_7(2)) {
         fn_call();
       } else {
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+        case SPAWN:{
+          spawn_exp();
+          break;
+          }
+        case AWAIT:{
+          await_exp();
+          break;
+          }
         case LSQU:
         case NUMBER:
         case IDNUM:
@@ -1664,11 +1865,82 @@ if (jjtc003) {
           break;
           }
         default:
-          jj_la1[37] = jj_gen;
+          jj_la1[40] = jj_gen;
+          jj_consume_token(-1);
+          throw new ParseException();
+        }
+      }
+    }
+}
+
+// SPAWN #f(...) starts the call as a task and is its handle, a number.
+// AWAIT of a handle waits for the task and is what the call returned.
+  static final public void spawn_exp() throws ParseException {/*@bgen(jjtree) Spawn */
+  ASTSpawn jjtn000 = new ASTSpawn(JJTSPAWN);
+  boolean jjtc000 = true;
+  jjtree.openNodeScope(jjtn000);
+    try {
+      jj_consume_token(SPAWN);
+      if (jj_2_8(2)) {
+        fn_call();
+      } else {
+        switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+        case IDBOOL:{
+          boolean_call();
+          break;
+          }
+        default:
+          jj_la1[41] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
       }
+    } catch (Throwable jjte000) {
+if (jjtc000) {
+            jjtree.clearNodeScope(jjtn000);
+            jjtc000 = false;
+          } else {
+            jjtree.popNode();
+          }
+          if (jjte000 instanceof RuntimeException) {
+            {if (true) throw (RuntimeException)jjte000;}
+          }
+          if (jjte000 instanceof ParseException) {
+            {if (true) throw (ParseException)jjte000;}
+          }
+          {if (true) throw (Error)jjte000;}
+    } finally {
+if (jjtc000) {
+            jjtree.closeNodeScope(jjtn000, true);
+          }
+    }
+}
+
+  static final public void await_exp() throws ParseException {/*@bgen(jjtree) Await */
+  ASTAwait jjtn000 = new ASTAwait(JJTAWAIT);
+  boolean jjtc000 = true;
+  jjtree.openNodeScope(jjtn000);
+    try {
+      jj_consume_token(AWAIT);
+      term();
+    } catch (Throwable jjte000) {
+if (jjtc000) {
+            jjtree.clearNodeScope(jjtn000);
+            jjtc000 = false;
+          } else {
+            jjtree.popNode();
+          }
+          if (jjte000 instanceof RuntimeException) {
+            {if (true) throw (RuntimeException)jjte000;}
+          }
+          if (jjte000 instanceof ParseException) {
+            {if (true) throw (ParseException)jjte000;}
+          }
+          {if (true) throw (Error)jjte000;}
+    } finally {
+if (jjtc000) {
+            jjtree.closeNodeScope(jjtn000, true);
+          }
     }
 }
 
@@ -1679,7 +1951,7 @@ if (jjtc003) {
       break;
       }
     case IDVEC:{
-      idvec();
+      element();
       break;
       }
     case NUMBER:{
@@ -1691,25 +1963,98 @@ if (jjtc003) {
       break;
       }
     default:
-      jj_la1[38] = jj_gen;
+      jj_la1[42] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
 }
 
+// A vector, one element of it: v_a[i] (numbered from 0), or a slice of
+// it: v_a[i..j] (both ends included), which is a view on the same storage.
+  static final public void element() throws ParseException {
+    idvec();
+    switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+    case LSQU:{
+      jj_consume_token(LSQU);
+      expression();
+      switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+      case RANGE:{
+ASTslice jjtn001 = new ASTslice(JJTSLICE);
+        boolean jjtc001 = true;
+        jjtree.openNodeScope(jjtn001);
+        try {
+          jj_consume_token(RANGE);
+          expression();
+          jj_consume_token(RSQU);
+        } catch (Throwable jjte001) {
+if (jjtc001) {
+          jjtree.clearNodeScope(jjtn001);
+          jjtc001 = false;
+        } else {
+          jjtree.popNode();
+        }
+        if (jjte001 instanceof RuntimeException) {
+          {if (true) throw (RuntimeException)jjte001;}
+        }
+        if (jjte001 instanceof ParseException) {
+          {if (true) throw (ParseException)jjte001;}
+        }
+        {if (true) throw (Error)jjte001;}
+        } finally {
+if (jjtc001) {
+          jjtree.closeNodeScope(jjtn001,  3);
+        }
+        }
+        break;
+        }
+      case RSQU:{
+ASTindex jjtn002 = new ASTindex(JJTINDEX);
+        boolean jjtc002 = true;
+        jjtree.openNodeScope(jjtn002);
+        try {
+          jj_consume_token(RSQU);
+        } finally {
+if (jjtc002) {
+          jjtree.closeNodeScope(jjtn002,  2);
+        }
+        }
+        break;
+        }
+      default:
+        jj_la1[43] = jj_gen;
+        jj_consume_token(-1);
+        throw new ParseException();
+      }
+      break;
+      }
+    default:
+      jj_la1[44] = jj_gen;
+      ;
+    }
+}
+
 // vectors & vector booleans
+// A list that starts with a comparison, e.g. [v_a < 5], is a boolean vector
+// even though it also starts with an expression, so conditions are tried first.
   static final public void vec_const() throws ParseException {/*@bgen(jjtree) vec_const */
   ASTvec_const jjtn000 = new ASTvec_const(JJTVEC_CONST);
   boolean jjtc000 = true;
   jjtree.openNodeScope(jjtn000);
     try {
-      if (jj_2_7(2147483647)) {
+      if (jj_2_9(2147483647)) {
+        jj_consume_token(LSQU);
+        condition_list();
+        jj_consume_token(RSQU);
+      } else if (jj_2_10(2147483647)) {
         jj_consume_token(LSQU);
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
         case PLUS:
         case MINUS:
         case LRND:
         case LSQU:
+        case SPAWN:
+        case AWAIT:
+        case STRING:
         case NUMBER:
         case IDNUM:
         case IDVEC:{
@@ -1717,7 +2062,7 @@ if (jjtc003) {
           break;
           }
         default:
-          jj_la1[39] = jj_gen;
+          jj_la1[45] = jj_gen;
           ;
         }
         jj_consume_token(RSQU);
@@ -1733,6 +2078,8 @@ if (jjtc003) {
           case LSQU:
           case TRUE:
           case FALSE:
+          case SPAWN:
+          case AWAIT:
           case NUMBER:
           case IDNUM:
           case IDBOOL:
@@ -1741,14 +2088,14 @@ if (jjtc003) {
             break;
             }
           default:
-            jj_la1[40] = jj_gen;
+            jj_la1[46] = jj_gen;
             ;
           }
           jj_consume_token(RSQU);
           break;
           }
         default:
-          jj_la1[41] = jj_gen;
+          jj_la1[47] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
@@ -1789,7 +2136,7 @@ if (jjtc000) {
       break;
       }
     default:
-      jj_la1[42] = jj_gen;
+      jj_la1[48] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1828,7 +2175,7 @@ if (jjtc002) {
       break;
       }
     default:
-      jj_la1[43] = jj_gen;
+      jj_la1[49] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1987,665 +2334,865 @@ if (jjtc000) {
     finally { jj_save(6, xla); }
   }
 
-  static private boolean jj_3R_vec_const_378_3_79()
+  static private boolean jj_2_8(int xla)
  {
-    if (jj_scan_token(LSQU)) return true;
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_vec_const_378_36_81()) jj_scanpos = xsp;
-    if (jj_scan_token(RSQU)) return true;
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return (!jj_3_8()); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(7, xla); }
+  }
+
+  static private boolean jj_2_9(int xla)
+ {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return (!jj_3_9()); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(8, xla); }
+  }
+
+  static private boolean jj_2_10(int xla)
+ {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return (!jj_3_10()); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(9, xla); }
+  }
+
+  static private boolean jj_3R_comparator_366_3_38()
+ {
+    if (jj_scan_token(NOTIN)) return true;
     return false;
   }
 
-  static private boolean jj_3R_vec_const_378_3_78()
+  static private boolean jj_3R_comparator_365_3_37()
  {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_vec_const_378_3_79()) {
-    jj_scanpos = xsp;
-    if (jj_3R_vec_const_379_3_80()) return true;
-    }
+    if (jj_scan_token(IN)) return true;
     return false;
   }
 
-  static private boolean jj_3R_fn_call_184_3_22()
+  static private boolean jj_3R_comparator_359_9_31()
  {
-    if (jj_3R_idnum_423_3_38()) return true;
-    if (jj_scan_token(LRND)) return true;
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_fn_call_184_16_75()) jj_scanpos = xsp;
-    if (jj_scan_token(RRND)) return true;
+    if (jj_scan_token(LESS)) return true;
     return false;
   }
 
-  static private boolean jj_3R_simple_term_368_9_68()
+  static private boolean jj_3R_comparator_359_9_19()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_simple_term_368_9_70()) {
+    if (jj_3R_comparator_359_9_31()) {
+    jj_scanpos = xsp;
+    if (jj_3R_comparator_360_3_32()) {
+    jj_scanpos = xsp;
+    if (jj_3R_comparator_361_3_33()) {
     jj_scanpos = xsp;
-    if (jj_3R_simple_term_369_3_71()) {
+    if (jj_3R_comparator_362_3_34()) {
     jj_scanpos = xsp;
-    if (jj_3R_simple_term_370_3_72()) {
+    if (jj_3R_comparator_363_3_35()) {
     jj_scanpos = xsp;
-    if (jj_3R_simple_term_371_3_73()) return true;
+    if (jj_3R_comparator_364_3_36()) {
+    jj_scanpos = xsp;
+    if (jj_3R_comparator_365_3_37()) {
+    jj_scanpos = xsp;
+    if (jj_3R_comparator_366_3_38()) return true;
+    }
+    }
+    }
+    }
     }
     }
     }
     return false;
   }
 
-  static private boolean jj_3R_simple_term_368_9_70()
+  static private boolean jj_3R_comparator_364_3_36()
  {
-    if (jj_3R_idnum_423_3_38()) return true;
+    if (jj_scan_token(NEQ)) return true;
     return false;
   }
 
-  static private boolean jj_3R_simple_term_371_3_73()
+  static private boolean jj_3R_comparator_363_3_35()
  {
-    if (jj_3R_vec_const_378_3_78()) return true;
+    if (jj_scan_token(EQ)) return true;
     return false;
   }
 
-  static private boolean jj_3R_simple_term_370_3_72()
+  static private boolean jj_3R_comparator_362_3_34()
  {
-    if (jj_3R_number_448_3_77()) return true;
+    if (jj_scan_token(GE)) return true;
     return false;
   }
 
-  static private boolean jj_3R_simple_term_369_3_71()
+  static private boolean jj_3R_comparator_361_3_33()
  {
-    if (jj_3R_idvec_411_3_39()) return true;
+    if (jj_scan_token(GREAT)) return true;
     return false;
   }
 
-  static private boolean jj_3R_term_361_9_51()
+  static private boolean jj_3R_comparator_360_3_32()
+ {
+    if (jj_scan_token(LE)) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_comparison_354_9_56()
+ {
+    if (jj_3R_expression_374_9_18()) return true;
+    if (jj_3R_comparator_359_9_19()) return true;
+    if (jj_3R_range_exp_217_9_69()) return true;
+    return false;
+  }
+
+  static private boolean jj_3_5()
+ {
+    if (jj_3R_expression_374_9_18()) return true;
+    if (jj_3R_comparator_359_9_19()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_and_clause_336_18_42()
+ {
+    if (jj_scan_token(AND)) return true;
+    if (jj_3R_not_clause_342_9_41()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_not_clause_342_9_41()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_term_361_9_56()) {
+    if (jj_3R_not_clause_342_9_48()) {
+    jj_scanpos = xsp;
+    if (jj_3R_not_clause_343_3_49()) {
+    jj_scanpos = xsp;
+    if (jj_3R_not_clause_344_3_50()) {
     jj_scanpos = xsp;
     if (jj_3_6()) {
     jj_scanpos = xsp;
-    if (jj_3R_term_363_3_57()) return true;
+    if (jj_3R_not_clause_346_3_51()) {
+    jj_scanpos = xsp;
+    if (jj_3R_not_clause_347_3_52()) return true;
+    }
+    }
+    }
     }
     }
     return false;
   }
 
-  static private boolean jj_3R_term_361_9_56()
+  static private boolean jj_3R_not_clause_342_9_48()
  {
-    if (jj_scan_token(LRND)) return true;
-    if (jj_3R_expression_330_9_16()) return true;
-    if (jj_scan_token(RRND)) return true;
+    if (jj_scan_token(NOT)) return true;
+    if (jj_3R_not_clause_342_9_41()) return true;
     return false;
   }
 
-  static private boolean jj_3R_term_363_3_57()
+  static private boolean jj_3R_not_clause_347_3_52()
  {
-    if (jj_3R_simple_term_368_9_68()) return true;
+    if (jj_3R_bool_simple_464_9_58()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_condition_331_18_27()
+ {
+    if (jj_scan_token(VBAR)) return true;
+    if (jj_3R_and_clause_337_9_26()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_not_clause_346_3_51()
+ {
+    if (jj_3R_await_exp_422_9_57()) return true;
     return false;
   }
 
   static private boolean jj_3_6()
  {
-    if (jj_3R_fn_call_185_9_14()) return true;
+    if (jj_3R_boolean_call_197_9_20()) return true;
     return false;
   }
 
-  static private boolean jj_3R_moreterms_354_9_60()
+  static private boolean jj_3R_not_clause_344_3_50()
  {
-    if (jj_scan_token(54)) return true;
-    if (jj_3R_term_361_9_51()) return true;
-    if (jj_3R_moreterms_352_9_52()) return true;
+    if (jj_scan_token(LRND)) return true;
+    if (jj_3R_condition_332_9_16()) return true;
+    if (jj_scan_token(RRND)) return true;
     return false;
   }
 
-  static private boolean jj_3R_moreterms_353_9_59()
+  static private boolean jj_3R_string_534_3_96()
  {
-    if (jj_scan_token(DIV)) return true;
-    if (jj_3R_term_361_9_51()) return true;
-    if (jj_3R_moreterms_352_9_52()) return true;
+    if (jj_scan_token(STRING)) return true;
     return false;
   }
 
-  static private boolean jj_3R_moreterms_352_9_52()
+  static private boolean jj_3R_and_clause_337_9_26()
  {
+    if (jj_3R_not_clause_342_9_41()) return true;
     Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_moreterms_352_9_58()) {
-    jj_scanpos = xsp;
-    if (jj_3R_moreterms_353_9_59()) {
-    jj_scanpos = xsp;
-    if (jj_3R_moreterms_354_9_60()) {
-    jj_scanpos = xsp;
-    if (jj_3R_moreterms_355_3_61()) return true;
-    }
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_and_clause_336_18_42()) { jj_scanpos = xsp; break; }
     }
+    return false;
+  }
+
+  static private boolean jj_3R_not_clause_343_3_49()
+ {
+    if (jj_3R_comparison_354_9_56()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_condition_332_9_16()
+ {
+    if (jj_3R_and_clause_337_9_26()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_condition_331_18_27()) { jj_scanpos = xsp; break; }
     }
     return false;
   }
 
-  static private boolean jj_3R_moreterms_352_9_58()
+  static private boolean jj_3_2()
  {
-    if (jj_scan_token(TIMES)) return true;
-    if (jj_3R_term_361_9_51()) return true;
-    if (jj_3R_moreterms_352_9_52()) return true;
+    if (jj_3R_fn_call_191_9_15()) return true;
     return false;
   }
 
-  static private boolean jj_3R_moreterms_355_3_61()
+  static private boolean jj_3R_null_116_27_14()
  {
+    if (jj_scan_token(LSQU)) return true;
+    if (jj_3R_expression_374_9_18()) return true;
+    if (jj_scan_token(RSQU)) return true;
     return false;
   }
 
-  static private boolean jj_3R_product_347_9_42()
+  static private boolean jj_3R_number_521_3_88()
  {
-    if (jj_3R_term_361_9_51()) return true;
-    if (jj_3R_moreterms_352_9_52()) return true;
+    if (jj_scan_token(NUMBER)) return true;
     return false;
   }
 
-  static private boolean jj_3R_summand_342_9_63()
+  static private boolean jj_3R_idbool_509_3_39()
  {
-    if (jj_scan_token(MINUS)) return true;
-    if (jj_3R_product_347_9_42()) return true;
+    if (jj_scan_token(IDBOOL)) return true;
     return false;
   }
 
-  static private boolean jj_3R_summand_341_9_53()
+  static private boolean jj_3_1()
  {
+    if (jj_3R_identifier_457_9_13()) return true;
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_summand_341_9_62()) {
-    jj_scanpos = xsp;
-    if (jj_3R_summand_342_9_63()) return true;
-    }
+    if (jj_3R_null_116_27_14()) jj_scanpos = xsp;
+    if (jj_scan_token(ASSGN)) return true;
     return false;
   }
 
-  static private boolean jj_3R_summand_341_9_62()
+  static private boolean jj_3R_idnum_496_3_40()
  {
-    if (jj_scan_token(PLUS)) return true;
-    if (jj_3R_product_347_9_42()) return true;
+    if (jj_scan_token(IDNUM)) return true;
     return false;
   }
 
-  static private boolean jj_3R_expression_329_19_43()
+  static private boolean jj_3R_vec_const_451_36_100()
  {
-    if (jj_3R_summand_341_9_53()) return true;
+    if (jj_3R_exp_list_202_9_77()) return true;
     return false;
   }
 
-  static private boolean jj_3R_neg_337_9_44()
+  static private boolean jj_3_4()
  {
-    if (jj_scan_token(MINUS)) return true;
-    if (jj_3R_product_347_9_42()) return true;
+    if (jj_3R_idvec_484_3_17()) return true;
+    if (jj_scan_token(ASSGN)) return true;
     return false;
   }
 
-  static private boolean jj_3R_expression_331_15_46()
+  static private boolean jj_3R_idvec_484_3_17()
  {
-    if (jj_3R_summand_341_9_53()) return true;
+    if (jj_scan_token(IDVEC)) return true;
     return false;
   }
 
-  static private boolean jj_3R_expression_332_9_28()
+  static private boolean jj_3R_bool_simple_464_9_58()
  {
-    if (jj_3R_product_347_9_42()) return true;
     Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_expression_331_15_46()) { jj_scanpos = xsp; break; }
+    xsp = jj_scanpos;
+    if (jj_3R_bool_simple_464_9_71()) {
+    jj_scanpos = xsp;
+    if (jj_3R_bool_simple_466_3_72()) {
+    jj_scanpos = xsp;
+    if (jj_3R_bool_simple_467_3_73()) return true;
+    }
     }
     return false;
   }
 
-  static private boolean jj_3R_expression_330_11_45()
+  static private boolean jj_3R_bool_simple_464_9_71()
  {
-    if (jj_3R_summand_341_9_53()) return true;
+    if (jj_3R_idbool_509_3_39()) return true;
     return false;
   }
 
-  static private boolean jj_3R_expression_331_9_27()
+  static private boolean jj_3R_bool_simple_467_3_73()
  {
-    if (jj_3R_neg_337_9_44()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_expression_330_11_45()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(FALSE)) return true;
     return false;
   }
 
-  static private boolean jj_3R_expression_330_9_26()
+  static private boolean jj_3R_bool_simple_466_3_72()
  {
-    if (jj_scan_token(PLUS)) return true;
-    if (jj_3R_product_347_9_42()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_expression_329_19_43()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(TRUE)) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_identifier_457_9_21()
+ {
+    if (jj_3R_idnum_496_3_40()) return true;
     return false;
   }
 
-  static private boolean jj_3R_expression_330_9_16()
+  static private boolean jj_3R_identifier_457_9_13()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_expression_330_9_26()) {
+    if (jj_3R_identifier_457_9_21()) {
     jj_scanpos = xsp;
-    if (jj_3R_expression_331_9_27()) {
+    if (jj_3R_identifier_458_3_22()) {
     jj_scanpos = xsp;
-    if (jj_3R_expression_332_9_28()) return true;
+    if (jj_3R_identifier_459_3_23()) return true;
     }
     }
     return false;
   }
 
-  static private boolean jj_3_2()
+  static private boolean jj_3_10()
  {
-    if (jj_3R_fn_call_185_9_14()) return true;
+    if (jj_scan_token(LSQU)) return true;
+    if (jj_3R_expression_374_9_18()) return true;
     return false;
   }
 
-  static private boolean jj_3R_comparator_322_3_36()
+  static private boolean jj_3_9()
  {
-    if (jj_scan_token(NOTIN)) return true;
+    if (jj_scan_token(LSQU)) return true;
+    if (jj_3R_condition_332_9_16()) return true;
     return false;
   }
 
-  static private boolean jj_3R_comparator_321_3_35()
+  static private boolean jj_3R_identifier_459_3_23()
  {
-    if (jj_scan_token(IN)) return true;
+    if (jj_3R_idvec_484_3_17()) return true;
     return false;
   }
 
-  static private boolean jj_3R_comparator_315_9_29()
+  static private boolean jj_3R_identifier_458_3_22()
  {
-    if (jj_scan_token(LESS)) return true;
+    if (jj_3R_idbool_509_3_39()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_vec_const_452_8_101()
+ {
+    if (jj_3R_condition_list_224_3_99()) return true;
     return false;
   }
 
-  static private boolean jj_3R_comparator_315_9_17()
+  static private boolean jj_3R_vec_const_452_3_95()
  {
+    if (jj_scan_token(LSQU)) return true;
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_comparator_315_9_29()) {
-    jj_scanpos = xsp;
-    if (jj_3R_comparator_316_3_30()) {
-    jj_scanpos = xsp;
-    if (jj_3R_comparator_317_3_31()) {
-    jj_scanpos = xsp;
-    if (jj_3R_comparator_318_3_32()) {
-    jj_scanpos = xsp;
-    if (jj_3R_comparator_319_3_33()) {
-    jj_scanpos = xsp;
-    if (jj_3R_comparator_320_3_34()) {
-    jj_scanpos = xsp;
-    if (jj_3R_comparator_321_3_35()) {
-    jj_scanpos = xsp;
-    if (jj_3R_comparator_322_3_36()) return true;
-    }
-    }
-    }
-    }
-    }
-    }
-    }
+    if (jj_3R_vec_const_452_8_101()) jj_scanpos = xsp;
+    if (jj_scan_token(RSQU)) return true;
     return false;
   }
 
-  static private boolean jj_3R_comparator_320_3_34()
+  static private boolean jj_3R_vec_const_451_3_94()
  {
-    if (jj_scan_token(NEQ)) return true;
+    if (jj_scan_token(LSQU)) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_vec_const_451_36_100()) jj_scanpos = xsp;
+    if (jj_scan_token(RSQU)) return true;
     return false;
   }
 
-  static private boolean jj_3R_comparator_319_3_33()
+  static private boolean jj_3R_vec_const_450_3_93()
  {
-    if (jj_scan_token(EQ)) return true;
+    if (jj_scan_token(LSQU)) return true;
+    if (jj_3R_condition_list_224_3_99()) return true;
+    if (jj_scan_token(RSQU)) return true;
     return false;
   }
 
-  static private boolean jj_3R_comparator_318_3_32()
+  static private boolean jj_3R_vec_const_450_3_89()
  {
-    if (jj_scan_token(GE)) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_vec_const_450_3_93()) {
+    jj_scanpos = xsp;
+    if (jj_3R_vec_const_451_3_94()) {
+    jj_scanpos = xsp;
+    if (jj_3R_vec_const_452_3_95()) return true;
+    }
+    }
     return false;
   }
 
-  static private boolean jj_3R_comparator_317_3_31()
+  static private boolean jj_3R_spawn_exp_416_37_78()
  {
-    if (jj_scan_token(GREAT)) return true;
+    if (jj_3R_boolean_call_197_9_20()) return true;
     return false;
   }
 
-  static private boolean jj_3R_comparator_316_3_30()
+  static private boolean jj_3R_element_440_7_98()
  {
-    if (jj_scan_token(LE)) return true;
+    if (jj_scan_token(RSQU)) return true;
     return false;
   }
 
-  static private boolean jj_3R_comparison_310_9_54()
+  static private boolean jj_3R_element_439_7_97()
  {
-    if (jj_3R_expression_330_9_16()) return true;
-    if (jj_3R_comparator_315_9_17()) return true;
-    if (jj_3R_expression_330_9_16()) return true;
+    if (jj_scan_token(RANGE)) return true;
+    if (jj_3R_expression_374_9_18()) return true;
+    if (jj_scan_token(RSQU)) return true;
     return false;
   }
 
-  static private boolean jj_3_1()
+  static private boolean jj_3_3()
  {
-    if (jj_3R_identifier_384_9_13()) return true;
-    if (jj_scan_token(ASSGN)) return true;
+    if (jj_3R_condition_332_9_16()) return true;
+    if (jj_scan_token(SCOL)) return true;
     return false;
   }
 
-  static private boolean jj_3_4()
+  static private boolean jj_3R_element_436_9_87()
  {
-    if (jj_3R_expression_330_9_16()) return true;
-    if (jj_3R_comparator_315_9_17()) return true;
+    if (jj_3R_idvec_484_3_17()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_element_437_5_92()) jj_scanpos = xsp;
     return false;
   }
 
-  static private boolean jj_3R_and_clause_294_18_41()
+  static private boolean jj_3R_element_437_5_92()
  {
-    if (jj_scan_token(AND)) return true;
-    if (jj_3R_not_clause_300_9_40()) return true;
+    if (jj_scan_token(LSQU)) return true;
+    if (jj_3R_expression_374_9_18()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_element_439_7_97()) {
+    jj_scanpos = xsp;
+    if (jj_3R_element_440_7_98()) return true;
+    }
     return false;
   }
 
-  static private boolean jj_3R_not_clause_300_9_40()
+  static private boolean jj_3R_simple_term_426_9_79()
+ {
+    if (jj_3R_idnum_496_3_40()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_simple_term_426_9_75()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_not_clause_300_9_47()) {
-    jj_scanpos = xsp;
-    if (jj_3R_not_clause_301_3_48()) {
+    if (jj_3R_simple_term_426_9_79()) {
     jj_scanpos = xsp;
-    if (jj_3R_not_clause_302_3_49()) {
+    if (jj_3R_simple_term_427_3_80()) {
     jj_scanpos = xsp;
-    if (jj_3_5()) {
+    if (jj_3R_simple_term_428_3_81()) {
     jj_scanpos = xsp;
-    if (jj_3R_not_clause_304_3_50()) return true;
-    }
+    if (jj_3R_simple_term_429_3_82()) return true;
     }
     }
     }
     return false;
   }
 
-  static private boolean jj_3R_not_clause_300_9_47()
+  static private boolean jj_3R_simple_term_429_3_82()
  {
-    if (jj_scan_token(NOT)) return true;
-    if (jj_3R_not_clause_300_9_40()) return true;
+    if (jj_3R_vec_const_450_3_89()) return true;
     return false;
   }
 
-  static private boolean jj_3R_condition_289_18_25()
+  static private boolean jj_3R_simple_term_428_3_81()
  {
-    if (jj_scan_token(VBAR)) return true;
-    if (jj_3R_and_clause_295_9_24()) return true;
+    if (jj_3R_number_521_3_88()) return true;
     return false;
   }
 
-  static private boolean jj_3R_not_clause_304_3_50()
+  static private boolean jj_3R_await_exp_422_9_57()
  {
-    if (jj_3R_bool_simple_391_9_55()) return true;
+    if (jj_scan_token(AWAIT)) return true;
+    if (jj_3R_term_405_9_53()) return true;
     return false;
   }
 
-  static private boolean jj_3_5()
+  static private boolean jj_3R_condition_list_223_16_102()
  {
-    if (jj_3R_boolean_call_191_9_18()) return true;
+    if (jj_scan_token(COMMA)) return true;
+    if (jj_3R_condition_332_9_16()) return true;
     return false;
   }
 
-  static private boolean jj_3R_not_clause_302_3_49()
+  static private boolean jj_3R_simple_term_427_3_80()
  {
-    if (jj_scan_token(LRND)) return true;
-    if (jj_3R_condition_290_9_15()) return true;
-    if (jj_scan_token(RRND)) return true;
+    if (jj_3R_element_436_9_87()) return true;
+    return false;
+  }
+
+  static private boolean jj_3_8()
+ {
+    if (jj_3R_fn_call_191_9_15()) return true;
     return false;
   }
 
-  static private boolean jj_3R_and_clause_295_9_24()
+  static private boolean jj_3R_spawn_exp_417_9_74()
  {
-    if (jj_3R_not_clause_300_9_40()) return true;
+    if (jj_scan_token(SPAWN)) return true;
     Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_and_clause_294_18_41()) { jj_scanpos = xsp; break; }
+    xsp = jj_scanpos;
+    if (jj_3_8()) {
+    jj_scanpos = xsp;
+    if (jj_3R_spawn_exp_416_37_78()) return true;
     }
     return false;
   }
 
-  static private boolean jj_3R_not_clause_301_3_48()
+  static private boolean jj_3R_range_exp_216_18_76()
  {
-    if (jj_3R_comparison_310_9_54()) return true;
+    if (jj_scan_token(RANGE)) return true;
+    if (jj_3R_expression_374_9_18()) return true;
     return false;
   }
 
-  static private boolean jj_3R_condition_290_9_15()
+  static private boolean jj_3R_condition_list_224_3_99()
  {
-    if (jj_3R_and_clause_295_9_24()) return true;
+    if (jj_3R_condition_332_9_16()) return true;
     Token xsp;
     while (true) {
       xsp = jj_scanpos;
-      if (jj_3R_condition_289_18_25()) { jj_scanpos = xsp; break; }
+      if (jj_3R_condition_list_223_16_102()) { jj_scanpos = xsp; break; }
     }
     return false;
   }
 
-  static private boolean jj_3R_number_448_3_77()
+  static private boolean jj_3R_range_exp_217_9_69()
  {
-    if (jj_scan_token(NUMBER)) return true;
+    if (jj_3R_expression_374_9_18()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_range_exp_216_18_76()) jj_scanpos = xsp;
     return false;
   }
 
-  static private boolean jj_3R_idbool_436_3_37()
+  static private boolean jj_3R_term_405_9_53()
  {
-    if (jj_scan_token(IDBOOL)) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_term_405_9_59()) {
+    jj_scanpos = xsp;
+    if (jj_3_7()) {
+    jj_scanpos = xsp;
+    if (jj_3R_term_407_3_60()) {
+    jj_scanpos = xsp;
+    if (jj_3R_term_408_3_61()) {
+    jj_scanpos = xsp;
+    if (jj_3R_term_409_3_62()) return true;
+    }
+    }
+    }
+    }
     return false;
   }
 
-  static private boolean jj_3R_idnum_423_3_38()
+  static private boolean jj_3R_term_405_9_59()
  {
-    if (jj_scan_token(IDNUM)) return true;
+    if (jj_scan_token(LRND)) return true;
+    if (jj_3R_expression_374_9_18()) return true;
+    if (jj_scan_token(RRND)) return true;
     return false;
   }
 
-  static private boolean jj_3_3()
+  static private boolean jj_3R_term_409_3_62()
  {
-    if (jj_3R_condition_290_9_15()) return true;
+    if (jj_3R_simple_term_426_9_75()) return true;
     return false;
   }
 
-  static private boolean jj_3R_vec_const_378_36_81()
+  static private boolean jj_3R_term_408_3_61()
  {
-    if (jj_3R_exp_list_196_9_69()) return true;
+    if (jj_3R_await_exp_422_9_57()) return true;
     return false;
   }
 
-  static private boolean jj_3R_idvec_411_3_39()
+  static private boolean jj_3R_term_407_3_60()
  {
-    if (jj_scan_token(IDVEC)) return true;
+    if (jj_3R_spawn_exp_417_9_74()) return true;
     return false;
   }
 
-  static private boolean jj_3R_condition_list_202_16_84()
+  static private boolean jj_3R_list_item_209_9_91()
  {
-    if (jj_scan_token(COMMA)) return true;
-    if (jj_3R_condition_290_9_15()) return true;
+    if (jj_3R_range_exp_217_9_69()) return true;
+    return false;
+  }
+
+  static private boolean jj_3_7()
+ {
+    if (jj_3R_fn_call_191_9_15()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_list_item_208_9_90()
+ {
+    if (jj_3R_string_534_3_96()) return true;
     return false;
   }
 
-  static private boolean jj_3R_exp_list_195_17_74()
+  static private boolean jj_3R_exp_list_201_16_84()
  {
     if (jj_scan_token(COMMA)) return true;
-    if (jj_3R_expression_330_9_16()) return true;
+    if (jj_3R_list_item_208_9_83()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_list_item_208_9_83()
+ {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_list_item_208_9_90()) {
+    jj_scanpos = xsp;
+    if (jj_3R_list_item_209_9_91()) return true;
+    }
+    return false;
+  }
+
+  static private boolean jj_3R_moreterms_398_9_65()
+ {
+    if (jj_scan_token(58)) return true;
+    if (jj_3R_term_405_9_53()) return true;
+    if (jj_3R_moreterms_396_9_54()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_moreterms_397_9_64()
+ {
+    if (jj_scan_token(DIV)) return true;
+    if (jj_3R_term_405_9_53()) return true;
+    if (jj_3R_moreterms_396_9_54()) return true;
     return false;
   }
 
-  static private boolean jj_3R_bool_simple_391_9_55()
+  static private boolean jj_3R_moreterms_396_9_54()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_bool_simple_391_9_65()) {
+    if (jj_3R_moreterms_396_9_63()) {
+    jj_scanpos = xsp;
+    if (jj_3R_moreterms_397_9_64()) {
     jj_scanpos = xsp;
-    if (jj_3R_bool_simple_393_3_66()) {
+    if (jj_3R_moreterms_398_9_65()) {
     jj_scanpos = xsp;
-    if (jj_3R_bool_simple_394_3_67()) return true;
+    if (jj_3R_moreterms_399_3_66()) return true;
+    }
     }
     }
     return false;
   }
 
-  static private boolean jj_3R_bool_simple_391_9_65()
+  static private boolean jj_3R_moreterms_396_9_63()
  {
-    if (jj_3R_idbool_436_3_37()) return true;
+    if (jj_scan_token(TIMES)) return true;
+    if (jj_3R_term_405_9_53()) return true;
+    if (jj_3R_moreterms_396_9_54()) return true;
     return false;
   }
 
-  static private boolean jj_3R_boolean_call_190_17_64()
+  static private boolean jj_3R_fn_call_191_22_86()
  {
-    if (jj_3R_exp_list_196_9_69()) return true;
+    if (jj_3R_exp_list_202_9_77()) return true;
     return false;
   }
 
-  static private boolean jj_3R_fn_call_185_22_76()
+  static private boolean jj_3R_boolean_call_196_17_70()
  {
-    if (jj_3R_exp_list_196_9_69()) return true;
+    if (jj_3R_exp_list_202_9_77()) return true;
     return false;
   }
 
-  static private boolean jj_3R_condition_list_203_3_83()
+  static private boolean jj_3R_exp_list_202_9_77()
  {
-    if (jj_3R_condition_290_9_15()) return true;
+    if (jj_3R_list_item_208_9_83()) return true;
     Token xsp;
     while (true) {
       xsp = jj_scanpos;
-      if (jj_3R_condition_list_202_16_84()) { jj_scanpos = xsp; break; }
+      if (jj_3R_exp_list_201_16_84()) { jj_scanpos = xsp; break; }
     }
     return false;
   }
 
-  static private boolean jj_3R_bool_simple_394_3_67()
+  static private boolean jj_3R_moreterms_399_3_66()
  {
-    if (jj_scan_token(FALSE)) return true;
     return false;
   }
 
-  static private boolean jj_3R_exp_list_196_9_69()
+  static private boolean jj_3R_product_391_9_43()
+ {
+    if (jj_3R_term_405_9_53()) return true;
+    if (jj_3R_moreterms_396_9_54()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_fn_call_190_16_85()
  {
-    if (jj_3R_expression_330_9_16()) return true;
+    if (jj_3R_exp_list_202_9_77()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_boolean_call_197_9_20()
+ {
+    if (jj_3R_idbool_509_3_39()) return true;
+    if (jj_scan_token(LRND)) return true;
     Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_exp_list_195_17_74()) { jj_scanpos = xsp; break; }
-    }
+    xsp = jj_scanpos;
+    if (jj_3R_boolean_call_196_17_70()) jj_scanpos = xsp;
+    if (jj_scan_token(RRND)) return true;
     return false;
   }
 
-  static private boolean jj_3R_bool_simple_393_3_66()
+  static private boolean jj_3R_summand_386_9_68()
  {
-    if (jj_scan_token(TRUE)) return true;
+    if (jj_scan_token(MINUS)) return true;
+    if (jj_3R_product_391_9_43()) return true;
     return false;
   }
 
-  static private boolean jj_3R_identifier_384_9_13()
+  static private boolean jj_3R_summand_385_9_55()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_identifier_384_9_19()) {
-    jj_scanpos = xsp;
-    if (jj_3R_identifier_385_3_20()) {
+    if (jj_3R_summand_385_9_67()) {
     jj_scanpos = xsp;
-    if (jj_3R_identifier_386_3_21()) return true;
-    }
+    if (jj_3R_summand_386_9_68()) return true;
     }
     return false;
   }
 
-  static private boolean jj_3R_identifier_384_9_19()
+  static private boolean jj_3R_summand_385_9_67()
+ {
+    if (jj_scan_token(PLUS)) return true;
+    if (jj_3R_product_391_9_43()) return true;
+    return false;
+  }
+
+  static private boolean jj_3R_expression_373_19_44()
  {
-    if (jj_3R_idnum_423_3_38()) return true;
+    if (jj_3R_summand_385_9_55()) return true;
     return false;
   }
 
-  static private boolean jj_3R_boolean_call_191_9_18()
+  static private boolean jj_3R_fn_call_191_9_25()
  {
-    if (jj_3R_idbool_436_3_37()) return true;
+    if (jj_3R_idvec_484_3_17()) return true;
     if (jj_scan_token(LRND)) return true;
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_boolean_call_190_17_64()) jj_scanpos = xsp;
+    if (jj_3R_fn_call_191_22_86()) jj_scanpos = xsp;
     if (jj_scan_token(RRND)) return true;
     return false;
   }
 
-  static private boolean jj_3R_fn_call_184_16_75()
+  static private boolean jj_3R_fn_call_191_9_15()
  {
-    if (jj_3R_exp_list_196_9_69()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_fn_call_190_3_24()) {
+    jj_scanpos = xsp;
+    if (jj_3R_fn_call_191_9_25()) return true;
+    }
     return false;
   }
 
-  static private boolean jj_3_7()
+  static private boolean jj_3R_neg_381_9_45()
  {
-    if (jj_scan_token(LSQU)) return true;
-    if (jj_3R_expression_330_9_16()) return true;
+    if (jj_scan_token(MINUS)) return true;
+    if (jj_3R_product_391_9_43()) return true;
     return false;
   }
 
-  static private boolean jj_3R_identifier_386_3_21()
+  static private boolean jj_3R_expression_375_15_47()
  {
-    if (jj_3R_idvec_411_3_39()) return true;
+    if (jj_3R_summand_385_9_55()) return true;
     return false;
   }
 
-  static private boolean jj_3R_identifier_385_3_20()
+  static private boolean jj_3R_expression_376_9_30()
  {
-    if (jj_3R_idbool_436_3_37()) return true;
+    if (jj_3R_product_391_9_43()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_expression_375_15_47()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  static private boolean jj_3R_vec_const_379_8_82()
+  static private boolean jj_3R_expression_374_11_46()
  {
-    if (jj_3R_condition_list_203_3_83()) return true;
+    if (jj_3R_summand_385_9_55()) return true;
     return false;
   }
 
-  static private boolean jj_3R_fn_call_185_9_23()
+  static private boolean jj_3R_fn_call_190_3_24()
  {
-    if (jj_3R_idvec_411_3_39()) return true;
+    if (jj_3R_idnum_496_3_40()) return true;
     if (jj_scan_token(LRND)) return true;
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_fn_call_185_22_76()) jj_scanpos = xsp;
+    if (jj_3R_fn_call_190_16_85()) jj_scanpos = xsp;
     if (jj_scan_token(RRND)) return true;
     return false;
   }
 
-  static private boolean jj_3R_fn_call_185_9_14()
+  static private boolean jj_3R_expression_375_9_29()
  {
+    if (jj_3R_neg_381_9_45()) return true;
     Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_fn_call_184_3_22()) {
-    jj_scanpos = xsp;
-    if (jj_3R_fn_call_185_9_23()) return true;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_expression_374_11_46()) { jj_scanpos = xsp; break; }
     }
     return false;
   }
 
-  static private boolean jj_3R_vec_const_379_3_80()
+  static private boolean jj_3R_expression_374_9_28()
+ {
+    if (jj_scan_token(PLUS)) return true;
+    if (jj_3R_product_391_9_43()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_expression_373_19_44()) { jj_scanpos = xsp; break; }
+    }
+    return false;
+  }
+
+  static private boolean jj_3R_expression_374_9_18()
  {
-    if (jj_scan_token(LSQU)) return true;
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_vec_const_379_8_82()) jj_scanpos = xsp;
-    if (jj_scan_token(RSQU)) return true;
+    if (jj_3R_expression_374_9_28()) {
+    jj_scanpos = xsp;
+    if (jj_3R_expression_375_9_29()) {
+    jj_scanpos = xsp;
+    if (jj_3R_expression_376_9_30()) return true;
+    }
+    }
     return false;
   }
 
@@ -2661,7 +3208,7 @@ if (jjtc000) {
   static private Token jj_scanpos, jj_lastpos;
   static private int jj_la;
   static private int jj_gen;
-  static final private int[] jj_la1 = new int[44];
+  static final private int[] jj_la1 = new int[50];
   static private int[] jj_la1_0;
   static private int[] jj_la1_1;
   static {
@@ -2669,12 +3216,12 @@ if (jjtc000) {
 	   jj_la1_init_1();
 	}
 	private static void jj_la1_init_0() {
-	   jj_la1_0 = new int[] {0x80606001,0x80000000,0x606000,0x80000000,0x80000000,0x0,0x80000000,0x80000000,0x2000000,0x0,0x2000000,0x606000,0x606000,0x0,0x606000,0x2000000,0x2000000,0x606000,0x18606000,0x18606000,0x2000000,0x18606000,0x0,0x0,0x40000,0x20000,0x80000,0x200000,0x18000000,0x1fe0,0x6000,0x6000,0x6000,0x606000,0x6000,0x18000,0x200000,0x400000,0x400000,0x606000,0x18686000,0x400000,0x0,0x18000000,};
+	   jj_la1_0 = new int[] {0x80606001,0x80000000,0x606000,0x80000000,0x80000000,0x0,0x80000000,0x80000000,0x2000000,0x0,0x2000000,0x606000,0x606000,0x0,0x606000,0x2000000,0x606000,0x20000000,0x2000000,0x606000,0x18606000,0x18606000,0x2000000,0x18606000,0x0,0x0,0x0,0x40000,0x20000,0x80000,0x200000,0x18000000,0x1fe0,0x6000,0x6000,0x6000,0x606000,0x6000,0x18000,0x200000,0x400000,0x0,0x400000,0x21000000,0x400000,0x606000,0x18686000,0x400000,0x0,0x18000000,};
 	}
 	private static void jj_la1_init_1() {
-	   jj_la1_1 = new int[] {0x1e0ec3,0xec3,0x1e0000,0xec3,0xec3,0x1c0000,0x1c0ec3,0x1c0ec3,0x0,0x1c0000,0x0,0x160000,0x160000,0x140000,0x160000,0x0,0x0,0x160000,0x1f0000,0x1f0000,0x0,0x1f0000,0x1c0000,0x18,0x0,0x0,0x0,0x0,0x80000,0x0,0x0,0x0,0x0,0x160000,0x0,0x400000,0x0,0x160000,0x160000,0x160000,0x1e0000,0x0,0x1c0000,0x80000,};
+	   jj_la1_1 = new int[] {0x1e0fec3,0x3ec3,0x1e0c000,0x3ec3,0x3ec3,0x1c00000,0x1c03ec3,0x1c03ec3,0x0,0x1c00000,0x0,0x170c000,0x170c000,0x1400000,0x170c000,0x0,0x170c000,0x0,0x0,0x160c000,0x1f0c000,0x1f0c000,0x0,0x1f0c000,0xc00000,0x1000000,0x18,0x0,0x0,0x0,0x0,0x808000,0x0,0x0,0x0,0x0,0x160c000,0x0,0x4000000,0x0,0x160c000,0x800000,0x1600000,0x0,0x0,0x170c000,0x1e0c000,0x0,0x1c00000,0x800000,};
 	}
-  static final private JJCalls[] jj_2_rtns = new JJCalls[7];
+  static final private JJCalls[] jj_2_rtns = new JJCalls[10];
   static private boolean jj_rescan = false;
   static private int jj_gc = 0;
 
@@ -2696,7 +3243,7 @@ if (jjtc000) {
 	 token = new Token();
 	 jj_ntk = -1;
 	 jj_gen = 0;
-	 for (int i = 0; i < 44; i++) jj_la1[i] = -1;
+	 for (int i = 0; i < 50; i++) jj_la1[i] = -1;
 	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -2712,7 +3259,7 @@ if (jjtc000) {
 	 jj_ntk = -1;
 	 jjtree.reset();
 	 jj_gen = 0;
-	 for (int i = 0; i < 44; i++) jj_la1[i] = -1;
+	 for (int i = 0; i < 50; i++) jj_la1[i] = -1;
 	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -2730,7 +3277,7 @@ if (jjtc000) {
 	 token = new Token();
 	 jj_ntk = -1;
 	 jj_gen = 0;
-	 for (int i = 0; i < 44; i++) jj_la1[i] = -1;
+	 for (int i = 0; i < 50; i++) jj_la1[i] = -1;
 	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -2750,7 +3297,7 @@ if (jjtc000) {
 	 jj_ntk = -1;
 	 jjtree.reset();
 	 jj_gen = 0;
-	 for (int i = 0; i < 44; i++) jj_la1[i] = -1;
+	 for (int i = 0; i < 50; i++) jj_la1[i] = -1;
 	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -2767,7 +3314,7 @@ if (jjtc000) {
 	 token = new Token();
 	 jj_ntk = -1;
 	 jj_gen = 0;
-	 for (int i = 0; i < 44; i++) jj_la1[i] = -1;
+	 for (int i = 0; i < 50; i++) jj_la1[i] = -1;
 	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -2778,7 +3325,7 @@ if (jjtc000) {
 	 jj_ntk = -1;
 	 jjtree.reset();
 	 jj_gen = 0;
-	 for (int i = 0; i < 44; i++) jj_la1[i] = -1;
+	 for (int i = 0; i < 50; i++) jj_la1[i] = -1;
 	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -2909,12 +3456,12 @@ if (jjtc000) {
   /** Generate ParseException. */
   static public ParseException generateParseException() {
 	 jj_expentries.clear();
-	 boolean[] la1tokens = new boolean[55];
+	 boolean[] la1tokens = new boolean[59];
 	 if (jj_kind >= 0) {
 	   la1tokens[jj_kind] = true;
 	   jj_kind = -1;
 	 }
-	 for (int i = 0; i < 44; i++) {
+	 for (int i = 0; i < 50; i++) {
 	   if (jj_la1[i] == jj_gen) {
 		 for (int j = 0; j < 32; j++) {
 		   if ((jj_la1_0[i] & (1<<j)) != 0) {
@@ -2926,7 +3473,7 @@ if (jjtc000) {
 		 }
 	   }
 	 }
-	 for (int i = 0; i < 55; i++) {
+	 for (int i = 0; i < 59; i++) {
 	   if (la1tokens[i]) {
 		 jj_expentry = new int[1];
 		 jj_expentry[0] = i;
@@ -2960,7 +3507,7 @@ if (jjtc000) {
 
   static private void jj_rescan_token() {
 	 jj_rescan = true;
-	 for (int i = 0; i < 7; i++) {
+	 for (int i = 0; i < 10; i++) {
 	   try {
 		 JJCalls p = jj_2_rtns[i];
 
@@ -2975,6 +3522,9 @@ if (jjtc000) {
 			   case 4: jj_3_5(); break;
 			   case 5: jj_3_6(); break;
 			   case 6: jj_3_7(); break;
+			   case 7: jj_3_8(); break;
+			   case 8: jj_3_9(); break;
+			   case 9: jj_3_10(); break;
 			 }
 		   }
 		   p = p.next;
@@ -0,0 +1,261 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Boolean vector stored as a bitset, one bit per element.
+ *
+ * The first 64 elements fit in a single long field, so short vectors don't
+ * allocate an array. Longer ones keep their bits in a long[] that grows
+ * geometrically, 64 elements per word.
+ *
+ * Like VNMIntVector, the word array can be shared between handles and is
+ * copied on the first write through a shared handle, and a vector big enough
+ * (see VNMConfig.OFFHEAP_BYTES) keeps its words in a VNMOffHeap store.
+ */
+public final class VNMBoolVector extends VNMVector {
+
+    // Inline word, used while words == null.
+    private long word0;
+
+    private long[] words;
+
+    // Off-heap words, used instead of words for huge vectors.
+    private VNMOffHeap store;
+
+    private int size;
+
+    public VNMBoolVector() {
+    }
+
+    // Wraps existing words holding length bits, without copying them.
+    public static VNMBoolVector wrap(long[] words, int length) {
+        VNMBoolVector v = new VNMBoolVector();
+        if (length <= 64) {
+            v.word0 = (words.length > 0) ? words[0] : 0;
+        } else {
+            v.words = words;
+        }
+        v.size = length;
+        return v;
+    }
+
+    // Wraps an off-heap store (e.g. a mapped file) holding length bits.
+    public static VNMBoolVector wrap(VNMOffHeap store, int length) {
+        VNMBoolVector v = new VNMBoolVector();
+        v.store = store;
+        v.size = length;
+        return v;
+    }
+
+    public int length() {
+        return size;
+    }
+
+    public boolean isBoolean() {
+        return true;
+    }
+
+    public Object get(int i) {
+        return Boolean.valueOf(getBool(i));
+    }
+
+    public boolean getBool(int i) {
+        checkIndex(i);
+        return (word(i >>> 6) & (1L << i)) != 0;
+    }
+
+    private long word(int w) {
+        if (words != null) {
+            return words[w];
+        }
+        return (store != null) ? store.getLong(w) : word0;
+    }
+
+    private void setWord(int w, long value) {
+        if (words != null) {
+            words[w] = value;
+        } else if (store != null) {
+            store.putLong(w, value);
+        } else {
+            word0 = value;
+        }
+    }
+
+    private int wordCapacity() {
+        if (words != null) {
+            return words.length;
+        }
+        return (store != null) ? store.longCapacity() : 1;
+    }
+
+    // Moves the words into fresh storage with room for capacity of them,
+    // on or off the heap depending on how big that is.
+    private void reallocate(int capacity) {
+        int used = Math.min((size + 63) >>> 6, capacity);
+        if (VNMOffHeap.wanted((long) capacity << 3)) {
+            VNMOffHeap fresh = new VNMOffHeap((long) capacity << 3);
+            for (int w = 0; w < used; w++) {
+                fresh.putLong(w, word(w));
+            }
+            store = fresh;
+            words = null;
+        } else {
+            long[] fresh = new long[capacity];
+            for (int w = 0; w < used; w++) {
+                fresh[w] = word(w);
+            }
+            words = fresh;
+            store = null;
+        }
+    }
+
+    public VNMBoolVector share() {
+        VNMBoolVector v = new VNMBoolVector();
+        v.size = size;
+        v.word0 = word0;
+        if (words != null || store != null) {
+            v.words = words;
+            v.store = store;
+            v.owners = addOwner();
+        }
+        return v;
+    }
+
+    // Gives this handle its own copy of the words if another handle uses them.
+    private void beforeWrite() {
+        if ((words != null || store != null) && isShared()) {
+            reallocate(wordCapacity());
+            owners.decrementAndGet();
+            owners = null;
+        } else if (store != null && store.isReadOnly()) {
+            reallocate(wordCapacity());
+        }
+    }
+
+    public void own() {
+        beforeWrite();
+    }
+
+    public void setBool(int i, boolean value) {
+        checkIndex(i);
+        beforeWrite();
+        long bit = 1L << i;
+        int w = i >>> 6;
+        long word = word(w);
+        setWord(w, value ? (word | bit) : (word & ~bit));
+    }
+
+    public void append(boolean value) {
+        beforeWrite();
+        if (words == null && store == null) {
+            if (size < 64) {
+                size++;
+                setBool(size - 1, value);
+                return;
+            }
+            reallocate(4);
+        } else if ((size >>> 6) == wordCapacity()) {
+            reallocate(grownCapacity(wordCapacity(), wordCapacity() + 1));
+        }
+        size++;
+        setBool(size - 1, value);
+    }
+
+    // A vector of n false elements, to be filled in with setWords().
+    public static VNMBoolVector falses(int n) {
+        VNMBoolVector v = new VNMBoolVector();
+        if (n > 64) {
+            v.reallocate((n + 63) >>> 6);
+        }
+        v.size = n;
+        return v;
+    }
+
+    // Overwrites count words, starting at word first, with src[0..count-1].
+    // Bits past the end of the vector are cleared. Writers that fill in
+    // different words can do so from different threads, as long as nobody
+    // else has seen the vector yet.
+    public void setWords(int first, long[] src, int count) {
+        int last = (size + 63) >>> 6;
+        for (int w = 0; w < count; w++) {
+            long word = src[w];
+            if (first + w == last - 1 && (size & 63) != 0) {
+                word &= (1L << size) - 1;
+            }
+            setWord(first + w, word);
+        }
+    }
+
+    // Number of true elements from..to-1; from must be a multiple of 64.
+    public int countTrue(int from, int to) {
+        int count = 0;
+        int w = from >>> 6;
+        for (; (w + 1) << 6 <= to; w++) {
+            count += Long.bitCount(word(w));
+        }
+        if ((w << 6) < to) {
+            count += Long.bitCount(word(w) & ((1L << (to - (w << 6))) - 1));
+        }
+        return count;
+    }
+
+    // Elements from..to (both included). Bits don't line up with word
+    // boundaries in general, so boolean slices are copied.
+    public VNMBoolVector slice(int from, int to) {
+        if (from < 0 || to >= size || to < from - 1) {
+            throw new IndexOutOfBoundsException("Slice " + from + ".." + to + " out of range for vector of length " + size);
+        }
+        VNMBoolVector v = new VNMBoolVector();
+        for (int i = from; i <= to; i++) {
+            v.append(getBool(i));
+        }
+        v.trim();
+        return v;
+    }
+
+    // Appends every element of another boolean vector.
+    public void appendAll(VNMBoolVector other) {
+        for (int i = 0; i < other.size; i++) {
+            append(other.getBool(i));
+        }
+    }
+
+    // Drops unused words once the vector is finished being built.
+    public void trim() {
+        if ((words != null || store != null) && !isShared()) {
+            int needed = (size + 63) >>> 6;
+            if (needed <= 1) {
+                word0 = word(0);
+                words = null;
+                store = null;
+            } else if (needed < wordCapacity()) {
+                reallocate(needed);
+            }
+        }
+    }
+
+    // Writes the words to the channel as little-endian longs, 64 elements
+    // each, element i being bit (i % 64) of word i / 64.
+    public void writeTo(FileChannel channel) throws IOException {
+        int count = (size + 63) >>> 6;
+        if (store != null) {
+            store.writeTo(channel, 0, (long) count << 3);
+            return;
+        }
+        ByteBuffer block = ByteBuffer.allocate(Math.min(count, 8192) * 8).order(ByteOrder.LITTLE_ENDIAN);
+        for (int w = 0; w < count; ) {
+            int n = Math.min(count - w, block.capacity() / 8);
+            block.clear();
+            for (int k = 0; k < n; k++) {
+                block.putLong(word(w + k));
+            }
+            block.flip();
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+            w += n;
+        }
+    }
+}
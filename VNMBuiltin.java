@@ -0,0 +1,13 @@
+/**
+ * A function implemented in Java instead of VNM.
+ *
+ * The resolver binds a call site that names a builtin straight to it, so
+ * calling one evaluates the arguments and hands them over. No frame is
+ * entered and nothing is looked up by name at run time.
+ */
+public interface VNMBuiltin {
+
+    // args are the evaluated arguments, with ranges already turned into
+    // vectors. A builtin must not keep the vectors it is given.
+    Object call(Object[] args) throws Exception;
+}
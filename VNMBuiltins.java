@@ -0,0 +1,74 @@
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Registry of builtin functions, by name.
+ *
+ * Names follow the same prefixes as user functions (#f returns a number,
+ * v_f a vector, ?f a boolean). A FUNCTION can't reuse a builtin's name.
+ */
+public final class VNMBuiltins {
+
+    private static final HashMap<String, VNMBuiltin> builtins = new HashMap<String, VNMBuiltin>();
+
+    // Builtins that change something outside the interpreter (see VNMEffects).
+    private static final HashSet<String> effects = new HashSet<String>();
+
+    // Builtins whose result depends on more than their arguments.
+    private static final HashSet<String> inputs = new HashSet<String>();
+
+    static {
+        register("v_load", VNMVectorIO::load);
+        register("#save", VNMVectorIO::save);
+        register("#sum", VNMVectorMath::sum);
+        register("#min", VNMVectorMath::min);
+        register("#max", VNMVectorMath::max);
+        register("#trues", VNMVectorMath::trues);
+        register("#length", VNMVectorLib::length);
+        register("v_sort", VNMVectorLib::sort);
+        register("v_reverse", VNMVectorLib::reverse);
+        register("#indexof", VNMVectorLib::indexOf);
+        register("?sorted", VNMVectorLib::sorted);
+        register("v_map", VNMPipeline.MAP_BUILTIN);
+        register("v_filter", VNMPipeline.FILTER_BUILTIN);
+        register("#reduce", VNMPipeline.REDUCE_BUILTIN);
+        register("#preduce", VNMPipeline.PREDUCE_BUILTIN);
+        register("#memo", VNMMemo.CONTROL);
+        register("v_memostats", VNMMemo.STATS);
+        effects.add("#save");
+        effects.add("#memo");
+        inputs.add("v_load");
+        inputs.add("v_memostats");
+    }
+
+    private VNMBuiltins() {
+    }
+
+    public static void register(String name, VNMBuiltin builtin) {
+        builtins.put(name, builtin);
+    }
+
+    // The builtin with this name, or null if there isn't one.
+    public static VNMBuiltin lookup(String name) {
+        return builtins.get(name);
+    }
+
+    // False for builtins with side effects, like writing a file.
+    public static boolean isPure(String name) {
+        return !effects.contains(name);
+    }
+
+    // False for builtins that read files or interpreter state, so the same
+    // arguments can give different results.
+    public static boolean isDeterministic(String name) {
+        return !inputs.contains(name);
+    }
+
+    // Checks the argument count, with the same message user functions give.
+    public static void expect(String name, Object[] args, int count) throws Exception {
+        if (args.length != count) {
+            throw new Exception("Function " + name + " expects " + count
+                                + " argument(s) but got " + args.length);
+        }
+    }
+}
@@ -0,0 +1,413 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Common subexpression elimination inside blocks.
+ *
+ * Runs last, after VNMLoops, on the same trees. A block is a run of
+ * statements with no loop, FUNCTION or YIELD in between; an IF's
+ * condition belongs to the block before it, and each branch starts a
+ * block that goes on from there, so ELIF conditions share with the IF's.
+ * A WHILE's body goes on from its condition. In each block, in the order
+ * things are evaluated, an expression that is worked out again while none
+ * of the variables it reads has been assigned since gets a slot: the
+ * first place fills it (VNMFirst), the later places read it (VNMShared).
+ *
+ *   - Only what VNMLoops would hoist counts: operators, indexing, calls to
+ *     builtins whose result depends on their arguments alone and, at top
+ *     level, to FUNCTIONs that are pure functions of their arguments.
+ *   - The right side of & and | may not run, so it can read a slot but
+ *     never fills one.
+ *   - A call that may assign globals (any FUNCTION call inside a FUNCTION
+ *     body, or one VNMEffects doesn't know to be pure) forgets everything
+ *     that reads globals; a builtin with side effects forgets everything.
+ *
+ * Slots are globals at top level and frame slots in a FUNCTION. PARFOR
+ * bodies are left alone, and each arm of a chain VNMSwitches compiled
+ * starts afresh.
+ *
+ * Runs unless -Dvnm.optimize=false or -Dvnm.optimize.cse=false.
+ */
+public final class VNMCommon {
+
+    private final VNMEval evaluator;
+    private final VNMFunctionTable functions;
+
+    // Numbers the slots' names, which only show in tree dumps.
+    private final AtomicInteger made = new AtomicInteger();
+
+    public VNMCommon(VNMEval evaluator, VNMFunctionTable functions) {
+        this.evaluator = evaluator;
+        this.functions = functions;
+    }
+
+    public void topLevel(SimpleNode tree) {
+        Pass p = new Pass(null);
+        p.statement(tree, new Block());
+        p.finish();
+    }
+
+    public void function(VNMFunction fn) {
+        Pass p = new Pass(fn);
+        p.statement(fn.body, new Block());
+        p.finish();
+    }
+
+    // The expressions worked out so far in a block that still hold, by key.
+    private static final class Block {
+        final LinkedHashMap<String, Common> seen = new LinkedHashMap<String, Common>();
+
+        // A branch goes on from here without changing what holds here.
+        Block copy() {
+            Block copy = new Block();
+            copy.seen.putAll(seen);
+            return copy;
+        }
+
+        void kill(String variable) {
+            seen.values().removeIf(c -> c.reads.contains(variable));
+        }
+
+        void killGlobals() {
+            seen.values().removeIf(c -> c.global);
+        }
+    }
+
+    // One expression and the later places it is worked out again.
+    private static final class Common {
+        final SimpleNode first;
+        final ArrayList<SimpleNode> uses = new ArrayList<SimpleNode>();
+        // The variables it reads, as keys (see variable()).
+        final HashSet<String> reads = new HashSet<String>();
+        // It reads a global, or calls a FUNCTION that may be declared again.
+        boolean global;
+
+        Common(SimpleNode first) {
+            this.first = first;
+        }
+    }
+
+    private final class Pass {
+        final VNMFunction fn;
+        final IdentityHashMap<Node, String> keys = new IdentityHashMap<Node, String>();
+        final ArrayList<Common> found = new ArrayList<Common>();
+
+        Pass(VNMFunction fn) {
+            this.fn = fn;
+        }
+
+        /* ---------- statements ---------- */
+
+        // Goes through a statement in the block it starts in, and returns
+        // the block the next statement is in.
+        Block statement(Node n, Block b) {
+            if (n instanceof ASTbody || n instanceof ASTclause) {
+                for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                    b = statement(n.jjtGetChild(i), b);
+                }
+                return b;
+            }
+            if (n instanceof ASTNULL) {
+                return b;
+            }
+            if (n instanceof ASTfn_decl) {
+                return new Block();
+            }
+            if (n instanceof ASTvar_decl) {
+                for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                    kill(n.jjtGetChild(i), b);
+                }
+                return b;
+            }
+            if (n instanceof ASTAssign) {
+                // v_a[i] := x works out i, then x, then writes.
+                Node target = n.jjtGetChild(0);
+                if (target instanceof ASTindex) {
+                    expression(target.jjtGetChild(1), b, false);
+                    target = target.jjtGetChild(0);
+                }
+                expression(n.jjtGetChild(1), b, false);
+                kill(target, b);
+                return b;
+            }
+            if (n instanceof ASTIf && ((SimpleNode) n).jjtGetValue() instanceof VNMSwitch) {
+                // Which conditions run depends on the value, so each arm
+                // starts afresh.
+                for (Node arm = n; arm instanceof ASTIf; ) {
+                    statement(arm.jjtGetChild(1), new Block());
+                    arm = (arm.jjtGetNumChildren() > 2) ? arm.jjtGetChild(2) : null;
+                    if (arm != null && !(arm instanceof ASTIf)) {
+                        statement(arm, new Block());
+                    }
+                }
+                return new Block();
+            }
+            if (n instanceof ASTIf) {
+                branches(n, b);
+                return new Block();
+            }
+            if (n instanceof ASTWhile) {
+                // The condition runs again after the body, so it can't use
+                // what came before the loop.
+                Block condition = new Block();
+                expression(n.jjtGetChild(0), condition, false);
+                statement(n.jjtGetChild(1), condition.copy());
+                return new Block();
+            }
+            if (n instanceof ASTFor || n instanceof ASTParfor) {
+                // An item after the first is worked out after the
+                // iterations before it, so each item is a block of its own.
+                Node items = n.jjtGetChild(1);
+                for (int i = 0; i < items.jjtGetNumChildren(); i++) {
+                    expression(items.jjtGetChild(i), new Block(), false);
+                }
+                if (n instanceof ASTFor) {
+                    statement(n.jjtGetChild(2), new Block());
+                }
+                return new Block();
+            }
+            if (n instanceof ASTReturn || n instanceof ASTYield) {
+                for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                    expression(n.jjtGetChild(i), b, false);
+                }
+                return new Block();
+            }
+            if (n instanceof ASTPrint || n instanceof ASTPrint_ln) {
+                for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                    expression(n.jjtGetChild(i), b, false);
+                }
+                return b;
+            }
+            expression(n, b, false);
+            return b;
+        }
+
+        // An IF's condition, then each branch in a block of its own that
+        // goes on from it. An ELIF's condition only runs when the ones
+        // before it were false, right after them.
+        private void branches(Node n, Block b) {
+            expression(n.jjtGetChild(0), b, false);
+            statement(n.jjtGetChild(1), b.copy());
+            if (n.jjtGetNumChildren() > 2) {
+                Node otherwise = n.jjtGetChild(2);
+                if (otherwise instanceof ASTIf) {
+                    branches(otherwise, b.copy());
+                } else {
+                    statement(otherwise, b.copy());
+                }
+            }
+        }
+
+        private void kill(Node variable, Block b) {
+            VNMVarRef ref = ref(variable);
+            if (ref != null) {
+                b.kill(variable(ref));
+            }
+        }
+
+        /* ---------- expressions ---------- */
+
+        // Walks an expression in the order it is evaluated. Below an
+        // expression seen before there is nothing more to find.
+        private void expression(Node n, Block b, boolean maybe) {
+            if (n instanceof ASTfn_decl || isVariable(n)) {
+                return;
+            }
+            if (n instanceof ASTSpawn) {
+                // Each SPAWN starts a task of its own, so its call is never
+                // shared; only the arguments can be.
+                Node call = n.jjtGetChild(0);
+                for (int i = 1; i < call.jjtGetNumChildren(); i++) {
+                    expression(call.jjtGetChild(i), b, maybe);
+                }
+                return;
+            }
+            if (worthKeeping(n)) {
+                String key = key(n);
+                if (key != null) {
+                    Common c = b.seen.get(key);
+                    if (c != null) {
+                        c.uses.add((SimpleNode) n);
+                        return;
+                    }
+                    if (!maybe) {
+                        c = new Common((SimpleNode) n);
+                        reads(n, c);
+                        b.seen.put(key, c);
+                        found.add(c);
+                    }
+                }
+            }
+            if (n instanceof ASTand || n instanceof ASTor) {
+                expression(n.jjtGetChild(0), b, maybe);
+                expression(n.jjtGetChild(1), b, true);
+                return;
+            }
+            boolean call = n instanceof ASTfn_call || n instanceof ASTboolean_call;
+            for (int i = call ? 1 : 0; i < n.jjtGetNumChildren(); i++) {
+                expression(n.jjtGetChild(i), b, maybe);
+            }
+            if (call) {
+                effects((SimpleNode) n, b);
+            }
+        }
+
+        // What a call may change, once its arguments are worked out.
+        private void effects(SimpleNode call, Block b) {
+            if (call.jjtGetValue() instanceof VNMBuiltin) {
+                String name = VNMResolver.nameOf(call.jjtGetChild(0));
+                if (!VNMPipeline.isStage(name)) {
+                    if (!VNMBuiltins.isPure(name)) {
+                        b.seen.clear();
+                    }
+                    return;
+                }
+            }
+            if (fn != null || !VNMEffects.isPureCall(call, functions)) {
+                b.killGlobals();
+            }
+        }
+
+        // Operators and calls; a variable or a literal is already as cheap
+        // as a slot.
+        private boolean worthKeeping(Node n) {
+            return n instanceof ASTsum || n instanceof ASTneg || n instanceof ASTmul
+                || n instanceof ASTdiv || n instanceof ASTmod || n instanceof ASTcomparison
+                || n instanceof ASTnot || n instanceof ASTand || n instanceof ASTor
+                || n instanceof ASTindex || n instanceof ASTfn_call || n instanceof ASTboolean_call;
+        }
+
+        // The same key means the same value as long as the variables read
+        // don't change; null if the expression may give something else
+        // each time.
+        private String key(Node n) {
+            if (keys.containsKey(n)) {
+                return keys.get(n);
+            }
+            String key = makeKey((SimpleNode) n);
+            keys.put(n, key);
+            return key;
+        }
+
+        private String makeKey(SimpleNode n) {
+            if (n instanceof ASTSpawn || n instanceof ASTAwait || n instanceof ASTYield
+                    || n instanceof ASTfn_decl) {
+                return null;
+            }
+            Object value = n.jjtGetValue();
+            if (isVariable(n)) {
+                return (value instanceof VNMVarRef) ? variable((VNMVarRef) value) : null;
+            }
+            StringBuilder key = new StringBuilder(VNMTreeConstants.jjtNodeName[n.getId()]);
+            int first = 0;
+            if (n instanceof ASTfn_call || n instanceof ASTboolean_call) {
+                if (!sameEachTime(n)) {
+                    return null;
+                }
+                key.append(' ').append(VNMResolver.nameOf(n.jjtGetChild(0)));
+                first = 1;
+            } else if (value != null) {
+                // 5 and 5L print the same.
+                key.append(' ').append(value.getClass().getSimpleName()).append(' ').append(value);
+            }
+            key.append('(');
+            for (int i = first; i < n.jjtGetNumChildren(); i++) {
+                String child = key(n.jjtGetChild(i));
+                if (child == null) {
+                    return null;
+                }
+                key.append(child).append(',');
+            }
+            return key.append(')').toString();
+        }
+
+        private boolean sameEachTime(SimpleNode call) {
+            Object target = VNMResolver.target(call);
+            if (target instanceof VNMBuiltin) {
+                String name = VNMResolver.nameOf(call.jjtGetChild(0));
+                return VNMBuiltins.isPure(name) && VNMBuiltins.isDeterministic(name)
+                       && !VNMPipeline.isStage(name);
+            }
+            if (fn != null || !(target instanceof Integer)) {
+                return false;
+            }
+            VNMFunction callee = functions.get(((Integer) target).intValue());
+            return callee != null && !callee.generator
+                   && VNMEffects.dependsOnlyOnArgs(callee, functions);
+        }
+
+        // A slot reads what its expression reads.
+        private void reads(Node n, Common c) {
+            VNMVarRef ref = isVariable(n) ? ref(n) : null;
+            if (ref != null && !(ref instanceof VNMTemp)) {
+                c.reads.add(variable(ref));
+                c.global |= !ref.local;
+            }
+            int first = 0;
+            if (n instanceof ASTfn_call || n instanceof ASTboolean_call) {
+                c.global |= !(((SimpleNode) n).jjtGetValue() instanceof VNMBuiltin);
+                first = 1;
+            }
+            for (int i = first; i < n.jjtGetNumChildren(); i++) {
+                reads(n.jjtGetChild(i), c);
+            }
+        }
+
+        /* ---------- slots ---------- */
+
+        void finish() {
+            for (Common c : found) {
+                if (c.uses.isEmpty()) {
+                    continue;
+                }
+                String name = "#~c" + made.incrementAndGet();
+                boolean local = fn != null;
+                int index = local ? fn.frameSize++ : evaluator.globalSlot(name);
+                if (!wrap(c.first, new VNMFirst(name, local, index))) {
+                    continue;
+                }
+                for (SimpleNode use : c.uses) {
+                    wrap(use, new VNMShared(name, local, index));
+                }
+            }
+        }
+    }
+
+    /* =======================
+       NODES
+       ======================= */
+
+    // Puts a slot node in the expression's place, with the expression as
+    // its child. False if it isn't where its parent says.
+    private static boolean wrap(SimpleNode expression, VNMVarRef slot) {
+        Node parent = expression.jjtGetParent();
+        for (int i = 0; i < parent.jjtGetNumChildren(); i++) {
+            if (parent.jjtGetChild(i) == expression) {
+                SimpleNode node = new ASTidnum(VNMTreeConstants.JJTIDNUM);
+                node.jjtSetValue(slot);
+                node.jjtAddChild(expression, 0);
+                expression.jjtSetParent(node);
+                VNMFolder.replace(parent, i, node);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Locals and globals with the same name are different variables.
+    private static String variable(VNMVarRef ref) {
+        return (ref.local ? "local " : "global ") + ref.name;
+    }
+
+    private static boolean isVariable(Node n) {
+        return n instanceof ASTidnum || n instanceof ASTidbool || n instanceof ASTidvec;
+    }
+
+    private static VNMVarRef ref(Node n) {
+        Object ref = ((SimpleNode) n).jjtGetValue();
+        return (ref instanceof VNMVarRef) ? (VNMVarRef) ref : null;
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Run-time settings for the interpreter.
+ *
+ * Everything is read once, from -Dvnm.* system properties, e.g.
+ *
+ *   java -Dvnm.offheap.bytes=1048576 -classpath .:./AST TestVNM script.in
+ *
+ * so a script runs the same way no matter which defaults are compiled in.
+ */
+public final class VNMConfig {
+
+    private VNMConfig() {
+    }
+
+    // Vectors whose elements need at least this many bytes are stored
+    // outside the Java heap (see VNMOffHeap). Default 64 MB.
+    public static final long OFFHEAP_BYTES = longProperty("vnm.offheap.bytes", 64L << 20);
+
+    // Element-wise vector operations use the JDK Vector API when the
+    // jdk.incubator.vector module is loaded, unless this is false.
+    public static final boolean SIMD = booleanProperty("vnm.simd", true);
+
+    // Threads for whole-vector operations (see VNMParallel). 1 turns
+    // splitting off.
+    public static final int PARALLELISM =
+        (int) Math.max(1, longProperty("vnm.parallelism", Runtime.getRuntime().availableProcessors()));
+
+    // Vectors up to this many elements are never split between threads.
+    public static final int PARALLEL_THRESHOLD =
+        (int) Math.max(1, longProperty("vnm.parallel.threshold", 1 << 17));
+
+    // Pure recursive FUNCTIONs remember their results (see VNMMemo) unless
+    // this is false. #memo still turns it on for a single function.
+    public static final boolean MEMO = booleanProperty("vnm.memo", true);
+
+    // Results remembered per function, unless #memo gives another size.
+    public static final int MEMO_SIZE =
+        (int) Math.max(1, longProperty("vnm.memo.size", 4096));
+
+    // TestVNM runs independent top-level statements at the same time (see
+    // VNMStatements) if this is true.
+    public static final boolean PARALLEL_STATEMENTS = booleanProperty("vnm.statements.parallel", false);
+
+    // TestVNM parses, evaluates and writes output on three threads (see
+    // VNMParseAhead and VNMOutputPipe) if this is true. The parser gets at
+    // most vnm.pipeline.statements statements ahead, and at most
+    // vnm.pipeline.output bytes of output wait to be written.
+    public static final boolean PIPELINE = booleanProperty("vnm.pipeline", false);
+
+    public static final int PIPELINE_STATEMENTS =
+        (int) Math.max(1, longProperty("vnm.pipeline.statements", 64));
+
+    public static final long PIPELINE_OUTPUT =
+        Math.max(1, longProperty("vnm.pipeline.output", 1 << 20));
+
+    // Trees are simplified before they run (see VNMFolder) unless this is
+    // false.
+    public static final boolean OPTIMIZE = booleanProperty("vnm.optimize", true);
+
+    // Loops get invariant expressions and #i * K worked out once (see
+    // VNMLoops), unless this or vnm.optimize is false.
+    public static final boolean OPTIMIZE_LOOPS = OPTIMIZE && booleanProperty("vnm.optimize.loops", true);
+
+    // An expression a block works out more than once is worked out once
+    // (see VNMCommon), unless this or vnm.optimize is false.
+    public static final boolean OPTIMIZE_CSE = OPTIMIZE && booleanProperty("vnm.optimize.cse", true);
+
+    // IF/ELIF chains testing one expression against at least
+    // vnm.switch.min int constants jump straight to the arm (see
+    // VNMSwitches), unless this or vnm.optimize is false.
+    public static final boolean OPTIMIZE_SWITCH = OPTIMIZE && booleanProperty("vnm.optimize.switch", true);
+
+    public static final int SWITCH_MIN = (int) Math.max(1, longProperty("vnm.switch.min", 4));
+
+    // Calls to small FUNCTIONs get a copy of the body in their place (see
+    // VNMInliner), unless this or vnm.optimize is false. A body can have
+    // at most vnm.inline.size nodes, and a top-level statement or FUNCTION
+    // body takes in at most vnm.inline.budget nodes in all.
+    public static final boolean INLINE = OPTIMIZE && booleanProperty("vnm.optimize.inline", true);
+
+    public static final int INLINE_SIZE =
+        (int) Math.max(1, longProperty("vnm.inline.size", 40));
+
+    public static final int INLINE_BUDGET =
+        (int) Math.max(0, longProperty("vnm.inline.budget", 200));
+
+    // The file calls are counted into, and read from by the next run: then
+    // only FUNCTIONs called at least vnm.inline.hot times are inlined.
+    public static final String INLINE_PROFILE = stringProperty("vnm.inline.profile");
+
+    public static final long INLINE_HOT = Math.max(0, longProperty("vnm.inline.hot", 1000));
+
+    // Prints what VNMInliner does to stderr.
+    public static final boolean INLINE_DEBUG = booleanProperty("vnm.inline.debug", false);
+
+    // How TestVNM buffers output (see VNMOutput): written at the end of
+    // the script ("exit"), whenever vnm.output.buffer bytes are waiting
+    // ("size"), or also every vnm.output.flush.ms milliseconds ("timer").
+    public static final String OUTPUT_FLUSH = choiceProperty("vnm.output.flush", "size", "exit", "size", "timer");
+
+    public static final int OUTPUT_BUFFER =
+        (int) Math.max(64, Math.min(longProperty("vnm.output.buffer", 1 << 16), 1 << 30));
+
+    public static final long OUTPUT_FLUSH_MS =
+        Math.max(1, longProperty("vnm.output.flush.ms", 100));
+
+    static boolean booleanProperty(String name, boolean fallback) {
+        String value = System.getProperty(name);
+        if (value == null || value.trim().isEmpty()) {
+            return fallback;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+
+    static long longProperty(String name, long fallback) {
+        String value = System.getProperty(name);
+        if (value == null || value.trim().isEmpty()) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring " + name + "=" + value + ": not a number");
+            return fallback;
+        }
+    }
+
+    static String stringProperty(String name) {
+        String value = System.getProperty(name);
+        return (value == null || value.trim().isEmpty()) ? null : value.trim();
+    }
+
+    static String choiceProperty(String name, String fallback, String... choices) {
+        String value = System.getProperty(name);
+        if (value == null || value.trim().isEmpty()) {
+            return fallback;
+        }
+        for (String choice : choices) {
+            if (choice.equalsIgnoreCase(value.trim())) {
+                return choice;
+            }
+        }
+        System.err.println("Ignoring " + name + "=" + value + ": not one of " + String.join(", ", choices));
+        return fallback;
+    }
+}
@@ -87,25 +87,33 @@ public interface VNMConstants {
   /** RegularExpression Id. */
   int VAR = 43;
   /** RegularExpression Id. */
-  int DIGIT = 44;
+  int YIELD = 44;
   /** RegularExpression Id. */
-  int LOWER = 45;
+  int PARFOR = 45;
   /** RegularExpression Id. */
-  int UPPER = 46;
+  int SPAWN = 46;
   /** RegularExpression Id. */
-  int LETTER = 47;
+  int AWAIT = 47;
   /** RegularExpression Id. */
-  int STRING = 48;
+  int DIGIT = 48;
   /** RegularExpression Id. */
-  int NUMBER = 49;
+  int LOWER = 49;
   /** RegularExpression Id. */
-  int IDNUM = 50;
+  int UPPER = 50;
   /** RegularExpression Id. */
-  int IDBOOL = 51;
+  int LETTER = 51;
   /** RegularExpression Id. */
-  int IDVEC = 52;
+  int STRING = 52;
   /** RegularExpression Id. */
-  int COMMENT_SINGLE = 53;
+  int NUMBER = 53;
+  /** RegularExpression Id. */
+  int IDNUM = 54;
+  /** RegularExpression Id. */
+  int IDBOOL = 55;
+  /** RegularExpression Id. */
+  int IDVEC = 56;
+  /** RegularExpression Id. */
+  int COMMENT_SINGLE = 57;
 
   /** Lexical state. */
   int DEFAULT = 0;
@@ -156,6 +164,10 @@ public interface VNMConstants {
     "\"PRINT\"",
     "\"PRINTLN\"",
     "\"VAR\"",
+    "\"YIELD\"",
+    "\"PARFOR\"",
+    "\"SPAWN\"",
+    "\"AWAIT\"",
     "<DIGIT>",
     "<LOWER>",
     "<UPPER>",
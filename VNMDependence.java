@@ -0,0 +1,249 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Dependence analysis for PARFOR bodies.
+ *
+ * The iterations of a PARFOR can run at the same time if none of them can
+ * see what another one did. Looking only at the tree, I accept a body when:
+ *
+ *   - every number or boolean variable it assigns (including the variables
+ *     of nested loops) is assigned before it is read, on every path through
+ *     the body, so each iteration can have its own copy,
+ *   - the only vector writes are v_a[#i] := ..., with #i the PARFOR
+ *     variable itself, and v_a isn't used anywhere else in the body except
+ *     as v_a[#i], so each iteration only touches its own element,
+ *   - it doesn't assign the PARFOR variable, or a vector as a whole,
+ *   - it has no RETURN, YIELD, VAR, FUNCTION, SPAWN or AWAIT, and every
+ *     call in it is pure (VNMEffects). PRINT is fine: the evaluator keeps
+ *     each iteration's output and prints it in order.
+ *
+ * The values after the first one in the exp_list are normally worked out
+ * while the loop runs, so they can't read what the body assigns either.
+ *
+ * The variables the body assigns end up with what the last iteration that
+ * assigned them left there, the same as after a FOR.
+ */
+public final class VNMDependence {
+
+    // What check() found out about one PARFOR.
+    public static final class Plan {
+        // Why the iterations can't run in parallel, or null if they can.
+        public String problem;
+
+        // Number and boolean variables each iteration gets its own copy of,
+        // the PARFOR variable included.
+        public final ArrayList<VNMVarRef> privates = new ArrayList<VNMVarRef>();
+
+        // One node for each vector the body writes elements of.
+        public final ArrayList<SimpleNode> targets = new ArrayList<SimpleNode>();
+    }
+
+    private final VNMFunctionTable functions;
+    private final String loopVar;
+
+    // Assigned number / boolean variables, and vectors written at [#i], by name.
+    private final HashMap<String, VNMVarRef> written = new HashMap<String, VNMVarRef>();
+    private final HashMap<String, SimpleNode> elements = new HashMap<String, SimpleNode>();
+
+    private String problem;
+
+    private VNMDependence(VNMFunctionTable functions, String loopVar) {
+        this.functions = functions;
+        this.loopVar = loopVar;
+    }
+
+    public static Plan check(ASTParfor loop, VNMFunctionTable functions) {
+        SimpleNode var = (SimpleNode) loop.jjtGetChild(0);
+        Node items = loop.jjtGetChild(1);
+        Node body = loop.jjtGetChild(2);
+        VNMDependence d = new VNMDependence(functions, nameOf(var));
+
+        d.collect(body);
+        if (d.problem == null) {
+            d.checkElements(body);
+        }
+        for (int i = 0; i < items.jjtGetNumChildren() && d.problem == null; i++) {
+            d.checkCalls(items.jjtGetChild(i));
+            if (i > 0) {
+                d.checkItem(items.jjtGetChild(i));
+            }
+        }
+        if (d.problem == null) {
+            HashSet<String> defined = new HashSet<String>();
+            defined.add(d.loopVar);
+            d.flow(body, defined);
+        }
+
+        Plan plan = new Plan();
+        plan.problem = d.problem;
+        plan.privates.add((VNMVarRef) var.jjtGetValue());
+        plan.privates.addAll(d.written.values());
+        plan.targets.addAll(d.elements.values());
+        return plan;
+    }
+
+    private void fail(String why) {
+        if (problem == null) {
+            problem = why;
+        }
+    }
+
+    private static String nameOf(Node n) {
+        return ((VNMVarRef) ((SimpleNode) n).jjtGetValue()).name;
+    }
+
+    private static boolean isVariable(Node n) {
+        return (n instanceof ASTidnum || n instanceof ASTidbool || n instanceof ASTidvec)
+            && ((SimpleNode) n).jjtGetValue() instanceof VNMVarRef;
+    }
+
+    /* =======================
+       WHAT THE BODY WRITES
+       ======================= */
+
+    private void collect(Node n) {
+        if (n instanceof ASTReturn || n instanceof ASTYield) {
+            fail("it can leave the loop with RETURN or YIELD");
+        } else if (n instanceof ASTvar_decl || n instanceof ASTfn_decl) {
+            fail("it declares variables or functions");
+        } else if (n instanceof ASTSpawn || n instanceof ASTAwait) {
+            fail("it starts or waits for tasks");
+        } else if (n instanceof ASTAssign) {
+            Node target = n.jjtGetChild(0);
+            if (target instanceof ASTindex) {
+                Node vec = target.jjtGetChild(0);
+                if (!isLoopVar(target.jjtGetChild(1))) {
+                    fail("it writes " + nameOf(vec) + " at an index other than " + loopVar);
+                }
+                elements.put(nameOf(vec), (SimpleNode) vec);
+            } else {
+                assigned(target);
+            }
+        } else if (n instanceof ASTFor || n instanceof ASTParfor) {
+            assigned(n.jjtGetChild(0));
+        } else if (n instanceof ASTfn_call || n instanceof ASTboolean_call) {
+            checkCall((SimpleNode) n);
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            collect(n.jjtGetChild(i));
+        }
+    }
+
+    private void assigned(Node target) {
+        String name = nameOf(target);
+        if (target instanceof ASTidvec) {
+            fail("it assigns " + name + " as a whole");
+        } else if (name.equals(loopVar)) {
+            fail("it assigns the loop variable " + name);
+        } else {
+            written.put(name, (VNMVarRef) ((SimpleNode) target).jjtGetValue());
+        }
+    }
+
+    private boolean isLoopVar(Node n) {
+        return n instanceof ASTidnum && isVariable(n) && nameOf(n).equals(loopVar);
+    }
+
+    private void checkCall(SimpleNode call) {
+        if (!VNMEffects.isPureCall(call, functions)) {
+            fail("it calls " + VNMResolver.nameOf(call.jjtGetChild(0)) + ", which is not pure");
+        }
+    }
+
+    private void checkCalls(Node n) {
+        if (n instanceof ASTfn_call || n instanceof ASTboolean_call) {
+            checkCall((SimpleNode) n);
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            checkCalls(n.jjtGetChild(i));
+        }
+    }
+
+    // A vector written at [#i] may only appear as v_a[#i].
+    private void checkElements(Node n) {
+        if (n instanceof ASTindex && isVariable(n.jjtGetChild(0)) && isLoopVar(n.jjtGetChild(1))) {
+            return;
+        }
+        if (isVariable(n) && elements.containsKey(nameOf(n))) {
+            fail("it uses " + nameOf(n) + " other than as " + nameOf(n) + "[" + loopVar + "]");
+            return;
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            checkElements(n.jjtGetChild(i));
+        }
+    }
+
+    // A later item of the exp_list, worked out after earlier iterations.
+    private void checkItem(Node n) {
+        if (isVariable(n) && (written.containsKey(nameOf(n)) || elements.containsKey(nameOf(n)))) {
+            fail("its values read " + nameOf(n) + ", which the body changes");
+            return;
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            checkItem(n.jjtGetChild(i));
+        }
+    }
+
+    /* =======================
+       ASSIGNED BEFORE READ
+       ======================= */
+
+    // Walks the statements in the order they run. defined holds the
+    // variables already assigned on every path to this point.
+    private void flow(Node n, HashSet<String> defined) {
+        if (problem != null) {
+            return;
+        }
+        if (n instanceof ASTbody || n instanceof ASTclause) {
+            for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                flow(n.jjtGetChild(i), defined);
+            }
+        } else if (n instanceof ASTAssign) {
+            Node target = n.jjtGetChild(0);
+            if (target instanceof ASTindex) {
+                reads(target.jjtGetChild(1), defined);
+            }
+            reads(n.jjtGetChild(1), defined);
+            if (!(target instanceof ASTindex)) {
+                defined.add(nameOf(target));
+            }
+        } else if (n instanceof ASTIf) {
+            reads(n.jjtGetChild(0), defined);
+            HashSet<String> then = new HashSet<String>(defined);
+            flow(n.jjtGetChild(1), then);
+            HashSet<String> otherwise = new HashSet<String>(defined);
+            if (n.jjtGetNumChildren() > 2) {
+                flow(n.jjtGetChild(2), otherwise);
+            }
+            then.retainAll(otherwise);
+            defined.addAll(then);
+        } else if (n instanceof ASTWhile) {
+            // The body may not run at all, so nothing it assigns counts
+            // afterwards.
+            reads(n.jjtGetChild(0), defined);
+            flow(n.jjtGetChild(1), new HashSet<String>(defined));
+        } else if (n instanceof ASTFor || n instanceof ASTParfor) {
+            reads(n.jjtGetChild(1), defined);
+            HashSet<String> inner = new HashSet<String>(defined);
+            inner.add(nameOf(n.jjtGetChild(0)));
+            flow(n.jjtGetChild(2), inner);
+        } else {
+            reads(n, defined);
+        }
+    }
+
+    private void reads(Node n, HashSet<String> defined) {
+        if (isVariable(n)) {
+            String name = nameOf(n);
+            if (written.containsKey(name) && !defined.contains(name)) {
+                fail("it can read " + name + " before assigning it");
+            }
+            return;
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            reads(n.jjtGetChild(i), defined);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.HashSet;
+
+/**
+ * Effect analysis over FUNCTION bodies.
+ *
+ * A function is pure if the only thing a call leaves behind is its result.
+ * That means its body:
+ *
+ *   - doesn't PRINT or PRINTLN,
+ *   - doesn't assign to a global variable, or to an element of one, and
+ *     doesn't use a global as a FOR variable,
+ *   - doesn't declare FUNCTIONs,
+ *   - only calls pure functions, and builtins without side effects.
+ *
+ * Calls to pure functions don't interfere with each other, so they can run
+ * on several threads at once (see VNMPipeline). Recursion is fine: a
+ * function counts as pure as long as nothing else in the cycle breaks a rule.
+ *
+ * A function is a pure function of its arguments if on top of that it
+ * doesn't read global variables either, and only calls builtins whose result
+ * depends on nothing but their arguments. Its result can then be
+ * remembered and handed back for the same arguments (see VNMMemo).
+ *
+ * A function is isolated if it follows the rules for pure functions except
+ * that it may PRINT, SPAWN and AWAIT. SPAWN runs isolated functions as
+ * tasks, which print into a buffer of their own.
+ *
+ * The answers depend on the callees' current definitions, so they are worked
+ * out when they are needed rather than at the declaration.
+ */
+public final class VNMEffects {
+
+    // How strict a check is, from least to most.
+    private static final int ISOLATED = 0, PURE = 1, ARGS_ONLY = 2;
+
+    private VNMEffects() {
+    }
+
+    public static boolean isIsolated(VNMFunction fn, VNMFunctionTable functions) {
+        return pure(fn, functions, ISOLATED, new HashSet<VNMFunction>());
+    }
+
+    public static boolean isPure(VNMFunction fn, VNMFunctionTable functions) {
+        return pure(fn, functions, PURE, new HashSet<VNMFunction>());
+    }
+
+    public static boolean dependsOnlyOnArgs(VNMFunction fn, VNMFunctionTable functions) {
+        return pure(fn, functions, ARGS_ONLY, new HashSet<VNMFunction>());
+    }
+
+    // True if this call, to a builtin or a FUNCTION, leaves nothing behind
+    // but its result. The arguments are not looked at.
+    public static boolean isPureCall(SimpleNode call, VNMFunctionTable functions) {
+        return pureCall(call, functions, PURE, new HashSet<VNMFunction>());
+    }
+
+    // True if a call to fn can end up calling fn again.
+    public static boolean isRecursive(VNMFunction fn, VNMFunctionTable functions) {
+        return reaches(fn.body, fn, functions, new HashSet<VNMFunction>());
+    }
+
+    private static boolean pure(VNMFunction fn, VNMFunctionTable functions, int level,
+                                HashSet<VNMFunction> visiting) {
+        if (!visiting.add(fn)) {
+            return true;
+        }
+        return pureNode(fn.body, functions, level, visiting);
+    }
+
+    private static boolean pureNode(Node n, VNMFunctionTable functions, int level,
+                                    HashSet<VNMFunction> visiting) {
+        if (n instanceof ASTfn_decl) {
+            return false;
+        }
+        if (level > ISOLATED && (n instanceof ASTPrint || n instanceof ASTPrint_ln
+                                 || n instanceof ASTSpawn || n instanceof ASTAwait)) {
+            return false;
+        }
+        if (level == ARGS_ONLY && isGlobal(n)) {
+            return false;
+        }
+        if (n instanceof ASTAssign || n instanceof ASTFor || n instanceof ASTParfor) {
+            Node target = n.jjtGetChild(0);
+            if (target instanceof ASTindex) {
+                target = target.jjtGetChild(0);
+            }
+            if (!isLocal(target)) {
+                return false;
+            }
+        }
+        if (n instanceof ASTfn_call || n instanceof ASTboolean_call) {
+            if (!pureCall((SimpleNode) n, functions, level, visiting)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            if (!pureNode(n.jjtGetChild(i), functions, level, visiting)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLocal(Node var) {
+        Object ref = ((SimpleNode) var).jjtGetValue();
+        return ref instanceof VNMVarRef && ((VNMVarRef) ref).local;
+    }
+
+    // A call's name node has no VarRef, it isn't a variable.
+    private static boolean isGlobal(Node n) {
+        Object ref = ((SimpleNode) n).jjtGetValue();
+        return ref instanceof VNMVarRef && !((VNMVarRef) ref).local;
+    }
+
+    private static boolean pureCall(SimpleNode call, VNMFunctionTable functions, int level,
+                                    HashSet<VNMFunction> visiting) {
+        Object target = call.jjtGetValue();
+        String name = VNMResolver.nameOf(call.jjtGetChild(0));
+        if (target instanceof VNMBuiltin) {
+            if (!VNMBuiltins.isPure(name) || (level == ARGS_ONLY && !VNMBuiltins.isDeterministic(name))) {
+                return false;
+            }
+            // v_map and friends run the function named by their second
+            // argument. A name that isn't a literal could be anything.
+            if (VNMPipeline.isStage(name)) {
+                VNMFunction fn = stageFunction(call, functions);
+                if (fn == null || !pure(fn, functions, level, visiting)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        VNMFunction callee = callee(call, functions);
+        return callee != null && pure(callee, functions, level, visiting);
+    }
+
+    private static boolean reaches(Node n, VNMFunction target, VNMFunctionTable functions,
+                                   HashSet<VNMFunction> seen) {
+        if (n instanceof ASTfn_call || n instanceof ASTboolean_call) {
+            SimpleNode call = (SimpleNode) n;
+            VNMFunction callee = (call.jjtGetValue() instanceof VNMBuiltin)
+                                 ? stageFunction(call, functions) : callee(call, functions);
+            if (callee == target) {
+                return true;
+            }
+            if (callee != null && seen.add(callee) && reaches(callee.body, target, functions, seen)) {
+                return true;
+            }
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            if (reaches(n.jjtGetChild(i), target, functions, seen)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The FUNCTION a call to a user function goes to, or null.
+    private static VNMFunction callee(SimpleNode call, VNMFunctionTable functions) {
+        Object target = VNMResolver.target(call);
+        return (target instanceof Integer) ? functions.get(((Integer) target).intValue()) : null;
+    }
+
+    // The FUNCTION a pipeline builtin is given by a string literal, or null.
+    static VNMFunction stageFunction(SimpleNode call, VNMFunctionTable functions) {
+        if (!VNMPipeline.isStage(VNMResolver.nameOf(call.jjtGetChild(0)))) {
+            return null;
+        }
+        Node fname = (call.jjtGetNumChildren() > 1 && call.jjtGetChild(1).jjtGetNumChildren() > 1)
+                     ? call.jjtGetChild(1).jjtGetChild(1) : null;
+        if (!(fname instanceof ASTstring)) {
+            return null;
+        }
+        String raw = VNMResolver.nameOf(fname);
+        return functions.lookup(raw.substring(1, raw.length() - 1));
+    }
+}
@@ -1,13 +1,215 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class VNMEval implements VNMVisitor {
 
+    /* =======================
+       Runtime state
+       ======================= */
+
+    // Global variables live in a flat array. The resolver hands out one slot
+    // per global name, and identifier nodes remember their slot.
+    private final HashMap<String, Integer> globalIndex;
+    private Object[] globals;
+
+    // Declared functions, looked up by index at call sites.
+    private final VNMFunctionTable functions;
+    private final VNMResolver resolver;
+
+    // One frame per call depth, reused from call to call. frames[0] is never
+    // used, depth 0 means "top level, no function running".
+    private VNMFrame[] frames = new VNMFrame[64];
+    private VNMFrame frame = null;
+    private int depth = 0;
+
+    // Argument values are evaluated onto this stack first and copied into the
+    // callee's frame afterwards. Nested calls in the argument list would
+    // otherwise clobber the frame we are filling in.
+    private Object[] argStack = new Object[64];
+    private int argTop = 0;
+
+    // RETURN doesn't throw. It sets these and every statement list, loop and
+    // call checks the flag and stops.
+    private boolean returning = false;
+    private Object returnValue = null;
+
+    // Set together with "returning" when a RETURN is a self tail call.
+    // The tailArgc new arguments are waiting on top of argStack.
+    private boolean tailCall = false;
+    private int tailArgc = 0;
+
+    // Where PRINT goes: null for System.out, or the buffer of a PARFOR
+    // worker, printed once the earlier iterations have printed theirs.
+    private StringBuilder out = null;
+
+    // The buffer System.out writes into, when TestVNM set one up.
+    private VNMOutput sink = null;
+
+    // What stopped a PARFOR worker's iterations, if anything.
+    private Exception failure = null;
+
+    // PARFORs that already said why they run one iteration at a time, so a
+    // loop inside a FUNCTION doesn't say it again on every call.
+    private final Set<Node> reported;
+
+    // Tasks started with SPAWN that nobody has AWAITed yet, by handle.
+    // Handles go up from 1 in the order the tasks were started.
+    private final ConcurrentSkipListMap<Integer, VNMTask> tasks;
+    private final AtomicInteger lastTask;
+
+    public VNMEval() {
+        globalIndex = new HashMap<String, Integer>();
+        globals = new Object[16];
+        functions = new VNMFunctionTable();
+        resolver = new VNMResolver(this, functions);
+        reported = Collections.newSetFromMap(new ConcurrentHashMap<Node, Boolean>());
+        tasks = new ConcurrentSkipListMap<Integer, VNMTask>();
+        lastTask = new AtomicInteger();
+    }
+
+    // An evaluator for another thread, see fork().
+    private VNMEval(VNMEval parent) {
+        this(parent, parent.functions);
+    }
+
+    private VNMEval(VNMEval parent, VNMFunctionTable functions) {
+        globalIndex = parent.globalIndex;
+        globals = parent.globals;
+        this.functions = functions;
+        resolver = parent.resolver;
+        reported = parent.reported;
+        tasks = parent.tasks;
+        lastTask = parent.lastTask;
+    }
+
+    // A second evaluator with its own call stack, sharing this one's globals
+    // and functions, for running pure functions on another thread while
+    // this one waits (see VNMPipeline). Pure functions never write globals
+    // or declare anything, so nothing is written to what they share.
+    VNMEval fork() {
+        return new VNMEval(this);
+    }
+
+    // A worker for some of a PARFOR's iterations. It has its own copy of the
+    // globals and of the current frame, so the variables the iterations
+    // assign don't clash; vectors are still the same objects, so elements
+    // written at [#i] land in the loop's vectors. The variables the loop
+    // assigns start out UNSET, which tells who assigned them last.
+    private VNMEval(VNMEval parent, VNMDependence.Plan plan) {
+        this(parent);
+        globals = parent.globals.clone();
+        if (parent.frame != null) {
+            VNMFrame copy = new VNMFrame();
+            copy.enter(parent.frame.function);
+            System.arraycopy(parent.frame.slots, 0, copy.slots, 0, parent.frame.function.frameSize);
+            depth = 1;
+            frames[1] = copy;
+            frame = copy;
+        }
+        for (VNMVarRef ref : plan.privates) {
+            slots(ref)[ref.index] = UNSET;
+        }
+        out = new StringBuilder();
+    }
+
+    private static final Object UNSET = new Object();
+
+    /* =======================
+       Entry point
+       ======================= */
+
+    // Resolves and evaluates one top-level statement. If anything goes wrong
+    // I put the call stack back to the top level before passing the error on,
+    // so the next statement starts from a clean state.
+    public Object evaluate(SimpleNode tree) throws Exception {
+        return evaluate(tree, true);
+    }
+
+    private Object evaluate(SimpleNode tree, boolean resolve) throws Exception {
+        try {
+            if (resolve) {
+                resolver.resolveTopLevel(tree);
+            }
+            Object value = tree.jjtAccept(this, null);
+            return value;
+        } catch (Exception e) {
+            stopped(resolve);
+            throw e;
+        } catch (StackOverflowError e) {
+            // The Java stack is gone by now, so the frames can be emptied
+            // and the script goes on like after any other error.
+            stopped(resolve);
+            throw tooDeep();
+        } finally {
+            returning = false;
+            returnValue = null;
+            tailCall = false;
+            argTop = 0;
+        }
+    }
+
+    private void stopped(boolean resolve) {
+        while (depth > 0) {
+            exitFrame();
+        }
+        if (resolve) {
+            // It stopped partway, so what was folded in about the
+            // globals it assigns may not have happened.
+            resolver.forgetConstants();
+        }
+    }
+
+    static Exception tooDeep() {
+        return new Exception("Calls nested too deeply (out of stack)");
+    }
+
+    // What VNMStatements needs to run top-level statements side by side:
+    // they are all resolved here first, then each one runs on an evaluator
+    // of its own that shares the globals and prints into a buffer.
+    void resolve(SimpleNode tree) throws Exception {
+        resolver.resolveTopLevel(tree);
+        // These don't run in the order they are resolved in.
+        resolver.forgetConstants();
+    }
+
+    Object evaluateResolved(SimpleNode tree) throws Exception {
+        return evaluate(tree, false);
+    }
+
+    VNMEval forStatement() {
+        VNMEval statement = new VNMEval(this);
+        statement.out = new StringBuilder();
+        return statement;
+    }
+
+    VNMFunctionTable functions() {
+        return functions;
+    }
+
+    // Writes the calls counted in this run to vnm.inline.profile, if set.
+    public void saveProfile() {
+        VNMInliner.save(functions);
+    }
+
     /* =======================
        Small helper utilities
        ======================= */
 
     // In my evaluator I pass things around as raw Objects, so I made tiny
     // helper casts to avoid repeating (Integer)obj and (Boolean)obj everywhere.
-    private int asInt(Object o) {
-        return ((Integer) o).intValue();
+    // Numbers too big for an int are only allowed where no int is needed.
+    private int asInt(Object o) throws Exception {
+        if (o instanceof Integer) {
+            return ((Integer) o).intValue();
+        }
+        return VNMNumbers.toInt(o);
     }
 
     private boolean asBool(Object o) {
@@ -30,7 +232,8 @@ public class VNMEval implements VNMVisitor {
         int numKids = node.jjtGetNumChildren();
 
         // I visit children left-to-right and remember the value of the last one.
-        for (int i = 0; i < numKids; i++) {
+        // A RETURN somewhere inside stops the walk early.
+        for (int i = 0; i < numKids && !returning; i++) {
             lastResult = node.jjtGetChild(i).jjtAccept(this, null);
         }
 
@@ -39,6 +242,119 @@ public class VNMEval implements VNMVisitor {
         return lastResult;
     }
 
+    // The value a variable gets from VAR, based on its prefix:
+    // #x starts at 0, ?x starts false, and v_x starts out empty.
+    public static Object defaultValue(String name) {
+        if (name.startsWith("?")) {
+            return Boolean.FALSE;
+        }
+        if (name.startsWith("v_")) {
+            return new VNMIntVector();
+        }
+        return Integer.valueOf(0);
+    }
+
+    /* =======================
+       VARIABLES
+       ======================= */
+
+    // Called by the resolver: returns the global slot for a name,
+    // handing out a new one the first time the name is seen.
+    int globalSlot(String name) {
+        Integer slot = globalIndex.get(name);
+        if (slot == null) {
+            slot = Integer.valueOf(globalIndex.size());
+            globalIndex.put(name, slot);
+            if (slot.intValue() >= globals.length) {
+                Object[] bigger = new Object[globals.length * 2];
+                System.arraycopy(globals, 0, bigger, 0, globals.length);
+                globals = bigger;
+            }
+        }
+        return slot.intValue();
+    }
+
+    private Object load(SimpleNode n) throws Exception {
+        VNMVarRef ref = (VNMVarRef) n.jjtGetValue();
+        if (ref instanceof VNMFirst) {
+            return first(n, ref);
+        }
+        Object value = ref.local ? frame.slots[ref.index] : globals[ref.index];
+        if (value == null) {
+            if (ref instanceof VNMTemp) {
+                return fill(n, ref);
+            }
+            throw new Exception("Variable " + ref.name + " has no value");
+        }
+        return value;
+    }
+
+    // First read of a VNMLoops slot since its loop started: works out the
+    // expression it stands for, and keeps numbers and booleans.
+    private Object fill(SimpleNode n, VNMVarRef ref) throws Exception {
+        Object value = n.jjtGetChild(0).jjtAccept(this, null);
+        if (value instanceof Boolean || VNMNumbers.isNumber(value)) {
+            slots(ref)[ref.index] = value;
+        }
+        return value;
+    }
+
+    // Where VNMCommon's slot is filled: always works the expression out,
+    // and empties the slot if the value can't be kept, so the reads after
+    // it never see one from an earlier run.
+    private Object first(SimpleNode n, VNMVarRef ref) throws Exception {
+        Object value = n.jjtGetChild(0).jjtAccept(this, null);
+        slots(ref)[ref.index] = (value instanceof Boolean || VNMNumbers.isNumber(value)) ? value : null;
+        return value;
+    }
+
+    // A loop VNMLoops worked on starts with its slots empty.
+    private void enter(Object loop) {
+        if (loop instanceof VNMLoop) {
+            for (VNMVarRef temp : ((VNMLoop) loop).temps) {
+                slots(temp)[temp.index] = null;
+            }
+        }
+    }
+
+    // Lazy values are turned into real ones when they get stored in a variable.
+    private Object materialize(Object value) {
+        if (value instanceof VNMRange) {
+            return ((VNMRange) value).toVector();
+        }
+        return value;
+    }
+
+    // Puts a value in a variable. Vectors are claimed by the variable, so
+    // "v_a := v_b" ends up with two handles on one array instead of a copy,
+    // and the vector the variable held before gives up its claim.
+    private void store(SimpleNode n, Object value) {
+        VNMVarRef ref = (VNMVarRef) n.jjtGetValue();
+        Object[] slots = slots(ref);
+        Object old = slots[ref.index];
+        if (value instanceof VNMVector) {
+            value = ((VNMVector) materialize(value)).claim();
+        }
+        slots[ref.index] = value;
+        if (old instanceof VNMVector && old != value) {
+            ((VNMVector) old).release();
+        }
+    }
+
+    private Object[] slots(VNMVarRef ref) {
+        return ref.local ? frame.slots : globals;
+    }
+
+    // A vector read from a variable is that variable's own handle. Anything
+    // that keeps it past the current statement takes a share() instead, so
+    // later writes to the variable can't show through.
+    static Object detach(Object value) {
+        if (value instanceof VNMVector && ((VNMVector) value).isBound()) {
+            return ((VNMVector) value).share();
+        }
+        return value;
+    }
+
     /* =======================
        GENERIC / STRUCTURAL NODES
        ======================= */
@@ -56,13 +372,19 @@ public class VNMEval implements VNMVisitor {
         return defaultVisit(n, d); 
     }
 
-    // For variable declarations and function declarations, I’m not actually
-    // doing any runtime work yet, so I just return null.
+    // VAR gives each listed variable its starting value.
     public Object visit(ASTvar_decl n, Object d) throws Exception { 
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            SimpleNode id = (SimpleNode) n.jjtGetChild(i);
+            store(id, defaultValue(((VNMVarRef) id.jjtGetValue()).name));
+        }
         return null; 
     }
 
+    // FUNCTION works out its slots and tail calls once, right here, and
+    // installs itself in the function table. Calls only use the table index.
     public Object visit(ASTfn_decl n, Object d) throws Exception { 
+        functions.define(resolver.declare(n));
         return null; 
     }
 
@@ -71,11 +393,11 @@ public class VNMEval implements VNMVisitor {
     }
 
     public Object visit(ASTfn_call n, Object d) throws Exception { 
-        return null; 
+        return call(n);
     }
 
     public Object visit(ASTboolean_call n, Object d) throws Exception { 
-        return null; 
+        return call(n);
     }
 
     public Object visit(ASTexp_list n, Object d) throws Exception { 
@@ -86,20 +408,489 @@ public class VNMEval implements VNMVisitor {
         return defaultVisit(n, d); 
     }
 
+    /* =======================
+       FUNCTION CALLS
+       ======================= */
+
+    // Looks up the callee by the index the resolver stored on the call node.
+    private VNMFunction callee(SimpleNode call) throws Exception {
+        VNMFunction fn = functions.get(((Integer) VNMResolver.target(call)).intValue());
+        if (fn == null) {
+            throw new Exception("Function " + VNMResolver.nameOf(call.jjtGetChild(0)) + " is not declared");
+        }
+        return fn;
+    }
+
+    // Evaluates the call's arguments onto the argument stack and returns
+    // how many there were. Child 0 is the function name, child 1 (if any)
+    // is the exp_list.
+    private int pushArgs(SimpleNode call) throws Exception {
+        if (call.jjtGetNumChildren() < 2) {
+            return 0;
+        }
+        SimpleNode args = (SimpleNode) call.jjtGetChild(1);
+        int argc = args.jjtGetNumChildren();
+        for (int i = 0; i < argc; i++) {
+            pushArg(args.jjtGetChild(i).jjtAccept(this, null));
+        }
+        return argc;
+    }
+
+    private void pushArg(Object value) {
+        if (argTop == argStack.length) {
+            Object[] bigger = new Object[argStack.length * 2];
+            System.arraycopy(argStack, 0, bigger, 0, argStack.length);
+            argStack = bigger;
+        }
+        argStack[argTop++] = value;
+    }
+
+    private Object call(SimpleNode n) throws Exception {
+        Object target = n.jjtGetValue();
+        if (target instanceof VNMInline) {
+            return inlined(n, (VNMInline) target);
+        }
+        if (target instanceof VNMBuiltin) {
+            return callBuiltin((VNMBuiltin) target, n);
+        }
+        VNMFunction fn = callee(n);
+        int argc = pushArgs(n);
+        return invoke(fn, argc);
+    }
+
+    // Runs the copy of fn's body VNMInliner put on the call, in the
+    // caller's own slots, as long as fn is still the definition it was
+    // copied from and doesn't remember its results. The arguments are
+    // checked the way bindArgs checks them, and the slots are emptied
+    // afterwards the way a frame is.
+    private Object inlined(SimpleNode n, VNMInline copy) throws Exception {
+        VNMFunction fn = copy.fn;
+        if (functions.get(fn.index) != fn || functions.memo(fn.index).isOn(fn, functions)) {
+            fn = callee(n);
+            return invoke(fn, pushArgs(n));
+        }
+        if (VNMConfig.INLINE_PROFILE != null) {
+            functions.count(fn.index);
+        }
+        try {
+            VNMVarRef[] params = copy.params;
+            if (params.length > 0) {
+                Node args = n.jjtGetChild(1);
+                for (int i = 0; i < params.length; i++) {
+                    slots(params[i])[params[i].index] = args.jjtGetChild(i).jjtAccept(this, null);
+                }
+                for (int i = 0; i < params.length; i++) {
+                    Object[] slots = slots(params[i]);
+                    Object value = slots[params[i].index];
+                    if (value instanceof String) {
+                        throw new Exception("Function " + fn.name + " cannot take a string argument");
+                    }
+                    if (value instanceof VNMVector) {
+                        slots[params[i].index] = ((VNMVector) materialize(value)).claim();
+                    }
+                }
+            }
+            for (Node statement : copy.statements) {
+                statement.jjtAccept(this, null);
+            }
+            return (copy.result == null) ? fn.defaultResult() : detach(copy.result.jjtAccept(this, null));
+        } finally {
+            for (VNMVarRef ref : copy.slots) {
+                Object[] slots = slots(ref);
+                if (slots[ref.index] instanceof VNMVector) {
+                    ((VNMVector) slots[ref.index]).release();
+                }
+                slots[ref.index] = null;
+            }
+        }
+    }
+
+    // Builtins get their arguments as an array and run without a frame.
+    // A pipeline (v_map, v_filter, ...) is run to the end here unless the
+    // call sits where it can be consumed lazily.
+    private Object callBuiltin(VNMBuiltin builtin, SimpleNode n) throws Exception {
+        int argc = pushArgs(n);
+        Object[] args = new Object[argc];
+        int base = argTop - argc;
+        boolean lazy = VNMPipeline.isStage(builtin);
+        for (int i = 0; i < argc; i++) {
+            args[i] = lazy ? argStack[base + i] : materialize(argStack[base + i]);
+            argStack[base + i] = null;
+        }
+        argTop = base;
+        Object result = builtin.call(args);
+        if (result instanceof VNMMemo.Request) {
+            return ((VNMMemo.Request) result).run(functions);
+        }
+        if (result instanceof VNMPipeline && (((VNMPipeline) result).isReduction() || !consumesLazily(n))) {
+            result = ((VNMPipeline) result).run(this);
+        }
+        return result;
+    }
+
+    // True if a pipeline made by this call is consumed where it stands: as
+    // an item of a FOR, or as the source of another pipeline builtin.
+    private static boolean consumesLazily(SimpleNode call) {
+        Node list = call.jjtGetParent();
+        if (!(list instanceof ASTexp_list)) {
+            return false;
+        }
+        Node owner = list.jjtGetParent();
+        if (owner instanceof ASTFor) {
+            return true;
+        }
+        return list.jjtGetChild(0) == call
+            && owner instanceof ASTfn_call
+            && ((SimpleNode) owner).jjtGetValue() instanceof VNMBuiltin
+            && VNMPipeline.isStage((VNMBuiltin) ((SimpleNode) owner).jjtGetValue());
+    }
+
+    /* =======================
+       CALLS FROM JAVA
+       ======================= */
+
+    // The declared function a pipeline stage names, checked for the prefix
+    // and number of parameters the stage needs.
+    VNMFunction function(String name, String prefix, int params, String user) throws Exception {
+        VNMFunction fn = functions.lookup(name);
+        if (fn == null) {
+            throw new Exception("Function " + name + " is not declared");
+        }
+        if (!name.startsWith(prefix) || fn.params.length != params || fn.generator) {
+            throw new Exception(user + " needs a " + prefix + " FUNCTION of " + params
+                                + " argument(s), not " + name);
+        }
+        return fn;
+    }
+
+    boolean isPure(VNMFunction fn) {
+        return VNMEffects.isPure(fn, functions);
+    }
+
+    // Calls fn with values that are already evaluated.
+    Object apply(VNMFunction fn, Object a) throws Exception {
+        pushArg(a);
+        return invoke(fn, 1);
+    }
+
+    Object apply(VNMFunction fn, Object a, Object b) throws Exception {
+        pushArg(a);
+        pushArg(b);
+        return invoke(fn, 2);
+    }
+
+    // Takes the next pooled frame for fn. Frames are created the first time
+    // a depth is reached and kept afterwards.
+    private void enterFrame(VNMFunction fn) {
+        pushDepth();
+        VNMFrame next = frames[depth];
+        if (next == null) {
+            next = new VNMFrame();
+            frames[depth] = next;
+        }
+        next.enter(fn);
+        frame = next;
+    }
+
+    private void pushDepth() {
+        depth++;
+        if (depth == frames.length) {
+            VNMFrame[] bigger = new VNMFrame[frames.length * 2];
+            System.arraycopy(frames, 0, bigger, 0, frames.length);
+            frames = bigger;
+        }
+    }
+
+    private void exitFrame() {
+        frame.exit();
+        depth--;
+        frame = (depth == 0) ? null : frames[depth];
+    }
+
+    // Moves the top argc values off the argument stack into the parameter
+    // slots of target.
+    private void bindArgs(VNMFrame target, VNMFunction fn, int argc) throws Exception {
+        if (argc != fn.params.length) {
+            argTop -= argc;
+            throw new Exception("Function " + fn.name + " expects " + fn.params.length
+                                + " argument(s) but got " + argc);
+        }
+        int base = argTop - argc;
+        for (int i = 0; i < argc; i++) {
+            Object value = argStack[base + i];
+            if (value instanceof String) {
+                argTop = base;
+                throw new Exception("Function " + fn.name + " cannot take a string argument");
+            }
+            if (value instanceof VNMVector) {
+                value = ((VNMVector) materialize(value)).claim();
+            }
+            target.slots[fn.params[i].index] = value;
+            argStack[base + i] = null;
+        }
+        argTop = base;
+    }
+
+    // Runs fn with argc arguments sitting on the argument stack.
+    // A self tail call doesn't come back through here: RETURN leaves the new
+    // arguments on the stack and sets tailCall, and I just rebind the
+    // parameters and run the body again in the same frame.
+    // A generator is run to the end here and its elements returned as a
+    // vector; only FOR pulls them one at a time.
+    // Functions whose results are remembered (VNMMemo) look the arguments
+    // up first and skip the body when they have been seen before.
+    private Object invoke(VNMFunction fn, int argc) throws Exception {
+        if (fn.generator) {
+            return start(fn, argc).drain();
+        }
+        if (VNMConfig.INLINE_PROFILE != null) {
+            functions.count(fn.index);
+        }
+        VNMMemo memo = functions.memo(fn.index);
+        Object key = null;
+        if (argc == fn.params.length && memo.isOn(fn, functions)) {
+            key = VNMMemo.key(argStack, argTop - argc, argc);
+            Object known = (key == null) ? null : memo.get(key);
+            if (known != null) {
+                while (argc-- > 0) {
+                    argStack[--argTop] = null;
+                }
+                return known;
+            }
+        }
+        enterFrame(fn);
+        bindArgs(frame, fn, argc);
+
+        fn.body.jjtAccept(this, null);
+        while (tailCall) {
+            tailCall = false;
+            returning = false;
+            frame.clear();
+            bindArgs(frame, fn, tailArgc);
+            fn.body.jjtAccept(this, null);
+        }
+
+        Object result = returning ? returnValue : fn.defaultResult();
+        returning = false;
+        returnValue = null;
+        exitFrame();
+        if (key != null) {
+            memo.put(key, result);
+        }
+        return result;
+    }
+
+    /* =======================
+       GENERATORS
+       ======================= */
+
+    // If this FOR item calls a FUNCTION that uses YIELD, starts that call
+    // and returns it, so the loop can pull elements as it goes. Otherwise null.
+    VNMGenerator generatorCall(Node item) throws Exception {
+        if (!(item instanceof ASTfn_call) || !(VNMResolver.target(item) instanceof Integer)) {
+            return null;
+        }
+        VNMFunction fn = callee((SimpleNode) item);
+        if (!fn.generator) {
+            return null;
+        }
+        return start(fn, pushArgs((SimpleNode) item));
+    }
+
+    // Starts a generator call with argc arguments on the argument stack.
+    // It gets a frame of its own instead of a pooled one, since it outlives
+    // the statement that started it.
+    private VNMGenerator start(VNMFunction fn, int argc) throws Exception {
+        if (VNMConfig.INLINE_PROFILE != null) {
+            functions.count(fn.index);
+        }
+        VNMFrame own = new VNMFrame();
+        own.enter(fn);
+        bindArgs(own, fn, argc);
+        return new VNMGenerator(this, fn, own);
+    }
+
+    // Runs a generator up to its next element, with its frame on top of the
+    // call stack for the time being. Calls it makes go above it as usual.
+    Object resume(VNMGenerator g) throws Exception {
+        pushDepth();
+        VNMFrame saved = frames[depth];
+        frames[depth] = g.frame;
+        frame = g.frame;
+        try {
+            return g.run();
+        } finally {
+            frames[depth] = saved;
+            depth--;
+            frame = (depth == 0) ? null : frames[depth];
+        }
+    }
+
+    // What the generator hands over to the evaluator.
+    Object value(Node n) throws Exception {
+        return n.jjtAccept(this, null);
+    }
+
+    boolean test(Node n) throws Exception {
+        return asBool(n.jjtAccept(this, null));
+    }
+
+    void assign(SimpleNode var, Object value) {
+        store(var, value);
+    }
+
+    // A YIELD only ever runs here when it is not inside a FUNCTION;
+    // generator bodies are run by VNMGenerator.
+    public Object visit(ASTYield n, Object d) throws Exception {
+        throw new Exception("YIELD can only be used inside a FUNCTION");
+    }
+
+    /* =======================
+       SPAWN / AWAIT
+       ======================= */
+
+    // SPAWN #f(...) evaluates the arguments here and now, then starts the
+    // call as a VNMTask and returns its handle. The task's evaluator gets
+    // its own copy of the globals (vectors are shared copy-on-write, so
+    // later writes on either side don't show through) and of the function
+    // table. Only isolated FUNCTIONs (VNMEffects) can be SPAWNed: anything
+    // else would write to a copy nobody reads.
+    public Object visit(ASTSpawn n, Object d) throws Exception {
+        SimpleNode call = (SimpleNode) n.jjtGetChild(0);
+        String name = VNMResolver.nameOf(call.jjtGetChild(0));
+        if (call.jjtGetValue() instanceof VNMBuiltin) {
+            throw new Exception("SPAWN needs a FUNCTION, and " + name + " is a builtin");
+        }
+        VNMFunction fn = callee(call);
+        if (!VNMEffects.isIsolated(fn, functions)) {
+            throw new Exception("Function " + name + " cannot be SPAWNed: it assigns global variables,"
+                                + " declares FUNCTIONs or calls something that does");
+        }
+
+        VNMEval worker = new VNMEval(this, functions.snapshot());
+        worker.globals = globals.clone();
+        for (int i = 0; i < worker.globals.length; i++) {
+            if (worker.globals[i] instanceof VNMVector) {
+                worker.globals[i] = ((VNMVector) worker.globals[i]).share().claim();
+            }
+        }
+        worker.out = new StringBuilder();
+        int argc = pushArgs(call);
+        for (int i = argTop - argc; i < argTop; i++) {
+            worker.pushArg(detach(argStack[i]));
+            argStack[i] = null;
+        }
+        argTop -= argc;
+
+        VNMTask task = new VNMTask(worker, fn, argc);
+        Integer handle = Integer.valueOf(lastTask.incrementAndGet());
+        tasks.put(handle, task);
+        VNMParallel.start(task);
+        return handle;
+    }
+
+    // AWAIT #t waits for the task, prints what it printed and is its result.
+    // A handle can only be awaited once.
+    public Object visit(ASTAwait n, Object d) throws Exception {
+        Object handle = n.jjtGetChild(0).jjtAccept(this, null);
+        VNMTask task = tasks.remove(handle);
+        if (task == null) {
+            throw new Exception("AWAIT " + handle + ": no task with that handle is waiting to be awaited");
+        }
+        print(task.await());
+        return task.result();
+    }
+
+    // Awaits the oldest task nobody AWAITed and prints its output. False if
+    // there is none. TestVNM calls this at the end of the script.
+    public boolean awaitOldest() throws Exception {
+        Map.Entry<Integer, VNMTask> oldest = tasks.pollFirstEntry();
+        if (oldest == null) {
+            return false;
+        }
+        print(oldest.getValue().await());
+        oldest.getValue().result();
+        return true;
+    }
+
+    // Runs a SPAWNed call, on the task's own evaluator. The arguments are
+    // already on its argument stack.
+    Object runTask(VNMFunction fn, int argc) throws Exception {
+        try {
+            return invoke(fn, argc);
+        } catch (StackOverflowError e) {
+            throw tooDeep();
+        } finally {
+            while (depth > 0) {
+                exitFrame();
+            }
+            for (Object value : globals) {
+                if (value instanceof VNMVector) {
+                    ((VNMVector) value).release();
+                }
+            }
+        }
+    }
+
+    String output() {
+        return out.toString();
+    }
+
     /* =======================
        PRINT / PRINTLN
        ======================= */
 
+    // Set by TestVNM to the sink System.out writes into, so PRINT can put
+    // numbers and literals straight into its buffer (see VNMOutput).
+    void setOutput(VNMOutput sink) {
+        this.sink = sink;
+    }
+
+    private void print(String text) {
+        if (out != null) {
+            out.append(text);
+        } else if (sink != null) {
+            sink.print(text);
+        } else {
+            System.out.print(text);
+        }
+    }
+
+    // One PRINT item. String literals are printed from their resolved
+    // bytes and everything else from its value, without building a String
+    // when the sink can spell the value itself.
+    private void printItem(Node item) throws Exception {
+        Object literal = ((SimpleNode) item).jjtGetValue();
+        if (item instanceof ASTstring && literal instanceof VNMText) {
+            if (out != null) {
+                out.append(((VNMText) literal).text);
+            } else if (sink != null) {
+                sink.print((VNMText) literal);
+            } else {
+                System.out.print(((VNMText) literal).text);
+            }
+            return;
+        }
+        Object value = item.jjtAccept(this, null);
+        if (value == null) {
+            return;
+        }
+        if (out != null) {
+            out.append(value);
+        } else if (sink != null) {
+            sink.print(value);
+        } else {
+            System.out.print(value.toString());
+        }
+    }
+
     // PRINT just evaluates each child expression and prints them in order,
     // staying on the same line.
     public Object visit(ASTPrint n, Object d) throws Exception {
         int childCount = n.jjtGetNumChildren();
 
         for (int i = 0; i < childCount; i++) {
-            Object value = n.jjtGetChild(i).jjtAccept(this, null);
-            if (value != null) {
-                System.out.print(value.toString());
-            }
+            printItem(n.jjtGetChild(i));
         }
         return null;
     }
@@ -109,27 +900,65 @@ public class VNMEval implements VNMVisitor {
         int childCount = n.jjtGetNumChildren();
 
         for (int i = 0; i < childCount; i++) {
-            Object value = n.jjtGetChild(i).jjtAccept(this, null);
-            if (value != null) {
-                System.out.print(value.toString());
-            }
+            printItem(n.jjtGetChild(i));
         }
 
         // This is the only difference from ASTPrint: I append a newline.
-        System.out.println();
+        if (out == null && sink != null) {
+            sink.newline();
+        } else {
+            print(System.lineSeparator());
+        }
         return null;
     }
 
     /* =======================
-       ASSIGNMENT (unused)
+       ASSIGNMENT
        ======================= */
 
-    // The grammar has Assign nodes, but in this simplified evaluator
-    // I'm not actually storing any variables, so I just ignore them.
+    // Assign nodes are "identifier := value" or "v_a[i] := value".
     public Object visit(ASTAssign n, Object d) throws Exception { 
+        SimpleNode target = (SimpleNode) n.jjtGetChild(0);
+        if (target instanceof ASTindex) {
+            storeElement((ASTindex) target, n.jjtGetChild(1));
+            return null;
+        }
+        Object value = n.jjtGetChild(1).jjtAccept(this, null);
+        store(target, value);
         return null; 
     }
 
+    // v_a[i] := value writes through the variable's own handle. If the array
+    // is shared with another variable, the handle copies it before the write.
+    // Writing at index length() appends.
+    private void storeElement(ASTindex target, Node valueNode) throws Exception {
+        VNMVector vec = (VNMVector) load((SimpleNode) target.jjtGetChild(0));
+        int i = asInt(target.jjtGetChild(1).jjtAccept(this, null));
+        Object value = valueNode.jjtAccept(this, null);
+
+        if (vec instanceof VNMIntVector) {
+            VNMIntVector ints = (VNMIntVector) vec;
+            if (i == ints.length()) {
+                ints.append(asInt(value));
+            } else {
+                ints.setInt(i, asInt(value));
+            }
+        } else {
+            VNMBoolVector bools = (VNMBoolVector) vec;
+            if (i == bools.length()) {
+                bools.append(asBool(value));
+            } else if (out != null) {
+                // A PARFOR worker: 64 elements share a word, and other
+                // workers may be writing the elements next to this one.
+                synchronized (bools) {
+                    bools.setBool(i, asBool(value));
+                }
+            } else {
+                bools.setBool(i, asBool(value));
+            }
+        }
+    }
+
     /* =======================
        IF / ELIF / ELSE
        ======================= */
@@ -139,6 +968,19 @@ public class VNMEval implements VNMVisitor {
     //   child 1: "then" clause
     //   child 2: optional "else / elif" part
     public Object visit(ASTIf n, Object d) throws Exception {
+        if (n.jjtGetValue() instanceof VNMSwitch) {
+            // A chain VNMSwitches compiled: an int picks its arm at once;
+            // anything else goes through the arms as written.
+            VNMSwitch s = (VNMSwitch) n.jjtGetValue();
+            Object value = s.subject.jjtAccept(this, null);
+            if (value instanceof Integer) {
+                Node arm = s.select(((Integer) value).intValue());
+                if (arm != null) {
+                    arm.jjtAccept(this, null);
+                }
+                return null;
+            }
+        }
         boolean conditionResult = asBool(n.jjtGetChild(0).jjtAccept(this, null));
 
         if (conditionResult) {
@@ -202,11 +1044,40 @@ public class VNMEval implements VNMVisitor {
     //   child 1: comparator node  (<, <=, ==, etc.)
     //   child 2: right expression (R)
     public Object visit(ASTcomparison n, Object d) throws Exception {
-        int leftValue  = asInt(n.jjtGetChild(0).jjtAccept(this, null));
-        int rightValue = asInt(n.jjtGetChild(2).jjtAccept(this, null));
-
         SimpleNode operatorNode = (SimpleNode) n.jjtGetChild(1);
 
+        // =in and !in take a range, a vector or a single number on the right.
+        // With a vector on the left, every element is tested.
+        if (operatorNode instanceof ASTin || operatorNode instanceof ASTnotin) {
+            Object left = n.jjtGetChild(0).jjtAccept(this, null);
+            Object collection = n.jjtGetChild(2).jjtAccept(this, null);
+            boolean found;
+            if (left instanceof Integer) {
+                found = contains(collection, asInt(left));
+            } else if (VNMNumbers.isBig(left)) {
+                // Too big for an int, so only a number can be equal to it.
+                found = VNMNumbers.isNumber(collection) && VNMNumbers.compare(left, collection) == 0;
+            } else {
+                return VNMVectorMath.membership(left, collection, operatorNode instanceof ASTnotin);
+            }
+            return Boolean.valueOf((operatorNode instanceof ASTin) == found);
+        }
+
+        Object left  = n.jjtGetChild(0).jjtAccept(this, null);
+        Object right = n.jjtGetChild(2).jjtAccept(this, null);
+        int leftValue, rightValue;
+        if (left instanceof Integer && right instanceof Integer) {
+            leftValue  = asInt(left);
+            rightValue = asInt(right);
+        } else if (VNMNumbers.isNumber(left) && VNMNumbers.isNumber(right)) {
+            // Bigger numbers: comparing compare()'s answer with 0 gives
+            // the same result as comparing the numbers.
+            leftValue  = VNMNumbers.compare(left, right);
+            rightValue = 0;
+        } else {
+            return VNMVectorMath.compare(comparator(operatorNode), left, right);
+        }
+
         // I test which specific comparator node this is and return the right boolean.
         if (operatorNode instanceof ASTle) {
             return Boolean.valueOf(leftValue < rightValue);
@@ -231,6 +1102,34 @@ public class VNMEval implements VNMVisitor {
         return Boolean.FALSE;
     }
 
+    // Which VNMKernel comparison a comparator node stands for.
+    private static int comparator(SimpleNode op) {
+        if (op instanceof ASTle)  return VNMKernel.LT;
+        if (op instanceof ASTleq) return VNMKernel.LE;
+        if (op instanceof ASTgre) return VNMKernel.GT;
+        if (op instanceof ASTgeq) return VNMKernel.GE;
+        if (op instanceof ASTeq)  return VNMKernel.EQ;
+        return VNMKernel.NE;
+    }
+
+    // Membership test behind =in and !in. A range only needs its two bounds;
+    // a vector answers from its cached index (see VNMIntIndex).
+    private boolean contains(Object collection, int value) throws Exception {
+        if (collection instanceof VNMRange) {
+            return ((VNMRange) collection).contains(value);
+        }
+        if (collection instanceof VNMIntVector) {
+            return ((VNMIntVector) collection).contains(value);
+        }
+        if (collection instanceof VNMVector) {
+            throw new Exception("=in needs a numeric vector");
+        }
+        if (VNMNumbers.isBig(collection)) {
+            return false;
+        }
+        return asInt(collection) == value;
+    }
+
     // The individual comparator nodes themselves don't evaluate to any direct value.
     // They're only used as "tags" inside ASTcomparison.
     public Object visit(ASTle n, Object d)   throws Exception { return null; }
@@ -247,16 +1146,35 @@ public class VNMEval implements VNMVisitor {
        ======================= */
 
     // ASTsum represents a sequence of terms being added together.
-    // The first child is the base, and the rest are added on top.
+    // The first child is the base, and the rest are added on top. The rest
+    // are ASTpos / ASTneg nodes; I look through them and add or subtract
+    // the operand, so "v_a - v_b" doesn't build a negated copy of v_b.
     public Object visit(ASTsum n, Object d) throws Exception {
         int numChildren = n.jjtGetNumChildren();
-        int result = asInt(n.jjtGetChild(0).jjtAccept(this, null));
+        Object result = n.jjtGetChild(0).jjtAccept(this, null);
 
         for (int i = 1; i < numChildren; i++) {
-            result += asInt(n.jjtGetChild(i).jjtAccept(this, null));
+            Node child = n.jjtGetChild(i);
+            boolean minus = child instanceof ASTneg;
+            if (minus || child instanceof ASTpos) {
+                child = child.jjtGetChild(0);
+            }
+            Object term = child.jjtAccept(this, null);
+            if (result instanceof Integer && term instanceof Integer) {
+                int a = ((Integer) result).intValue(), b = ((Integer) term).intValue();
+                try {
+                    result = Integer.valueOf(minus ? Math.subtractExact(a, b) : Math.addExact(a, b));
+                } catch (ArithmeticException overflow) {
+                    result = minus ? VNMNumbers.subtract(result, term) : VNMNumbers.add(result, term);
+                }
+            } else if (VNMNumbers.isNumber(result) && VNMNumbers.isNumber(term)) {
+                result = minus ? VNMNumbers.subtract(result, term) : VNMNumbers.add(result, term);
+            } else {
+                result = VNMVectorMath.arithmetic(minus ? VNMKernel.SUB : VNMKernel.ADD, result, term);
+            }
         }
 
-        return Integer.valueOf(result);
+        return result;
     }
 
     // ASTpos is essentially a no-op unary plus.
@@ -266,41 +1184,70 @@ public class VNMEval implements VNMVisitor {
     }
 
     // ASTneg is unary minus: it negates the integer value of its child.
+    // -2147483648 no longer fits in an int, so it becomes a Long.
     public Object visit(ASTneg n, Object d) throws Exception {
-        int value = asInt(n.jjtGetChild(0).jjtAccept(this, null));
-        return Integer.valueOf(-value);
+        Object value = n.jjtGetChild(0).jjtAccept(this, null);
+        if (value instanceof Integer && ((Integer) value).intValue() != Integer.MIN_VALUE) {
+            return Integer.valueOf(-((Integer) value).intValue());
+        }
+        if (VNMNumbers.isNumber(value)) {
+            return VNMNumbers.negate(value);
+        }
+        return VNMVectorMath.arithmetic(VNMKernel.SUB, Integer.valueOf(0), value);
     }
 
     // ASTmul represents chained multiplication.
     // Like sum, the first child is the base and I multiply by each subsequent child.
     public Object visit(ASTmul n, Object d) throws Exception {
-        int numChildren = n.jjtGetNumChildren();
-        int product = asInt(n.jjtGetChild(0).jjtAccept(this, null));
-
-        for (int i = 1; i < numChildren; i++) {
-            product *= asInt(n.jjtGetChild(i).jjtAccept(this, null));
-        }
-
-        return Integer.valueOf(product);
+        return product(n, VNMKernel.MUL);
     }
 
     // ASTdiv does chained integer division, left-associative.
     public Object visit(ASTdiv n, Object d) throws Exception {
-        int numChildren = n.jjtGetNumChildren();
-        int quotient = asInt(n.jjtGetChild(0).jjtAccept(this, null));
-
-        for (int i = 1; i < numChildren; i++) {
-            quotient /= asInt(n.jjtGetChild(i).jjtAccept(this, null));
-        }
-
-        return Integer.valueOf(quotient);
+        return product(n, VNMKernel.DIV);
     }
 
     // ASTmod is modulus; here I only use two children: L % R.
     public Object visit(ASTmod n, Object d) throws Exception {
-        int left  = asInt(n.jjtGetChild(0).jjtAccept(this, null));
-        int right = asInt(n.jjtGetChild(1).jjtAccept(this, null));
-        return Integer.valueOf(left % right);
+        return product(n, VNMKernel.MOD);
+    }
+
+    // Shared by *, / and %: folds the children left to right, switching to
+    // element-wise vector arithmetic as soon as a vector shows up. Ints that
+    // overflow (a product, or MIN_VALUE / -1) widen instead of wrapping.
+    private Object product(SimpleNode n, int op) throws Exception {
+        Object acc = n.jjtGetChild(0).jjtAccept(this, null);
+        for (int i = 1; i < n.jjtGetNumChildren(); i++) {
+            Object next = n.jjtGetChild(i).jjtAccept(this, null);
+            if (acc instanceof Integer && next instanceof Integer) {
+                int left = ((Integer) acc).intValue(), right = ((Integer) next).intValue();
+                switch (op) {
+                    case VNMKernel.MUL:
+                        try {
+                            acc = Integer.valueOf(Math.multiplyExact(left, right));
+                        } catch (ArithmeticException overflow) {
+                            acc = VNMNumbers.multiply(acc, next);
+                        }
+                        break;
+                    case VNMKernel.DIV:
+                        acc = (right == -1 && left == Integer.MIN_VALUE)
+                              ? VNMNumbers.divide(acc, next) : Integer.valueOf(left / right);
+                        break;
+                    default:
+                        acc = Integer.valueOf(left % right);
+                        break;
+                }
+            } else if (VNMNumbers.isNumber(acc) && VNMNumbers.isNumber(next)) {
+                switch (op) {
+                    case VNMKernel.MUL: acc = VNMNumbers.multiply(acc, next); break;
+                    case VNMKernel.DIV: acc = VNMNumbers.divide(acc, next); break;
+                    default:            acc = VNMNumbers.remainder(acc, next); break;
+                }
+            } else {
+                acc = VNMVectorMath.arithmetic(op, acc, next);
+            }
+        }
+        return acc;
     }
 
     /* =======================
@@ -308,23 +1255,48 @@ public class VNMEval implements VNMVisitor {
        ======================= */
 
     // A numeric literal is stored in the AST node's value as a String.
-    // I parse it to an int and then wrap it as an Integer.
+    // I parse it to an Integer, or a Long / BigInteger if it is that big.
+    // VNMFolder leaves the number itself there instead.
     public Object visit(ASTnumber n, Object d) throws Exception {
-        String text = (String) n.jjtGetValue();
-        return Integer.valueOf(Integer.parseInt(text));
+        Object value = n.jjtGetValue();
+        if (value instanceof String) {
+            return VNMNumbers.parse((String) value);
+        }
+        return value;
     }
 
-    // A string literal includes quotes; I remove them with stripQuotes().
+    // A string literal includes quotes; the resolver has already split them
+    // off (see VNMText), otherwise I remove them with stripQuotes().
     public Object visit(ASTstring n, Object d) throws Exception {
-        String raw = (String) n.jjtGetValue();
-        return stripQuotes(raw);
+        Object literal = n.jjtGetValue();
+        if (literal instanceof VNMText) {
+            return ((VNMText) literal).text;
+        }
+        return stripQuotes((String) literal);
     }
 
-    // For RETURN, I just walk its children in case there is an expression.
-    // The actual "return handling" is not implemented here, but this allows
-    // me to reuse the same visitor for evaluation.
+    // RETURN evaluates its value and raises the "returning" flag, which makes
+    // every enclosing statement list and loop stop until the call finishes.
+    // The resolver tags self-recursive tail calls with their function; those
+    // push their arguments and let invoke() loop instead of recursing.
     public Object visit(ASTReturn node, Object data) throws Exception {
-        return defaultVisit(node, data);
+        Object tag = node.jjtGetValue();
+        if (tag != null && frame != null && tag == frame.function
+                && functions.get(frame.function.index) == frame.function) {
+            tailArgc = pushArgs((SimpleNode) node.jjtGetChild(0));
+            tailCall = true;
+            returnValue = null;
+            returning = true;
+            return null;
+        }
+
+        Object value = node.jjtGetNumChildren() > 0 ? node.jjtGetChild(0).jjtAccept(this, null) : null;
+        // The frame's locals are released on the way out, so a vector
+        // returned straight from a variable needs its own handle.
+        value = detach(value);
+        returnValue = value;
+        returning = true;
+        return value;
     }
 
     // Boolean literals map directly to Java Boolean constants.
@@ -337,36 +1309,477 @@ public class VNMEval implements VNMVisitor {
     }
 
     /* =======================
-       MISC / PLACEHOLDER NODES
+       IDENTIFIERS
        ======================= */
 
-    // Identifier nodes and vector-related nodes exist in the grammar,
-    // but in this simplified evaluator I don't actually resolve them
-    // to any stored values yet, so they just return null.
+    // Identifiers read their slot (local frame or global table) directly.
 
     public Object visit(ASTidnum n, Object d) throws Exception { 
-        return null; 
+        return load(n); 
     }
 
     public Object visit(ASTidbool n, Object d) throws Exception { 
-        return null; 
+        return load(n); 
     }
 
     public Object visit(ASTidvec n, Object d) throws Exception { 
-        return null; 
+        return load(n); 
+    }
+
+    /* =======================
+       MISC / PLACEHOLDER NODES
+       ======================= */
+
+    /* =======================
+       VECTORS
+       ======================= */
+
+    // v_a[i] reads one element (from 0).
+    public Object visit(ASTindex n, Object d) throws Exception {
+        VNMVector vec = (VNMVector) n.jjtGetChild(0).jjtAccept(this, null);
+        int i = asInt(n.jjtGetChild(1).jjtAccept(this, null));
+        return vec.get(i);
+    }
+
+    // v_a[i..j] is a view on v_a's storage: nothing is copied unless one of
+    // them is written to later.
+    public Object visit(ASTslice n, Object d) throws Exception {
+        VNMVector vec = (VNMVector) n.jjtGetChild(0).jjtAccept(this, null);
+        int from = asInt(n.jjtGetChild(1).jjtAccept(this, null));
+        int to = asInt(n.jjtGetChild(2).jjtAccept(this, null));
+        if (vec instanceof VNMIntVector) {
+            return ((VNMIntVector) vec).slice(from, to);
+        }
+        if (vec instanceof VNMRange) {
+            return ((VNMRange) vec).slice(from, to);
+        }
+        return ((VNMBoolVector) vec).slice(from, to);
+    }
+
+    // lo..hi just records its bounds. Nothing is expanded here.
+    public Object visit(ASTrange n, Object d) throws Exception {
+        int lo = asInt(n.jjtGetChild(0).jjtAccept(this, null));
+        int hi = asInt(n.jjtGetChild(1).jjtAccept(this, null));
+        return new VNMRange(lo, hi);
     }
 
+    // vec_const is either [exp_list], [condition_list] or [].
+    // Elements are appended straight into primitive storage. An element that
+    // is itself a vector gets spliced in, so [v_a, 5] is v_a with 5 on the end.
     public Object visit(ASTvec_const n, Object d) throws Exception { 
-        return null; 
+        if (n.jjtGetNumChildren() == 0) {
+            return new VNMIntVector();
+        }
+        SimpleNode list = (SimpleNode) n.jjtGetChild(0);
+        int count = list.jjtGetNumChildren();
+
+        // [lo..hi] on its own stays a lazy range.
+        if (count == 1 && list.jjtGetChild(0) instanceof ASTrange) {
+            return list.jjtGetChild(0).jjtAccept(this, null);
+        }
+
+        if (list instanceof ASTcondition_list) {
+            VNMBoolVector result = new VNMBoolVector();
+            for (int i = 0; i < count; i++) {
+                Object value = list.jjtGetChild(i).jjtAccept(this, null);
+                if (value instanceof VNMBoolVector) {
+                    result.appendAll((VNMBoolVector) value);
+                } else {
+                    result.append(asBool(value));
+                }
+            }
+            result.trim();
+            return result;
+        }
+
+        VNMIntVector result = new VNMIntVector(count);
+        for (int i = 0; i < count; i++) {
+            Object value = list.jjtGetChild(i).jjtAccept(this, null);
+            if (value instanceof VNMIntVector) {
+                result.appendAll((VNMIntVector) value);
+            } else if (value instanceof VNMRange) {
+                VNMRange range = (VNMRange) value;
+                result.ensureCapacity(result.length() + range.length());
+                for (long v = range.lo; v <= range.hi; v++) {
+                    result.append((int) v);
+                }
+            } else if (value instanceof VNMVector) {
+                throw new Exception("Cannot put a boolean vector inside a numeric vector");
+            } else if (value instanceof String) {
+                throw new Exception("Cannot put a string inside a vector");
+            } else {
+                result.append(asInt(value));
+            }
+        }
+        result.trim();
+        return result;
     }
 
-    // Similarly, FOR and WHILE structures are present in the AST,
-    // but I'm not interpreting them here; they are placeholders.
+    /* =======================
+       LOOPS
+       ======================= */
+
+    // FOR #i =in e1, e2, ... DO body END
+    //   child 0: loop variable
+    //   child 1: exp_list of values
+    //   child 2: body
+    // I evaluate each value as I get to it and run the body once per value.
+    // A value that is a vector runs the body once per element, and a range
+    // is walked with a plain counter. A call to a generator FUNCTION or a
+    // pipeline (v_map, v_filter) is never turned into a vector: each pass
+    // pulls its next element.
     public Object visit(ASTFor n, Object d) throws Exception { 
+        return loop(n);
+    }
+
+    private Object loop(SimpleNode n) throws Exception {
+        SimpleNode var = (SimpleNode) n.jjtGetChild(0);
+        SimpleNode values = (SimpleNode) n.jjtGetChild(1);
+        Node body = n.jjtGetChild(2);
+        Object info = n.jjtGetValue();
+        enter(info);
+
+        int count = values.jjtGetNumChildren();
+        for (int i = 0; i < count && !returning; i++) {
+            VNMGenerator gen = generatorCall(values.jjtGetChild(i));
+            if (gen != null) {
+                try {
+                    Object element;
+                    while (!returning && (element = gen.next()) != null) {
+                        store(var, element);
+                        body.jjtAccept(this, null);
+                    }
+                } finally {
+                    gen.close();
+                }
+                continue;
+            }
+            Object value = values.jjtGetChild(i).jjtAccept(this, null);
+            if (value instanceof VNMPipeline) {
+                VNMPipeline.Iter elements = ((VNMPipeline) value).iterate(this);
+                try {
+                    Object element;
+                    while (!returning && (element = elements.next()) != null) {
+                        store(var, element);
+                        body.jjtAccept(this, null);
+                    }
+                } finally {
+                    elements.close();
+                }
+            } else if (value instanceof VNMRange && info instanceof VNMLoop && ((VNMLoop) info).steps.length > 0) {
+                steps((VNMRange) value, var, body, (VNMLoop) info);
+            } else if (value instanceof VNMRange) {
+                VNMRange range = (VNMRange) value;
+                for (long v = range.lo; v <= range.hi && !returning; v++) {
+                    store(var, Integer.valueOf((int) v));
+                    body.jjtAccept(this, null);
+                }
+            } else if (value instanceof VNMIntVector) {
+                // Loop over a snapshot: the body may change the variable.
+                VNMIntVector vec = (VNMIntVector) detach(value);
+                for (int j = 0; j < vec.length() && !returning; j++) {
+                    store(var, Integer.valueOf(vec.getInt(j)));
+                    body.jjtAccept(this, null);
+                }
+                if (vec != value) {
+                    vec.release();
+                }
+            } else if (value instanceof VNMVector) {
+                throw new Exception("FOR can only loop over numeric vectors");
+            } else if (value instanceof String) {
+                throw new Exception("FOR cannot loop over a string");
+            } else {
+                store(var, value);
+                body.jjtAccept(this, null);
+            }
+        }
         return null; 
     }
 
+    // FOR over a range where VNMLoops replaced #i * K by a slot: each
+    // pass's product is the one before plus K. One that doesn't fit in an
+    // int is worked out the way * does it.
+    private void steps(VNMRange range, SimpleNode var, Node body, VNMLoop info) throws Exception {
+        VNMVarRef[] steps = info.steps;
+        int[] factors = info.factors;
+        long[] products = new long[steps.length];
+        for (int j = 0; j < steps.length; j++) {
+            products[j] = (long) range.lo * factors[j];
+        }
+        for (long v = range.lo; v <= range.hi && !returning; v++) {
+            Integer i = Integer.valueOf((int) v);
+            store(var, i);
+            for (int j = 0; j < steps.length; j++) {
+                long p = products[j];
+                slots(steps[j])[steps[j].index] = (p == (int) p)
+                    ? Integer.valueOf((int) p) : VNMNumbers.multiply(i, Integer.valueOf(factors[j]));
+                products[j] = p + factors[j];
+            }
+            body.jjtAccept(this, null);
+        }
+    }
+
+    /* =======================
+       PARFOR
+       ======================= */
+
+    // PARFOR #i =in e1, e2, ... DO body END has the same children as FOR.
+    // If VNMDependence accepts the body, I work out all the values first and
+    // give runs of consecutive iterations to workers (see the constructor at
+    // the top), each printing into its own buffer. Afterwards the buffers
+    // are printed in iteration order, and every variable the body assigns
+    // gets what the last iteration that assigned it left there. An error
+    // is reported once the iterations before it have printed.
+    // A body that VNMDependence rejects runs as a FOR, with a note on stderr
+    // saying why, and so does every PARFOR when there is only one thread.
+    public Object visit(ASTParfor n, Object d) throws Exception {
+        if (!VNMParallel.enabled()) {
+            return loop(n);
+        }
+        VNMDependence.Plan plan = VNMDependence.check(n, functions);
+        if (plan.problem != null) {
+            report(n, plan.problem);
+            return loop(n);
+        }
+
+        SimpleNode var = (SimpleNode) n.jjtGetChild(0);
+        Node body = n.jjtGetChild(2);
+        ArrayList<Object> parts = iterations((SimpleNode) n.jjtGetChild(1));
+        try {
+            int[] starts = new int[parts.size() + 1];
+            for (int p = 0; p < parts.size(); p++) {
+                starts[p + 1] = starts[p] + partLength(parts.get(p));
+            }
+            int count = starts[parts.size()];
+            String problem = checkTargets(plan, parts);
+            if (problem != null) {
+                report(n, problem);
+                iterate(var, body, parts, starts, 0, count);
+                return null;
+            }
+            for (SimpleNode target : plan.targets) {
+                ((VNMVector) load(target)).own();
+            }
+            countOwners();
+
+            ConcurrentSkipListMap<Integer, VNMEval> pieces = new ConcurrentSkipListMap<Integer, VNMEval>();
+            int size = (count + PARFOR_PIECES - 1) / PARFOR_PIECES;
+            VNMParallel.forEach(count, size, (from, to) -> {
+                VNMEval worker = new VNMEval(this, plan);
+                pieces.put(Integer.valueOf(from), worker);
+                try {
+                    worker.iterate(var, body, parts, starts, from, to);
+                } catch (Exception e) {
+                    while (worker.depth > 1) {
+                        worker.exitFrame();
+                    }
+                    worker.failure = e;
+                }
+                return 0;
+            });
+
+            for (VNMEval worker : pieces.values()) {
+                print(worker.out.toString());
+                for (VNMVarRef ref : plan.privates) {
+                    Object value = worker.slots(ref)[ref.index];
+                    if (value != UNSET) {
+                        slots(ref)[ref.index] = value;
+                    }
+                }
+                if (worker.failure != null) {
+                    throw worker.failure;
+                }
+            }
+        } finally {
+            for (Object part : parts) {
+                if (part instanceof VNMIntVector) {
+                    ((VNMIntVector) part).release();
+                }
+            }
+        }
+        return null;
+    }
+
+    // Pieces of iterations per thread. More than one, so a thread that
+    // finishes early can take over some of another's.
+    private static final int PARFOR_PIECES = 4 * VNMConfig.PARALLELISM;
+
+    private void report(Node n, String problem) {
+        if (reported.add(n)) {
+            System.err.println("PARFOR " + VNMResolver.nameOf(n.jjtGetChild(0))
+                               + " runs one iteration at a time: " + problem);
+        }
+    }
+
+    // Every value of a PARFOR, in order, as parts: a range, a numeric vector
+    // or a single value. Numbers pulled from a generator or a pipeline are
+    // collected into a vector of their own.
+    private ArrayList<Object> iterations(SimpleNode values) throws Exception {
+        ArrayList<Object> parts = new ArrayList<Object>();
+        VNMIntVector pulled = null;
+        for (int i = 0; i < values.jjtGetNumChildren(); i++) {
+            ArrayList<Object> elements = new ArrayList<Object>();
+            VNMGenerator gen = generatorCall(values.jjtGetChild(i));
+            if (gen != null) {
+                try {
+                    Object element;
+                    while ((element = gen.next()) != null) {
+                        elements.add(element);
+                    }
+                } finally {
+                    gen.close();
+                }
+            } else {
+                Object value = values.jjtGetChild(i).jjtAccept(this, null);
+                if (value instanceof VNMPipeline) {
+                    VNMPipeline.Iter it = ((VNMPipeline) value).iterate(this);
+                    try {
+                        Object element;
+                        while ((element = it.next()) != null) {
+                            elements.add(element);
+                        }
+                    } finally {
+                        it.close();
+                    }
+                } else if (value instanceof VNMRange || value instanceof VNMIntVector) {
+                    parts.add(detach(value));
+                    pulled = null;
+                } else if (value instanceof VNMVector) {
+                    throw new Exception("FOR can only loop over numeric vectors");
+                } else if (value instanceof String) {
+                    throw new Exception("FOR cannot loop over a string");
+                } else {
+                    elements.add(value);
+                }
+            }
+            for (Object element : elements) {
+                if (element instanceof Integer) {
+                    if (pulled == null) {
+                        pulled = new VNMIntVector();
+                        parts.add(pulled);
+                    }
+                    pulled.append(((Integer) element).intValue());
+                } else {
+                    parts.add(element);
+                    pulled = null;
+                }
+            }
+        }
+        return parts;
+    }
+
+    private static int partLength(Object part) {
+        return (part instanceof VNMVector) ? ((VNMVector) part).length() : 1;
+    }
+
+    private static Object partValue(Object part, int i) {
+        if (part instanceof VNMRange) {
+            return Integer.valueOf(((VNMRange) part).getInt(i));
+        }
+        if (part instanceof VNMIntVector) {
+            return Integer.valueOf(((VNMIntVector) part).getInt(i));
+        }
+        return part;
+    }
+
+    // Runs iterations from..to-1. starts[p] is the first iteration of parts[p].
+    private void iterate(SimpleNode var, Node body, ArrayList<Object> parts, int[] starts,
+                         int from, int to) throws Exception {
+        int lo = 0, hi = parts.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (starts[mid] <= from) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        int p = lo;
+        for (int k = from; k < to; k++) {
+            while (k >= starts[p + 1]) {
+                p++;
+            }
+            store(var, partValue(parts.get(p), k - starts[p]));
+            body.jjtAccept(this, null);
+        }
+    }
+
+    // The body writes v_a[#i] only. That is safe in parallel if every #i is
+    // already an index of v_a (so nothing is appended) and no two
+    // iterations have the same #i. Returns what is wrong, or null.
+    private String checkTargets(VNMDependence.Plan plan, ArrayList<Object> parts) throws Exception {
+        if (plan.targets.isEmpty()) {
+            return null;
+        }
+        int length = Integer.MAX_VALUE;
+        for (SimpleNode target : plan.targets) {
+            VNMVarRef ref = (VNMVarRef) target.jjtGetValue();
+            Object vec = slots(ref)[ref.index];
+            if (!(vec instanceof VNMVector)) {
+                return "it writes elements of " + VNMResolver.nameOf(target) + ", which is not a vector";
+            }
+            length = Math.min(length, ((VNMVector) vec).length());
+        }
+        BitSet seen = new BitSet();
+        for (Object part : parts) {
+            int n = partLength(part);
+            if (part instanceof VNMRange) {
+                if (n == 0) {
+                    continue;
+                }
+                VNMRange range = (VNMRange) part;
+                if (range.lo < 0 || range.hi >= length) {
+                    return "its values are not all indexes of the vectors it writes";
+                }
+                int next = seen.nextSetBit(range.lo);
+                if (next >= 0 && next <= range.hi) {
+                    return "it writes the element at " + next + " more than once";
+                }
+                seen.set(range.lo, range.hi + 1);
+                continue;
+            }
+            for (int i = 0; i < n; i++) {
+                Object value = partValue(part, i);
+                int index = (value instanceof Integer) ? ((Integer) value).intValue() : -1;
+                if (index < 0 || index >= length) {
+                    return "its values are not all indexes of the vectors it writes";
+                }
+                if (seen.get(index)) {
+                    return "it writes the element at " + index + " more than once";
+                }
+                seen.set(index);
+            }
+        }
+        return null;
+    }
+
+    // Workers may share the vectors they can see (e.g. pass them to a
+    // FUNCTION) all at the same time. Counting owners from here on means
+    // they only ever add to the same counter.
+    void countOwners() {
+        for (int i = 0; i < globals.length; i++) {
+            if (globals[i] instanceof VNMVector) {
+                ((VNMVector) globals[i]).countOwners();
+            }
+        }
+        if (frame != null) {
+            for (int i = 0; i < frame.function.frameSize; i++) {
+                if (frame.slots[i] instanceof VNMVector) {
+                    ((VNMVector) frame.slots[i]).countOwners();
+                }
+            }
+        }
+    }
+
+    // WHILE cond DO body END: re-test the condition before every pass.
     public Object visit(ASTWhile n, Object d) throws Exception { 
+        Node condition = n.jjtGetChild(0);
+        Node body = n.jjtGetChild(1);
+        enter(n.jjtGetValue());
+
+        while (!returning && asBool(condition.jjtAccept(this, null))) {
+            body.jjtAccept(this, null);
+        }
         return null; 
     }
 }
@@ -0,0 +1,10 @@
+/**
+ * Where a VNMShared slot is filled: the first place its expression is
+ * worked out in the block (see VNMCommon).
+ */
+public final class VNMFirst extends VNMShared {
+
+    public VNMFirst(String name, boolean local, int index) {
+        super(name, local, index);
+    }
+}
@@ -0,0 +1,361 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Constant folding, constant propagation and dead branch elimination.
+ *
+ * Runs over a tree after VNMResolver, before it is evaluated: on each
+ * top-level statement, and on a FUNCTION body when it is declared. Three
+ * things happen, in one walk that follows the order statements run in:
+ *
+ *   - Reads of a number or boolean variable that was last assigned a
+ *     constant (or given its starting value by VAR) are replaced by that
+ *     constant. An assignment, a loop that assigns the variable, or any
+ *     call (which may assign globals) makes it unknown again. After an IF
+ *     only what all the branches agree on is kept.
+ *   - Sums, products, comparisons, ! & and | whose operands are all
+ *     constants are replaced by their value. The value is worked out by
+ *     the evaluator itself, so it is exactly what the run would give, and
+ *     anything that would fail (a division by zero) is left alone to fail
+ *     when it runs. "#0 & ..." and "#1 | ..." are decided by their left side.
+ *   - An IF or ELIF whose condition turns out constant is replaced by the
+ *     branch that runs, and a WHILE whose condition is false by nothing.
+ *
+ * What is known about global variables at the end of a top-level statement
+ * carries over to the next one, unless the statement fails partway.
+ * FUNCTION bodies start knowing nothing, since they can be called at any
+ * time. Runs unless -Dvnm.optimize=false.
+ */
+public final class VNMFolder {
+
+    private final VNMEval evaluator;
+
+    // What is known about globals between top-level statements.
+    private Facts globals = new Facts();
+
+    public VNMFolder(VNMEval evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /* =======================
+       ENTRY POINTS
+       ======================= */
+
+    public void topLevel(SimpleNode tree) {
+        statement(tree, globals);
+    }
+
+    public void function(SimpleNode body) {
+        statement(body, new Facts());
+    }
+
+    // Called when a statement fails partway, or when statements don't run
+    // in the order they are seen: nothing is known about globals any more.
+    public void forget() {
+        globals = new Facts();
+    }
+
+    /* =======================
+       STATEMENTS
+       ======================= */
+
+    // Simplifies a statement and returns what should take its place: the
+    // statement itself, the branch left of an IF, or an ASTNULL. A
+    // top-level statement has no place to take; it is only simplified.
+    private Node statement(Node n, Facts f) {
+        if (n instanceof ASTbody || n instanceof ASTclause) {
+            for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                replace(n, i, statement(n.jjtGetChild(i), f));
+            }
+            return n;
+        }
+        if (n instanceof ASTfn_decl || n instanceof ASTNULL) {
+            return n;
+        }
+        if (n instanceof ASTvar_decl) {
+            for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                VNMVarRef ref = ref(n.jjtGetChild(i));
+                if (ref != null && !ref.name.startsWith("v_")) {
+                    f.set(ref, VNMEval.defaultValue(ref.name));
+                }
+            }
+            return n;
+        }
+        if (n instanceof ASTAssign) {
+            Node target = n.jjtGetChild(0);
+            if (target instanceof ASTindex) {
+                replace(target, 1, expression(target.jjtGetChild(1), f));
+            }
+            replace(n, 1, expression(n.jjtGetChild(1), f));
+            VNMVarRef ref = ref(target);
+            if (ref != null) {
+                Object value = constant(n.jjtGetChild(1));
+                if (value != null) {
+                    f.set(ref, value);
+                } else {
+                    f.kill(ref);
+                }
+            }
+            return n;
+        }
+        if (n instanceof ASTIf) {
+            replace(n, 0, expression(n.jjtGetChild(0), f));
+            Object test = constant(n.jjtGetChild(0));
+            if (Boolean.TRUE.equals(test)) {
+                return statement(n.jjtGetChild(1), f);
+            }
+            if (Boolean.FALSE.equals(test)) {
+                return (n.jjtGetNumChildren() > 2) ? statement(n.jjtGetChild(2), f) : nothing();
+            }
+            Facts otherwise = f.copy();
+            replace(n, 1, statement(n.jjtGetChild(1), f));
+            if (n.jjtGetNumChildren() > 2) {
+                replace(n, 2, statement(n.jjtGetChild(2), otherwise));
+            }
+            f.retain(otherwise);
+            return n;
+        }
+        if (n instanceof ASTWhile) {
+            // From the second time round, anything the loop assigns may
+            // have changed, and the body may not run at all.
+            assigned(n, f);
+            replace(n, 0, expression(n.jjtGetChild(0), f));
+            if (Boolean.FALSE.equals(constant(n.jjtGetChild(0)))) {
+                return nothing();
+            }
+            replace(n, 1, statement(n.jjtGetChild(1), f.copy()));
+            return n;
+        }
+        if (n instanceof ASTFor || n instanceof ASTParfor) {
+            // Only the first item is worked out before the first
+            // iteration; each later one after the iterations before it,
+            // which may have assigned what it reads.
+            Node items = n.jjtGetChild(1);
+            if (items.jjtGetNumChildren() > 0) {
+                replace(items, 0, expression(items.jjtGetChild(0), f));
+            }
+            assigned(n, f);
+            for (int i = 1; i < items.jjtGetNumChildren(); i++) {
+                replace(items, i, expression(items.jjtGetChild(i), f));
+            }
+            replace(n, 2, statement(n.jjtGetChild(2), f.copy()));
+            return n;
+        }
+        if (n instanceof ASTYield) {
+            // The consumer runs between YIELDs and may assign globals.
+            replace(n, 0, expression(n.jjtGetChild(0), f));
+            f.killGlobals();
+            return n;
+        }
+        if (n instanceof ASTReturn || n instanceof ASTPrint || n instanceof ASTPrint_ln) {
+            for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                replace(n, i, expression(n.jjtGetChild(i), f));
+            }
+            return n;
+        }
+        return expression(n, f);
+    }
+
+    // Forgets the variables a loop assigns anywhere inside it, its own
+    // variable included, and all globals if it calls anything.
+    private void assigned(Node n, Facts f) {
+        if (n instanceof ASTfn_decl) {
+            return;
+        }
+        if (n instanceof ASTAssign || n instanceof ASTFor || n instanceof ASTParfor) {
+            VNMVarRef ref = ref(n.jjtGetChild(0));
+            if (ref != null) {
+                f.kill(ref);
+            }
+        } else if (n instanceof ASTvar_decl) {
+            for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                VNMVarRef ref = ref(n.jjtGetChild(i));
+                if (ref != null) {
+                    f.kill(ref);
+                }
+            }
+        } else if (n instanceof ASTfn_call || n instanceof ASTboolean_call || n instanceof ASTYield) {
+            f.killGlobals();
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            assigned(n.jjtGetChild(i), f);
+        }
+    }
+
+    /* =======================
+       EXPRESSIONS
+       ======================= */
+
+    // Simplifies an expression or condition, children first, in the order
+    // they are evaluated. Returns what should take its place.
+    private Node expression(Node n, Facts f) {
+        if (n instanceof ASTidnum || n instanceof ASTidbool) {
+            VNMVarRef ref = ref(n);
+            Object value = (ref == null) ? null : f.get(ref);
+            return (value == null) ? n : literal(value);
+        }
+        if (n instanceof ASTnumber) {
+            // Parsed once here instead of on every evaluation.
+            Object text = ((SimpleNode) n).jjtGetValue();
+            if (text instanceof String) {
+                ((SimpleNode) n).jjtSetValue(VNMNumbers.parse((String) text));
+            }
+            return n;
+        }
+        if (n instanceof ASTfn_decl) {
+            return n;
+        }
+        if (n instanceof ASTfn_call || n instanceof ASTboolean_call) {
+            // Child 0 is the function's name, not a variable.
+            for (int i = 1; i < n.jjtGetNumChildren(); i++) {
+                replace(n, i, expression(n.jjtGetChild(i), f));
+            }
+            f.killGlobals();
+            return n;
+        }
+        if (n instanceof ASTand || n instanceof ASTor) {
+            replace(n, 0, expression(n.jjtGetChild(0), f));
+            Object left = constant(n.jjtGetChild(0));
+            if (left instanceof Boolean && ((Boolean) left).booleanValue() == (n instanceof ASTor)) {
+                // The right side never runs.
+                return literal(left);
+            }
+            replace(n, 1, expression(n.jjtGetChild(1), f));
+            return fold(n);
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            replace(n, i, expression(n.jjtGetChild(i), f));
+        }
+        return fold(n);
+    }
+
+    // An operator whose operands are all constants becomes its value.
+    private Node fold(Node n) {
+        if (!(n instanceof ASTsum || n instanceof ASTpos || n instanceof ASTneg
+              || n instanceof ASTmul || n instanceof ASTdiv || n instanceof ASTmod
+              || n instanceof ASTcomparison || n instanceof ASTnot
+              || n instanceof ASTand || n instanceof ASTor)) {
+            return n;
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            // Child 1 of a comparison is the comparator.
+            if (!(n instanceof ASTcomparison && i == 1) && !isConstant(n.jjtGetChild(i))) {
+                return n;
+            }
+        }
+        Object value;
+        try {
+            value = n.jjtAccept(evaluator, null);
+        } catch (Exception e) {
+            return n;
+        }
+        return (value instanceof Boolean || VNMNumbers.isNumber(value)) ? literal(value) : n;
+    }
+
+    // Constants, and ranges with constant bounds (for =in).
+    private static boolean isConstant(Node n) {
+        if (n instanceof ASTrange) {
+            return constant(n.jjtGetChild(0)) != null && constant(n.jjtGetChild(1)) != null;
+        }
+        return constant(n) != null;
+    }
+
+    // The value of a literal node, or null if it isn't one.
+    static Object constant(Node n) {
+        if (n instanceof ASTnumber) {
+            Object value = ((SimpleNode) n).jjtGetValue();
+            return (value instanceof String) ? VNMNumbers.parse((String) value) : value;
+        }
+        if (n instanceof ASTTRUE) {
+            return Boolean.TRUE;
+        }
+        if (n instanceof ASTFALSE) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    // A node standing for a number or boolean value.
+    static SimpleNode literal(Object value) {
+        if (Boolean.TRUE.equals(value)) {
+            return new ASTTRUE(VNMTreeConstants.JJTTRUE);
+        }
+        if (Boolean.FALSE.equals(value)) {
+            return new ASTFALSE(VNMTreeConstants.JJTFALSE);
+        }
+        SimpleNode number = new ASTnumber(VNMTreeConstants.JJTNUMBER);
+        number.jjtSetValue(value);
+        return number;
+    }
+
+    private static SimpleNode nothing() {
+        return new ASTNULL(VNMTreeConstants.JJTNULL);
+    }
+
+    static void replace(Node parent, int i, Node child) {
+        if (parent.jjtGetChild(i) != child) {
+            parent.jjtAddChild(child, i);
+            child.jjtSetParent(parent);
+        }
+    }
+
+    private static VNMVarRef ref(Node n) {
+        if (n instanceof ASTidvec) {
+            return null;
+        }
+        Object ref = ((SimpleNode) n).jjtGetValue();
+        return (ref instanceof VNMVarRef) ? (VNMVarRef) ref : null;
+    }
+
+    /* =======================
+       WHAT IS KNOWN
+       ======================= */
+
+    // The constant each number or boolean variable holds at this point, for
+    // the ones that are known. Names are enough: inside one body a name
+    // always means the same slot.
+    private static final class Facts {
+        final HashMap<String, Object> locals = new HashMap<String, Object>();
+        final HashMap<String, Object> globals = new HashMap<String, Object>();
+
+        Object get(VNMVarRef ref) {
+            return (ref.local ? locals : globals).get(ref.name);
+        }
+
+        void set(VNMVarRef ref, Object value) {
+            (ref.local ? locals : globals).put(ref.name, value);
+        }
+
+        void kill(VNMVarRef ref) {
+            (ref.local ? locals : globals).remove(ref.name);
+        }
+
+        void killGlobals() {
+            globals.clear();
+        }
+
+        Facts copy() {
+            Facts copy = new Facts();
+            copy.locals.putAll(locals);
+            copy.globals.putAll(globals);
+            return copy;
+        }
+
+        // Keeps what other agrees with.
+        void retain(Facts other) {
+            retain(locals, other.locals);
+            retain(globals, other.globals);
+        }
+
+        private static void retain(HashMap<String, Object> mine, HashMap<String, Object> theirs) {
+            Iterator<Map.Entry<String, Object>> it = mine.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Object> e = it.next();
+                if (!e.getValue().equals(theirs.get(e.getKey()))) {
+                    it.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+import java.util.Arrays;
+
+/**
+ * Local variable storage for one active function call.
+ *
+ * Frames are not created per call. The evaluator keeps one frame per call
+ * depth and reuses it every time a call happens at that depth, so the slot
+ * array is only reallocated when a bigger function shows up.
+ */
+public class VNMFrame {
+
+    public Object[] slots = new Object[8];
+
+    // The function currently using this frame.
+    public VNMFunction function;
+
+    // Gets the frame ready for a call to fn.
+    public void enter(VNMFunction fn) {
+        if (slots.length < fn.frameSize) {
+            slots = new Object[Math.max(fn.frameSize, slots.length * 2)];
+        }
+        function = fn;
+    }
+
+    // Drops references to the locals so they can be collected, and
+    // forgets the function. Vectors held by locals give up their share of
+    // their storage, so the caller's copies can be written in place again.
+    public void exit() {
+        if (function != null) {
+            clear();
+            function = null;
+        }
+    }
+
+    // Empties the local slots, e.g. before a tail call reruns the body.
+    public void clear() {
+        for (int i = 0; i < function.frameSize; i++) {
+            if (slots[i] instanceof VNMVector) {
+                ((VNMVector) slots[i]).release();
+            }
+        }
+        Arrays.fill(slots, 0, function.frameSize, null);
+    }
+}
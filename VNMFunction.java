@@ -0,0 +1,47 @@
+/**
+ * One declared VNM FUNCTION.
+ *
+ * Everything here is worked out once, when the FUNCTION statement runs:
+ * which slot each parameter and local lives in, how big the frame has to be,
+ * which RETURN statements are self-recursive tail calls, and whether it is a
+ * generator.
+ */
+public class VNMFunction {
+
+    public final String name;
+
+    // Position of this function in the VNMFunctionTable. Call sites store
+    // this number instead of the name.
+    public final int index;
+
+    // The fn_decl node this came from and its body.
+    public final SimpleNode decl;
+    public final SimpleNode body;
+
+    // Parameter slots, in declaration order.
+    public final VNMVarRef[] params;
+
+    // Number of frame slots needed (parameters + VAR locals).
+    public int frameSize;
+
+    // True if the body uses YIELD. Calls then run it as a VNMGenerator.
+    public boolean generator;
+
+    public VNMFunction(String name, int index, SimpleNode decl, SimpleNode body, VNMVarRef[] params) {
+        this.name = name;
+        this.index = index;
+        this.decl = decl;
+        this.body = body;
+        this.params = params;
+    }
+
+    // If the body falls off the end without a RETURN, I hand back the
+    // "zero" value for the function's type, based on its name prefix.
+    public Object defaultResult() {
+        return VNMEval.defaultValue(name);
+    }
+
+    public String toString() {
+        return "FUNCTION " + name + "/" + params.length;
+    }
+}
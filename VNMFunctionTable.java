@@ -0,0 +1,103 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Table of declared functions.
+ *
+ * Names are mapped to a fixed index the first time they are seen, either at
+ * a declaration or at a call site. Calls then just index into the list.
+ * A call that is resolved before its function is declared (mutual recursion,
+ * or a function declared later in the script) simply gets an empty entry
+ * that is filled in when the declaration runs.
+ *
+ * Every index also has a VNMMemo, which outlives redefinitions so a #memo
+ * setting for a name keeps applying. The version goes up with every
+ * declaration, since a new definition can change what any memoized
+ * function returns.
+ *
+ * Calls to every index are counted too, when vnm.inline.profile is set
+ * (see VNMInliner). The counts outlive redefinitions the same way.
+ */
+public class VNMFunctionTable {
+
+    private final HashMap<String, Integer> indexByName = new HashMap<String, Integer>();
+    private final ArrayList<VNMFunction> functions = new ArrayList<VNMFunction>();
+    private final ArrayList<VNMMemo> memos = new ArrayList<VNMMemo>();
+    private final ArrayList<AtomicLong> calls = new ArrayList<AtomicLong>();
+    private volatile int version;
+
+    // A copy of the table as it is now, for a task started with SPAWN, so
+    // FUNCTIONs declared while it runs don't change what it calls. The
+    // memo tables start out empty, with the same settings. Calls the task
+    // makes are counted with this table's.
+    public VNMFunctionTable snapshot() {
+        VNMFunctionTable copy = new VNMFunctionTable();
+        copy.indexByName.putAll(indexByName);
+        copy.functions.addAll(functions);
+        for (VNMMemo memo : memos) {
+            copy.memos.add(memo.copy());
+        }
+        copy.calls.addAll(calls);
+        return copy;
+    }
+
+    // Returns the index for this name, reserving a new (empty) entry if needed.
+    public int indexOf(String name) {
+        Integer index = indexByName.get(name);
+        if (index == null) {
+            index = Integer.valueOf(functions.size());
+            indexByName.put(name, index);
+            functions.add(null);
+            memos.add(new VNMMemo());
+            calls.add(new AtomicLong());
+        }
+        return index.intValue();
+    }
+
+    // Installs (or replaces) the function at its index.
+    public void define(VNMFunction fn) {
+        functions.set(fn.index, fn);
+        version++;
+    }
+
+    // Returns the function at this index, or null if it was never declared.
+    public VNMFunction get(int index) {
+        return functions.get(index);
+    }
+
+    public VNMFunction lookup(String name) {
+        Integer index = indexByName.get(name);
+        return index == null ? null : functions.get(index.intValue());
+    }
+
+    public VNMMemo memo(int index) {
+        return memos.get(index);
+    }
+
+    public void count(int index) {
+        calls.get(index).incrementAndGet();
+    }
+
+    // Calls counted so far, by name, for the names that were called.
+    public TreeMap<String, Long> callCounts() {
+        TreeMap<String, Long> counts = new TreeMap<String, Long>();
+        for (Map.Entry<String, Integer> e : indexByName.entrySet()) {
+            long n = calls.get(e.getValue().intValue()).get();
+            if (n > 0) {
+                counts.put(e.getKey(), Long.valueOf(n));
+            }
+        }
+        return counts;
+    }
+
+    public int version() {
+        return version;
+    }
+
+    public int size() {
+        return functions.size();
+    }
+}
@@ -0,0 +1,330 @@
+import java.util.ArrayList;
+
+/**
+ * A running call to a FUNCTION that uses YIELD.
+ *
+ * FOR pulls the elements one at a time with next(). The body runs up to the
+ * next YIELD and stops there, and the following next() carries on from the
+ * same spot. No thread is involved and no Java stack is kept around either:
+ * the generator walks its own statements, keeping its place in every
+ * enclosing statement list and loop on a small stack of steps, so stopping
+ * is just returning. Conditions, expressions and the other statements are
+ * handed to the evaluator as usual, which is why YIELD is a statement and
+ * can't appear inside an expression.
+ *
+ * The generator has a frame of its own, outside the evaluator's pool, since
+ * it outlives the call that made it. VNMEval.resume() puts that frame on
+ * top of the call stack while the body runs.
+ *
+ * Called anywhere else than at the top of a FOR, a generator is run to the
+ * end and its elements are collected into a vector (see drain()). YIELD of
+ * a vector hands out each of its elements, and RETURN ends the generator
+ * after handing out its value the same way, so RETURN [] just stops.
+ */
+public final class VNMGenerator {
+
+    private static final int BLOCK = 0, WHILE = 1, FOR = 2;
+
+    // One enclosing statement list or loop the body is inside of.
+    private static final class Step {
+        final int kind;
+        final SimpleNode node;
+
+        // BLOCK: the next statement. FOR: the next item of the exp_list.
+        int next;
+
+        // FOR: what is left of the current item.
+        Cursor values;
+
+        Step(int kind, SimpleNode node) {
+            this.kind = kind;
+            this.node = node;
+        }
+    }
+
+    private final VNMEval evaluator;
+    final VNMFunction function;
+    final VNMFrame frame;
+
+    private final ArrayList<Step> steps = new ArrayList<Step>();
+
+    // Elements of a YIELDed (or RETURNed) vector not handed out yet.
+    private Cursor pending;
+
+    private boolean finished;
+
+    VNMGenerator(VNMEval evaluator, VNMFunction function, VNMFrame frame) {
+        this.evaluator = evaluator;
+        this.function = function;
+        this.frame = frame;
+        steps.add(new Step(BLOCK, function.body));
+    }
+
+    // The next element, or null once the body is done.
+    public Object next() throws Exception {
+        if (pending != null) {
+            Object value = pending.next();
+            if (value != null) {
+                return value;
+            }
+            pending.close();
+            pending = null;
+        }
+        if (finished) {
+            return null;
+        }
+        return evaluator.resume(this);
+    }
+
+    // Runs the generator to the end, collecting every element.
+    public VNMIntVector drain() throws Exception {
+        VNMIntVector result = new VNMIntVector();
+        try {
+            for (Object value = next(); value != null; value = next()) {
+                result.append(VNMNumbers.toInt(value));
+            }
+        } finally {
+            close();
+        }
+        result.trim();
+        return result;
+    }
+
+    // Stops the generator wherever it is, e.g. when the FOR pulling from it
+    // RETURNs, and lets go of its locals.
+    public void close() {
+        if (pending != null) {
+            pending.close();
+            pending = null;
+        }
+        finish();
+    }
+
+    private void finish() {
+        for (Step step : steps) {
+            if (step.values != null) {
+                step.values.close();
+                step.values = null;
+            }
+        }
+        steps.clear();
+        if (!finished) {
+            finished = true;
+            frame.exit();
+        }
+    }
+
+    /* =======================
+       RUNNING THE BODY
+       ======================= */
+
+    // Runs from where the body stopped up to its next element. Only called
+    // by VNMEval.resume(), with this generator's frame current.
+    Object run() throws Exception {
+        try {
+            while (!steps.isEmpty()) {
+                Object value = advance(steps.get(steps.size() - 1));
+                if (value != null) {
+                    return value;
+                }
+            }
+        } catch (Exception | Error e) {
+            close();
+            throw e;
+        }
+        finish();
+        return null;
+    }
+
+    // Takes one step in the innermost statement list or loop. Returns an
+    // element if that step produced one.
+    private Object advance(Step step) throws Exception {
+        SimpleNode node = step.node;
+        switch (step.kind) {
+            case BLOCK:
+                if (step.next == node.jjtGetNumChildren()) {
+                    steps.remove(steps.size() - 1);
+                    return null;
+                }
+                return execute((SimpleNode) node.jjtGetChild(step.next++));
+
+            case WHILE:
+                if (evaluator.test(node.jjtGetChild(0))) {
+                    steps.add(new Step(BLOCK, (SimpleNode) node.jjtGetChild(1)));
+                } else {
+                    steps.remove(steps.size() - 1);
+                }
+                return null;
+
+            default: {
+                // FOR: the next value from the current item, moving on to
+                // the following items as they run out.
+                SimpleNode items = (SimpleNode) node.jjtGetChild(1);
+                Object value = (step.values != null) ? step.values.next() : null;
+                while (value == null) {
+                    if (step.values != null) {
+                        step.values.close();
+                        step.values = null;
+                    }
+                    if (step.next == items.jjtGetNumChildren()) {
+                        steps.remove(steps.size() - 1);
+                        return null;
+                    }
+                    step.values = forValues(items.jjtGetChild(step.next++));
+                    value = step.values.next();
+                }
+                evaluator.assign((SimpleNode) node.jjtGetChild(0), value);
+                steps.add(new Step(BLOCK, (SimpleNode) node.jjtGetChild(2)));
+                return null;
+            }
+        }
+    }
+
+    // Runs one statement of the body, or enters it if it is a loop or an IF.
+    private Object execute(SimpleNode statement) throws Exception {
+        if (statement instanceof ASTIf) {
+            if (evaluator.test(statement.jjtGetChild(0))) {
+                return execute((SimpleNode) statement.jjtGetChild(1));
+            }
+            if (statement.jjtGetNumChildren() > 2) {
+                return execute((SimpleNode) statement.jjtGetChild(2));
+            }
+            return null;
+        }
+        if (statement instanceof ASTclause || statement instanceof ASTbody) {
+            steps.add(new Step(BLOCK, statement));
+            return null;
+        }
+        if (statement instanceof ASTWhile) {
+            steps.add(new Step(WHILE, statement));
+            return null;
+        }
+        // A PARFOR that YIELDs can only run one iteration at a time.
+        if (statement instanceof ASTFor || (statement instanceof ASTParfor && VNMResolver.yields(statement))) {
+            steps.add(new Step(FOR, statement));
+            return null;
+        }
+        if (statement instanceof ASTYield) {
+            Object value = evaluator.value(statement.jjtGetChild(0));
+            if (value instanceof Integer) {
+                return value;
+            }
+            return handOut(yieldValues(value));
+        }
+        if (statement instanceof ASTReturn) {
+            Object value = evaluator.value(statement.jjtGetChild(0));
+            Cursor rest = yieldValues(value);
+            finish();
+            return handOut(rest);
+        }
+        evaluator.value(statement);
+        return null;
+    }
+
+    // Starts handing out the elements of a YIELDed vector.
+    private Object handOut(Cursor values) throws Exception {
+        Object first = values.next();
+        if (first == null) {
+            values.close();
+        } else {
+            pending = values;
+        }
+        return first;
+    }
+
+    /* =======================
+       CURSORS
+       ======================= */
+
+    // The values of one FOR item: a nested generator is pulled from as it
+    // goes, anything else is evaluated up front.
+    private Cursor forValues(Node item) throws Exception {
+        VNMGenerator nested = evaluator.generatorCall(item);
+        if (nested != null) {
+            return new Cursor(nested);
+        }
+        Object value = evaluator.value(item);
+        if (value instanceof VNMPipeline) {
+            return new Cursor(((VNMPipeline) value).iterate(evaluator));
+        }
+        if (value instanceof VNMBoolVector) {
+            throw new Exception("FOR can only loop over numeric vectors");
+        }
+        if (value instanceof String) {
+            throw new Exception("FOR cannot loop over a string");
+        }
+        return new Cursor(value);
+    }
+
+    private Cursor yieldValues(Object value) throws Exception {
+        if (value instanceof VNMBoolVector) {
+            throw new Exception("YIELD needs a number or a numeric vector");
+        }
+        return new Cursor(value);
+    }
+
+    // Hands out the elements of a range, a vector (a snapshot of it, like
+    // FOR takes), a single number, another generator or a pipeline, one
+    // at a time.
+    private static final class Cursor {
+        private VNMRange range;
+        private VNMIntVector vector;
+        private boolean ownsVector;
+        private VNMGenerator generator;
+        private VNMPipeline.Iter pipeline;
+        private Object single;
+        private long at;
+
+        Cursor(VNMGenerator generator) {
+            this.generator = generator;
+        }
+
+        Cursor(VNMPipeline.Iter pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        Cursor(Object value) {
+            if (value instanceof VNMRange) {
+                range = (VNMRange) value;
+                at = range.lo;
+            } else if (value instanceof VNMIntVector) {
+                vector = (VNMIntVector) VNMEval.detach(value);
+                ownsVector = vector != value;
+            } else {
+                single = value;
+            }
+        }
+
+        // The next value, or null at the end.
+        Object next() throws Exception {
+            if (generator != null) {
+                return generator.next();
+            }
+            if (pipeline != null) {
+                return pipeline.next();
+            }
+            if (range != null) {
+                return (at <= range.hi) ? Integer.valueOf((int) at++) : null;
+            }
+            if (vector != null) {
+                return (at < vector.length()) ? Integer.valueOf(vector.getInt((int) at++)) : null;
+            }
+            Object value = single;
+            single = null;
+            return value;
+        }
+
+        void close() {
+            if (generator != null) {
+                generator.close();
+            }
+            if (pipeline != null) {
+                pipeline.close();
+            }
+            if (ownsVector) {
+                vector.release();
+                ownsVector = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * What VNMInliner left on a call to a small FUNCTION: a copy of its body.
+ *
+ * The copy reads and writes slots of the caller's (globals at top level,
+ * frame slots in a FUNCTION) instead of a frame of its own: params[i] gets
+ * the i-th argument, and slots lists every slot the copy uses, params
+ * included, so they can be emptied after each call the way a frame is.
+ * statements are the body without its last RETURN, and result is what
+ * that RETURN returned (null if the body has none).
+ *
+ * The copy is only good while fn is what the table holds at index. The
+ * evaluator checks that on every call and otherwise calls the FUNCTION as
+ * usual.
+ */
+public final class VNMInline {
+
+    public final Integer index;
+    public final VNMFunction fn;
+    public final VNMVarRef[] params;
+    public final VNMVarRef[] slots;
+    public final Node[] statements;
+    public final Node result;
+
+    public VNMInline(Integer index, VNMFunction fn, VNMVarRef[] params, VNMVarRef[] slots,
+                     Node[] statements, Node result) {
+        this.index = index;
+        this.fn = fn;
+        this.params = params;
+        this.slots = slots;
+        this.statements = statements;
+        this.result = result;
+    }
+
+    public String toString() {
+        return "inlined " + fn;
+    }
+}
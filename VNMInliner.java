@@ -0,0 +1,387 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Inlining of small FUNCTIONs at their call sites.
+ *
+ * Runs right after VNMResolver, before VNMFolder and VNMLoops: on each
+ * top-level statement, and on a FUNCTION body when it is declared. A call
+ * to a FUNCTION that is already declared gets a copy of that FUNCTION's
+ * body (see VNMInline) if:
+ *
+ *   - it isn't recursive, doesn't YIELD, and its results aren't
+ *     remembered (VNMMemo), and the call passes as many arguments as it
+ *     takes;
+ *   - its body is straight-line code: no loops, no FUNCTION declarations,
+ *     and no RETURN but the last statement;
+ *   - the body has at most vnm.inline.size nodes, and the statement or
+ *     body the call is in has taken in fewer than vnm.inline.budget nodes
+ *     so far.
+ *
+ * The copy's parameters and locals are renamed into fresh slots of the
+ * caller (#x becomes #x~N): globals at top level, frame slots in a
+ * FUNCTION. Calls the body makes are copied as they are, inlined or not.
+ *
+ * With -Dvnm.inline.profile=file, every run writes how often each FUNCTION
+ * was called to that file. If the file is already there when the run
+ * starts, only FUNCTIONs called at least vnm.inline.hot times in it are
+ * inlined, the most called first; otherwise size alone decides.
+ * -Dvnm.inline.debug=true prints each decision, and each copy made, to
+ * stderr.
+ *
+ * Runs unless -Dvnm.optimize=false or -Dvnm.optimize.inline=false.
+ */
+public final class VNMInliner {
+
+    private final VNMEval evaluator;
+    private final VNMFunctionTable functions;
+
+    // Calls per FUNCTION name in the profile, or null if there is none.
+    private final HashMap<String, Long> profile;
+
+    // Numbers the fresh slots' names.
+    private final AtomicInteger made = new AtomicInteger();
+
+    public VNMInliner(VNMEval evaluator, VNMFunctionTable functions) {
+        this.evaluator = evaluator;
+        this.functions = functions;
+        this.profile = load(VNMConfig.INLINE_PROFILE);
+    }
+
+    /* =======================
+       ENTRY POINTS
+       ======================= */
+
+    public void topLevel(SimpleNode tree) {
+        inline(tree, null);
+    }
+
+    public void function(VNMFunction fn) {
+        inline(fn.body, fn);
+    }
+
+    // Call sites are taken in the order they appear, or with a profile the
+    // most called FUNCTIONs first, until the budget runs out.
+    private void inline(Node tree, VNMFunction caller) {
+        ArrayList<SimpleNode> calls = new ArrayList<SimpleNode>();
+        collect(tree, calls);
+        if (profile != null) {
+            calls.sort((a, b) -> Long.compare(calls(callee(b)), calls(callee(a))));
+        }
+        int budget = VNMConfig.INLINE_BUDGET;
+        for (SimpleNode call : calls) {
+            VNMFunction callee = callee(call);
+            String why = refuse(call, callee, caller);
+            int size = (why == null) ? size(callee.body) : 0;
+            if (why == null && size > VNMConfig.INLINE_SIZE) {
+                why = "it has " + size + " nodes";
+            } else if (why == null && size > budget) {
+                why = "only " + budget + " of " + VNMConfig.INLINE_BUDGET + " nodes are left";
+            }
+            if (why != null) {
+                report("not " + VNMResolver.nameOf(call.jjtGetChild(0)) + " into " + where(caller)
+                       + ": " + why, null);
+                continue;
+            }
+            VNMInline copy = copy(call, callee, caller);
+            call.jjtSetValue(copy);
+            budget -= size;
+            report(callee + " into " + where(caller) + ", " + size + " nodes, "
+                   + budget + " of " + VNMConfig.INLINE_BUDGET + " left", copy);
+        }
+    }
+
+    // Calls to FUNCTIONs, outside nested declarations. A SPAWNed call has
+    // to stay a call.
+    private static void collect(Node n, ArrayList<SimpleNode> calls) {
+        if (n instanceof ASTfn_decl) {
+            return;
+        }
+        if ((n instanceof ASTfn_call || n instanceof ASTboolean_call)
+                && ((SimpleNode) n).jjtGetValue() instanceof Integer
+                && !(n.jjtGetParent() instanceof ASTSpawn)) {
+            calls.add((SimpleNode) n);
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            collect(n.jjtGetChild(i), calls);
+        }
+    }
+
+    private VNMFunction callee(SimpleNode call) {
+        return functions.get(((Integer) call.jjtGetValue()).intValue());
+    }
+
+    // Why this call can't be inlined, or null if it can.
+    private String refuse(SimpleNode call, VNMFunction callee, VNMFunction caller) {
+        if (callee == null) {
+            return "it is not declared yet";
+        }
+        if (callee.generator) {
+            return "it uses YIELD";
+        }
+        int argc = (call.jjtGetNumChildren() > 1) ? call.jjtGetChild(1).jjtGetNumChildren() : 0;
+        if (argc != callee.params.length) {
+            return "it takes " + callee.params.length + " argument(s), not " + argc;
+        }
+        if ((caller != null && (callee.name.equals(caller.name) || calls(callee.body, caller.name)))
+                || VNMEffects.isRecursive(callee, functions)) {
+            return "it is recursive";
+        }
+        if (functions.memo(callee.index).isOn(callee, functions)) {
+            return "its results are remembered";
+        }
+        int last = callee.body.jjtGetNumChildren() - 1;
+        for (int i = 0; i <= last; i++) {
+            Node statement = callee.body.jjtGetChild(i);
+            if (i == last && statement instanceof ASTReturn && statement.jjtGetNumChildren() == 1) {
+                statement = statement.jjtGetChild(0);
+            }
+            if (!straight(statement)) {
+                return "its body has a loop, a FUNCTION or a RETURN before the end";
+            }
+        }
+        if (profile != null && calls(callee) < VNMConfig.INLINE_HOT) {
+            return "the profile has " + calls(callee) + " calls";
+        }
+        return null;
+    }
+
+    private static boolean straight(Node n) {
+        if (n instanceof ASTReturn || n instanceof ASTWhile || n instanceof ASTFor
+                || n instanceof ASTParfor || n instanceof ASTfn_decl || n instanceof ASTYield) {
+            return false;
+        }
+        Object value = ((SimpleNode) n).jjtGetValue();
+        if ((value instanceof VNMTemp && !(value instanceof VNMShared)) || value instanceof VNMLoop) {
+            return false;
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            if (!straight(n.jjtGetChild(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // True if a call in n goes to the FUNCTION with this name.
+    private static boolean calls(Node n, String name) {
+        if ((n instanceof ASTfn_call || n instanceof ASTboolean_call)
+                && VNMResolver.nameOf(n.jjtGetChild(0)).equals(name)) {
+            return true;
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            if (calls(n.jjtGetChild(i), name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Nodes in a tree, counting what copies inside it stand for.
+    private static int size(Node n) {
+        int size = 1;
+        Object value = ((SimpleNode) n).jjtGetValue();
+        if (value instanceof VNMInline) {
+            VNMInline in = (VNMInline) value;
+            for (Node statement : in.statements) {
+                size += size(statement);
+            }
+            size += (in.result == null) ? 0 : size(in.result);
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            size += size(n.jjtGetChild(i));
+        }
+        return size;
+    }
+
+    /* =======================
+       COPYING
+       ======================= */
+
+    private VNMInline copy(SimpleNode call, VNMFunction callee, VNMFunction caller) {
+        LinkedHashMap<Integer, VNMVarRef> renamed = new LinkedHashMap<Integer, VNMVarRef>();
+        VNMVarRef[] params = new VNMVarRef[callee.params.length];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = rename(callee.params[i], renamed, caller);
+        }
+        SimpleNode body = callee.body;
+        int n = body.jjtGetNumChildren();
+        Node result = null;
+        if (n > 0 && body.jjtGetChild(n - 1) instanceof ASTReturn) {
+            n--;
+            result = copy(body.jjtGetChild(n).jjtGetChild(0), call, renamed, caller);
+        }
+        Node[] statements = new Node[n];
+        for (int i = 0; i < n; i++) {
+            statements[i] = copy(body.jjtGetChild(i), call, renamed, caller);
+        }
+        return new VNMInline((Integer) call.jjtGetValue(), callee, params,
+                             renamed.values().toArray(new VNMVarRef[0]), statements, result);
+    }
+
+    private Node copy(Node n, Node parent, Map<Integer, VNMVarRef> renamed, VNMFunction caller) {
+        SimpleNode original = (SimpleNode) n;
+        SimpleNode copy = blank(original);
+        Object value = original.jjtGetValue();
+        if (value instanceof VNMShared) {
+            // The copy fills and reads the caller's slot the same way.
+            VNMVarRef slot = rename((VNMVarRef) value, renamed, caller);
+            value = (value instanceof VNMFirst) ? new VNMFirst(slot.name, slot.local, slot.index)
+                                                : new VNMShared(slot.name, slot.local, slot.index);
+        } else if (value instanceof VNMVarRef) {
+            value = rename((VNMVarRef) value, renamed, caller);
+        } else if (value instanceof VNMSwitch) {
+            // It points into the callee's body; the copy's IF runs as
+            // written.
+            value = null;
+        } else if (value instanceof VNMInline) {
+            // A call the callee had inlined: its slots were the callee's
+            // locals, so they move too.
+            VNMInline in = (VNMInline) value;
+            VNMVarRef[] params = new VNMVarRef[in.params.length];
+            for (int i = 0; i < params.length; i++) {
+                params[i] = rename(in.params[i], renamed, caller);
+            }
+            VNMVarRef[] slots = new VNMVarRef[in.slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = rename(in.slots[i], renamed, caller);
+            }
+            Node[] statements = new Node[in.statements.length];
+            for (int i = 0; i < statements.length; i++) {
+                statements[i] = copy(in.statements[i], copy, renamed, caller);
+            }
+            Node result = (in.result == null) ? null : copy(in.result, copy, renamed, caller);
+            value = new VNMInline(in.index, in.fn, params, slots, statements, result);
+        }
+        copy.jjtSetValue(value);
+        copy.jjtSetParent(parent);
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            copy.jjtAddChild(copy(n.jjtGetChild(i), copy, renamed, caller), i);
+        }
+        return copy;
+    }
+
+    // Every AST class has a constructor taking its id.
+    private static SimpleNode blank(SimpleNode n) {
+        try {
+            return n.getClass().getConstructor(int.class).newInstance(Integer.valueOf(n.getId()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot copy a " + n, e);
+        }
+    }
+
+    // The caller's slot for one of the callee's locals; globals stay put.
+    private VNMVarRef rename(VNMVarRef ref, Map<Integer, VNMVarRef> renamed, VNMFunction caller) {
+        if (!ref.local) {
+            return ref;
+        }
+        Integer slot = Integer.valueOf(ref.index);
+        VNMVarRef fresh = renamed.get(slot);
+        if (fresh == null) {
+            // The name keeps its prefix, which VAR and RETURN go by.
+            String name = ref.name + "~" + made.incrementAndGet();
+            fresh = (caller != null) ? new VNMVarRef(name, true, caller.frameSize++)
+                                     : new VNMVarRef(name, false, evaluator.globalSlot(name));
+            renamed.put(slot, fresh);
+        }
+        return fresh;
+    }
+
+    /* =======================
+       PROFILE AND DEBUG OUTPUT
+       ======================= */
+
+    private long calls(VNMFunction fn) {
+        Long calls = (fn == null) ? null : profile.get(fn.name);
+        return (calls == null) ? 0 : calls.longValue();
+    }
+
+    // Reads the "name calls" lines an earlier run wrote. A missing file
+    // just means there is no profile yet.
+    private static HashMap<String, Long> load(String file) {
+        if (file == null || !Files.isRegularFile(Paths.get(file))) {
+            return null;
+        }
+        HashMap<String, Long> calls = new HashMap<String, Long>();
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(file))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length == 2) {
+                    try {
+                        calls.put(parts[0], Long.valueOf(parts[1]));
+                    } catch (NumberFormatException e) {
+                        // Not a count; skipped.
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Ignoring vnm.inline.profile=" + file + ": " + e.getMessage());
+            return null;
+        }
+        return calls;
+    }
+
+    // Writes the calls counted in this run, for the next one.
+    static void save(VNMFunctionTable functions) {
+        String file = VNMConfig.INLINE_PROFILE;
+        if (file == null) {
+            return;
+        }
+        Path path = Paths.get(file);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            for (Map.Entry<String, Long> e : functions.callCounts().entrySet()) {
+                out.println(e.getKey() + " " + e.getValue());
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write vnm.inline.profile=" + file + ": " + e.getMessage());
+        }
+    }
+
+    private static String where(VNMFunction caller) {
+        return (caller == null) ? "top level" : caller.toString();
+    }
+
+    private static void report(String decision, VNMInline copy) {
+        if (!VNMConfig.INLINE_DEBUG) {
+            return;
+        }
+        StringBuilder text = new StringBuilder("inline: ").append(decision).append('\n');
+        if (copy != null) {
+            text.append("  params");
+            for (VNMVarRef param : copy.params) {
+                text.append(' ').append(param);
+            }
+            text.append('\n');
+            for (Node statement : copy.statements) {
+                dump(statement, "  ", text);
+            }
+            if (copy.result != null) {
+                text.append("  result\n");
+                dump(copy.result, "   ", text);
+            }
+        }
+        System.err.print(text);
+    }
+
+    private static void dump(Node n, String indent, StringBuilder text) {
+        Object value = ((SimpleNode) n).jjtGetValue();
+        text.append(indent).append(VNMTreeConstants.jjtNodeName[((SimpleNode) n).getId()]);
+        if (value != null) {
+            text.append(' ').append(value);
+        }
+        text.append('\n');
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            dump(n.jjtGetChild(i), indent + " ", text);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Lookup structure behind =in / !in on a numeric vector.
+ *
+ * Built the first time a vector is searched, and kept on the vector until it
+ * is changed. Which structure gets built depends on the contents:
+ *
+ *   - values packed into a small range: a bitmap with one bit per possible value
+ *   - values already in ascending order: binary search on the elements, no copy
+ *     (on or off the heap)
+ *   - anything else: an open-addressing hash set of ints
+ *
+ * All of them answer without boxing. The index never changes after it is
+ * built, so sharing one between threads is safe.
+ */
+public final class VNMIntIndex {
+
+    // Vectors up to this length are just scanned; building an index doesn't pay.
+    public static final int SCAN_LIMIT = 8;
+
+    // A bitmap is used when it needs at most this many bits per element...
+    private static final int BITS_PER_ELEMENT = 32;
+    // ...and at most this many bits in total (8 MB).
+    private static final long MAX_BITMAP_BITS = 1L << 26;
+
+    private static final int BITMAP = 0, SORTED = 1, HASH = 2;
+
+    private final int kind;
+
+    // BITMAP: bit (v - min) is set for every element v.
+    private final long[] bits;
+    private final int min;
+    private final int max;
+
+    // SORTED: the elements themselves, from keys[base] (or store, for an
+    // off-heap vector). HASH: the table slots.
+    private final int[] keys;
+    private final VNMOffHeap store;
+    private final int base;
+    private final int count;
+
+    // HASH: 0 marks an empty slot, so whether 0 is present is kept separately.
+    private final boolean hasZero;
+    private final int mask;
+
+    private VNMIntIndex(int kind, long[] bits, int min, int max, int[] keys, VNMOffHeap store, int base, int count, boolean hasZero, int mask) {
+        this.kind = kind;
+        this.bits = bits;
+        this.min = min;
+        this.max = max;
+        this.keys = keys;
+        this.store = store;
+        this.base = base;
+        this.count = count;
+        this.hasZero = hasZero;
+        this.mask = mask;
+    }
+
+    // Picks and builds the right structure for the n values starting at
+    // elements[from]. The caller must not change them while the index is in use.
+    public static VNMIntIndex build(int[] elements, int from, int n, boolean knownSorted) {
+        return build(elements, null, from, n, knownSorted);
+    }
+
+    // Same, for the elements of an off-heap vector.
+    public static VNMIntIndex build(VNMOffHeap store, int from, int n, boolean knownSorted) {
+        return build(null, store, from, n, knownSorted);
+    }
+
+    private static int at(int[] elements, VNMOffHeap store, int i) {
+        return (elements != null) ? elements[i] : store.getInt(i);
+    }
+
+    private static VNMIntIndex build(int[] elements, VNMOffHeap store, int from, int n, boolean knownSorted) {
+        int lo = Integer.MAX_VALUE, hi = Integer.MIN_VALUE;
+        boolean sorted = true;
+        int end = from + n;
+        int previous = Integer.MIN_VALUE;
+        for (int i = from; i < end; i++) {
+            int v = at(elements, store, i);
+            if (v < lo) lo = v;
+            if (v > hi) hi = v;
+            if (v < previous) sorted = false;
+            previous = v;
+        }
+        if (n == 0) {
+            lo = 0;
+            hi = -1;
+        }
+
+        long span = (long) hi - (long) lo + 1;
+        if (n > 0 && span <= MAX_BITMAP_BITS && span <= (long) n * BITS_PER_ELEMENT) {
+            long[] bits = new long[(int) ((span + 63) >>> 6)];
+            for (int i = from; i < end; i++) {
+                int offset = at(elements, store, i) - lo;
+                bits[offset >>> 6] |= 1L << offset;
+            }
+            return new VNMIntIndex(BITMAP, bits, lo, hi, null, null, 0, 0, false, 0);
+        }
+
+        if (sorted || knownSorted) {
+            return new VNMIntIndex(SORTED, null, lo, hi, elements, store, from, n, false, 0);
+        }
+
+        // Hash set sized to stay at most half full.
+        int capacity = Integer.highestOneBit(Math.max(2, n) * 2 - 1) << 1;
+        int[] table = new int[capacity];
+        int tableMask = capacity - 1;
+        boolean zero = false;
+        for (int i = from; i < end; i++) {
+            int v = at(elements, store, i);
+            if (v == 0) {
+                zero = true;
+                continue;
+            }
+            int slot = mix(v) & tableMask;
+            while (table[slot] != 0 && table[slot] != v) {
+                slot = (slot + 1) & tableMask;
+            }
+            table[slot] = v;
+        }
+        return new VNMIntIndex(HASH, null, lo, hi, table, null, 0, n, zero, tableMask);
+    }
+
+    public boolean contains(int value) {
+        if (value < min || value > max) {
+            return false;
+        }
+        switch (kind) {
+            case BITMAP: {
+                int offset = value - min;
+                return (bits[offset >>> 6] & (1L << offset)) != 0;
+            }
+            case SORTED: {
+                int lo = base, hi = base + count - 1;
+                while (lo <= hi) {
+                    int mid = (lo + hi) >>> 1;
+                    int v = (keys != null) ? keys[mid] : store.getInt(mid);
+                    if (v < value) lo = mid + 1;
+                    else if (v > value) hi = mid - 1;
+                    else return true;
+                }
+                return false;
+            }
+            default: {
+                if (value == 0) {
+                    return hasZero;
+                }
+                int slot = mix(value) & mask;
+                while (true) {
+                    int v = keys[slot];
+                    if (v == value) return true;
+                    if (v == 0) return false;
+                    slot = (slot + 1) & mask;
+                }
+            }
+        }
+    }
+
+    // Spreads the bits so sequential keys don't pile up in neighbouring slots.
+    private static int mix(int v) {
+        int h = v * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
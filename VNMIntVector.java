@@ -0,0 +1,491 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Numeric vector backed by a plain int[].
+ *
+ * Most vectors in VNM scripts are tiny, so up to INLINE elements are kept in
+ * fields on the object itself and no array is allocated at all. Past that the
+ * elements move into an int[] that grows geometrically on append; trim()
+ * cuts the spare capacity off once a vector is finished being built.
+ *
+ * Huge vectors (see VNMConfig.OFFHEAP_BYTES) keep their elements in a
+ * VNMOffHeap store instead of the int[], so the garbage collector never
+ * copies or scans them. Only the storage methods below know the difference.
+ *
+ * The array may be shared with other handles (see VNMVector). Every method
+ * that writes calls beforeWrite() first, which copies the array if anyone
+ * else can see it. Inline vectors are never shared, share() just copies them.
+ *
+ * A slice (v_a[i..j]) is another handle on the same array that starts at
+ * offset and covers size elements, so taking one copies nothing and reading
+ * through it is the same array access as reading the whole vector.
+ *
+ * Membership tests (=in / !in) on longer vectors go through a VNMIntIndex
+ * that is built on the first test and thrown away whenever the vector changes.
+ */
+public final class VNMIntVector extends VNMVector {
+
+    public static final int INLINE = 4;
+
+    // Inline storage, used while data == null.
+    private int e0, e1, e2, e3;
+
+    // Array storage, used once the vector has outgrown the inline fields.
+    // Element i is data[offset + i].
+    private int[] data;
+    private int offset;
+
+    // Off-heap storage, used instead of data for huge vectors.
+    // Element i is store.getInt(offset + i).
+    private VNMOffHeap store;
+
+    private int size;
+
+    // True while the elements are known to be in ascending order.
+    private boolean sorted = true;
+
+    // Membership index, built on demand. Any change to the elements clears it.
+    private VNMIntIndex index;
+
+    public VNMIntVector() {
+    }
+
+    // Makes an empty vector with room for capacity elements.
+    public VNMIntVector(int capacity) {
+        if (capacity > INLINE) {
+            reallocate(capacity);
+        }
+    }
+
+    // Wraps an existing array without copying it. The vector owns the array
+    // afterwards. Arrays too big for the heap are copied off it instead.
+    public static VNMIntVector wrap(int[] values, int length) {
+        VNMIntVector v = new VNMIntVector();
+        if (length <= INLINE || VNMOffHeap.wanted((long) length << 2)) {
+            v.ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                v.append(values[i]);
+            }
+        } else {
+            v.data = values;
+            v.size = length;
+            v.sorted = false;
+        }
+        return v;
+    }
+
+    // A vector of n zeros, to be filled in with setInts().
+    public static VNMIntVector zeros(int n) {
+        VNMIntVector v = new VNMIntVector(n);
+        if (n <= INLINE) {
+            for (int i = 0; i < n; i++) {
+                v.append(0);
+            }
+        } else {
+            v.size = n;
+        }
+        return v;
+    }
+
+    // Wraps an off-heap store (e.g. a mapped file) holding length elements.
+    public static VNMIntVector wrap(VNMOffHeap store, int length) {
+        VNMIntVector v = new VNMIntVector();
+        v.store = store;
+        v.size = length;
+        v.sorted = false;
+        return v;
+    }
+
+    public int length() {
+        return size;
+    }
+
+    public boolean isBoolean() {
+        return false;
+    }
+
+    public Object get(int i) {
+        return Integer.valueOf(getInt(i));
+    }
+
+    public int getInt(int i) {
+        checkIndex(i);
+        if (data != null) {
+            return data[offset + i];
+        }
+        if (store != null) {
+            return store.getInt(offset + i);
+        }
+        switch (i) {
+            case 0:  return e0;
+            case 1:  return e1;
+            case 2:  return e2;
+            default: return e3;
+        }
+    }
+
+    public VNMIntVector share() {
+        VNMIntVector v = new VNMIntVector();
+        v.size = size;
+        v.sorted = sorted;
+        if (data == null && store == null) {
+            v.e0 = e0;
+            v.e1 = e1;
+            v.e2 = e2;
+            v.e3 = e3;
+        } else {
+            v.data = data;
+            v.store = store;
+            v.offset = offset;
+            v.index = index;
+            v.owners = addOwner();
+        }
+        return v;
+    }
+
+    // Elements from..to (both included) as a view on the same array.
+    // Small results are just copied into the inline fields.
+    public VNMIntVector slice(int from, int to) {
+        if (from < 0 || to >= size || to < from - 1) {
+            throw new IndexOutOfBoundsException("Slice " + from + ".." + to + " out of range for vector of length " + size);
+        }
+        int n = to - from + 1;
+        if ((data == null && store == null) || n <= INLINE) {
+            VNMIntVector v = new VNMIntVector();
+            for (int i = 0; i < n; i++) {
+                v.append(getInt(from + i));
+            }
+            return v;
+        }
+        VNMIntVector v = new VNMIntVector();
+        v.data = data;
+        v.store = store;
+        v.offset = offset + from;
+        v.size = n;
+        v.sorted = sorted;
+        v.owners = addOwner();
+        return v;
+    }
+
+    // Gives this handle its own copy of its elements, with room for at least
+    // capacity of them, if any other handle is still using the array.
+    private void beforeWrite(int capacity) {
+        index = null;
+        if ((data != null || store != null) && isShared()) {
+            reallocate(Math.max(size, capacity));
+            owners.decrementAndGet();
+            owners = null;
+        } else if (store != null && store.isReadOnly()) {
+            reallocate(Math.max(size, capacity));
+        }
+    }
+
+    // Room for elements from offset on, whichever storage is in use.
+    private int capacity() {
+        if (data != null) {
+            return data.length - offset;
+        }
+        if (store != null) {
+            return store.intCapacity() - offset;
+        }
+        return INLINE;
+    }
+
+    // Moves the elements into fresh storage with room for capacity of them.
+    // The size of the new storage decides whether it goes on or off the heap.
+    private void reallocate(int capacity) {
+        if (VNMOffHeap.wanted((long) capacity << 2)) {
+            VNMOffHeap fresh = new VNMOffHeap((long) capacity << 2);
+            if (store != null) {
+                VNMOffHeap.copyBytes(store, (long) offset << 2, fresh, 0, (long) size << 2);
+            } else if (data != null) {
+                fresh.putInts(0, data, offset, size);
+            } else {
+                for (int i = 0; i < size; i++) {
+                    fresh.putInt(i, getInt(i));
+                }
+            }
+            store = fresh;
+            data = null;
+        } else {
+            int[] fresh = new int[capacity];
+            if (data != null) {
+                System.arraycopy(data, offset, fresh, 0, size);
+            } else if (store != null) {
+                store.getInts(offset, fresh, 0, size);
+            } else {
+                for (int i = 0; i < size; i++) {
+                    fresh[i] = getInt(i);
+                }
+            }
+            data = fresh;
+            store = null;
+        }
+        offset = 0;
+    }
+
+    public void own() {
+        beforeWrite(size);
+    }
+
+    public void setInt(int i, int value) {
+        checkIndex(i);
+        beforeWrite(size);
+        sorted = false;
+        if (data != null) {
+            data[offset + i] = value;
+            return;
+        }
+        if (store != null) {
+            store.putInt(offset + i, value);
+            return;
+        }
+        switch (i) {
+            case 0:  e0 = value; break;
+            case 1:  e1 = value; break;
+            case 2:  e2 = value; break;
+            default: e3 = value; break;
+        }
+    }
+
+    public void append(int value) {
+        beforeWrite(size + 1);
+        if (size > 0 && value < getInt(size - 1)) {
+            sorted = false;
+        }
+        if (data == null && store == null) {
+            if (size < INLINE) {
+                size++;
+                switch (size) {
+                    case 1:  e0 = value; break;
+                    case 2:  e1 = value; break;
+                    case 3:  e2 = value; break;
+                    default: e3 = value; break;
+                }
+                return;
+            }
+            // Spill the inline fields into a real array.
+            reallocate(INLINE * 2);
+        } else if (size == capacity()) {
+            reallocate(grownCapacity(size, size + 1));
+        }
+        if (data != null) {
+            data[offset + size++] = value;
+        } else {
+            store.putInt(offset + size++, value);
+        }
+    }
+
+    // Appends every element of another numeric vector.
+    public void appendAll(VNMIntVector other) {
+        int n = other.size;
+        if (n == 0) {
+            return;
+        }
+        if (other.data != null || other.store != null) {
+            ensureCapacity(size + n);
+            if (data != null || store != null) {
+                sorted = sorted && other.sorted && (size == 0 || other.getInt(0) >= getInt(size - 1));
+                if (data != null && other.data != null) {
+                    System.arraycopy(other.data, other.offset, data, offset + size, n);
+                } else if (store != null && other.store != null) {
+                    VNMOffHeap.copyBytes(other.store, (long) other.offset << 2, store, (long) (offset + size) << 2, (long) n << 2);
+                } else if (store != null) {
+                    store.putInts(offset + size, other.data, other.offset, n);
+                } else {
+                    other.store.getInts(other.offset, data, offset + size, n);
+                }
+                size += n;
+                return;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            append(other.getInt(i));
+        }
+    }
+
+    // Appends n ints from an array, copying them in one go. The caller says
+    // whether they are in ascending order.
+    public void appendInts(int[] values, int from, int n, boolean ascending) {
+        if (n == 0) {
+            return;
+        }
+        ensureCapacity(size + n);
+        if (data == null && store == null) {
+            for (int i = 0; i < n; i++) {
+                append(values[from + i]);
+            }
+            return;
+        }
+        sorted = sorted && ascending && (size == 0 || values[from] >= getInt(size - 1));
+        if (data != null) {
+            System.arraycopy(values, from, data, offset + size, n);
+        } else {
+            store.putInts(offset + size, values, from, n);
+        }
+        size += n;
+    }
+
+    // Copies n elements, starting at element from, into dst.
+    public void getInts(int from, int[] dst, int dstOff, int n) {
+        if (from < 0 || n < 0 || from + n > size) {
+            throw new IndexOutOfBoundsException("Elements " + from + ".." + (from + n - 1) + " out of range for vector of length " + size);
+        }
+        if (data != null) {
+            System.arraycopy(data, offset + from, dst, dstOff, n);
+        } else if (store != null) {
+            store.getInts(offset + from, dst, dstOff, n);
+        } else {
+            for (int i = 0; i < n; i++) {
+                dst[dstOff + i] = getInt(from + i);
+            }
+        }
+    }
+
+    // Overwrites n elements, starting at element from, with values from src.
+    public void setInts(int from, int[] src, int srcOff, int n) {
+        if (from < 0 || n < 0 || from + n > size) {
+            throw new IndexOutOfBoundsException("Elements " + from + ".." + (from + n - 1) + " out of range for vector of length " + size);
+        }
+        beforeWrite(size);
+        sorted = false;
+        if (data != null) {
+            System.arraycopy(src, srcOff, data, offset + from, n);
+        } else if (store != null) {
+            store.putInts(offset + from, src, srcOff, n);
+        } else {
+            for (int i = 0; i < n; i++) {
+                setInt(from + i, src[srcOff + i]);
+            }
+        }
+    }
+
+    // The heap array holding the elements, starting at arrayOffset(), or
+    // null if they are inline or off-heap. Reading it is always fine;
+    // writing is only for the code that just created the vector.
+    public int[] array() {
+        return data;
+    }
+
+    public int arrayOffset() {
+        return offset;
+    }
+
+    // Makes sure the next appends up to needed elements won't reallocate.
+    public void ensureCapacity(int needed) {
+        beforeWrite(needed);
+        if (needed <= INLINE) {
+            return;
+        }
+        if (data == null && store == null) {
+            reallocate(needed);
+        } else if (needed > capacity()) {
+            reallocate(grownCapacity(size, needed));
+        }
+    }
+
+    // Drops unused capacity so a finished vector costs about 4 bytes per element.
+    public void trim() {
+        if ((data != null || store != null) && capacity() + offset > size && !isShared()) {
+            if (size <= INLINE) {
+                int[] old = toIntArray();
+                data = null;
+                store = null;
+                offset = 0;
+                size = 0;
+                index = null;
+                for (int i = 0; i < old.length; i++) {
+                    append(old[i]);
+                }
+            } else {
+                reallocate(size);
+                index = null;
+            }
+        }
+    }
+
+    // Records that the elements are in ascending order, e.g. for a range.
+    public void markSorted() {
+        sorted = true;
+    }
+
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    // =in: short vectors are scanned, longer ones build (or reuse) the index.
+    public boolean contains(int value) {
+        if (size <= VNMIntIndex.SCAN_LIMIT) {
+            for (int i = 0; i < size; i++) {
+                if (getInt(i) == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return index().contains(value);
+    }
+
+    // The membership index, built now if it hasn't been yet. Once built it
+    // can be used from any number of threads.
+    public VNMIntIndex index() {
+        VNMIntIndex idx = index;
+        if (idx == null) {
+            if (store != null) {
+                idx = VNMIntIndex.build(store, offset, size, sorted);
+            } else if (data != null) {
+                idx = VNMIntIndex.build(data, offset, size, sorted);
+            } else {
+                idx = VNMIntIndex.build(toIntArray(), 0, size, sorted);
+            }
+            index = idx;
+        }
+        return idx;
+    }
+
+    // Copies the elements into a new array of exactly length() ints.
+    public int[] toIntArray() {
+        if (data != null) {
+            return Arrays.copyOfRange(data, offset, offset + size);
+        }
+        if (store != null) {
+            int[] out = new int[size];
+            store.getInts(offset, out, 0, size);
+            return out;
+        }
+        int[] out = new int[size];
+        for (int i = 0; i < size; i++) {
+            out[i] = getInt(i);
+        }
+        return out;
+    }
+
+    // Writes the elements to the channel as little-endian ints.
+    public void writeTo(FileChannel channel) throws IOException {
+        if (store != null) {
+            store.writeTo(channel, (long) offset << 2, (long) size << 2);
+            return;
+        }
+        ByteBuffer block = ByteBuffer.allocate(Math.min(size, 16384) * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < size; ) {
+            int n = Math.min(size - i, block.capacity() / 4);
+            block.clear();
+            if (data != null) {
+                block.asIntBuffer().put(data, offset + i, n);
+            } else {
+                for (int k = 0; k < n; k++) {
+                    block.putInt(k * 4, getInt(i + k));
+                }
+            }
+            block.limit(n * 4);
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+            i += n;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Inner loops of element-wise vector arithmetic, comparisons and reductions.
+ *
+ * There are two implementations. VNMSimdKernel (in simd/) is written with the
+ * JDK Vector API, jdk.incubator.vector; VNMScalarKernel is plain loops. The
+ * SIMD one is picked at startup if the JVM was started with
+ *
+ *   java --add-modules jdk.incubator.vector ...
+ *
+ * and -Dvnm.simd=false wasn't given. Without the module, the SIMD class is
+ * never loaded and the scalar one is used.
+ *
+ * Every method works on n elements of int arrays starting at given offsets;
+ * VNMVectorMath feeds them a block at a time.
+ */
+public abstract class VNMKernel {
+
+    // Arithmetic operators.
+    public static final int ADD = 0, SUB = 1, MUL = 2, DIV = 3, MOD = 4;
+
+    // Comparison operators.
+    public static final int LT = 0, LE = 1, GT = 2, GE = 3, EQ = 4, NE = 5;
+
+    public static final VNMKernel INSTANCE = select();
+
+    private static VNMKernel select() {
+        if (VNMConfig.SIMD && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (VNMKernel) Class.forName("VNMSimdKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Not compiled, or the module can't be used after all.
+            }
+        }
+        return new VNMScalarKernel();
+    }
+
+    public abstract String name();
+
+    // out[outOff + i] = a[aOff + i] op b[bOff + i], for i < n.
+    public abstract void binary(int op, int[] a, int aOff, int[] b, int bOff, int[] out, int outOff, int n);
+
+    // Bit i of out (bit i % 64 of word i / 64) = a[aOff + i] op b[bOff + i],
+    // for i < n. Bits from n up to the end of the last word are cleared.
+    public abstract void compare(int op, int[] a, int aOff, int[] b, int bOff, long[] out, int n);
+
+    // Added up in 64 bits, so it never wraps for an int[].
+    public abstract long sum(int[] a, int off, int n);
+
+    public abstract int min(int[] a, int off, int n);
+
+    public abstract int max(int[] a, int off, int n);
+}
@@ -0,0 +1,21 @@
+/**
+ * What VNMLoops left on a WHILE or FOR node for the evaluator.
+ *
+ * temps are emptied every time the loop starts, so a value kept from one
+ * run of the loop is never seen by the next. steps only appear on a FOR
+ * over a single range: steps[j] stands for the loop variable times
+ * factors[j], and the loop sets it before each pass by adding factors[j]
+ * to the previous value instead of multiplying.
+ */
+public final class VNMLoop {
+
+    public final VNMVarRef[] temps;
+    public final VNMVarRef[] steps;
+    public final int[] factors;
+
+    public VNMLoop(VNMVarRef[] temps, VNMVarRef[] steps, int[] factors) {
+        this.temps = temps;
+        this.steps = steps;
+        this.factors = factors;
+    }
+}
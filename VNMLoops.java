@@ -0,0 +1,333 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loop-invariant code motion and strength reduction for WHILE and FOR.
+ *
+ * Runs after VNMFolder, on the same trees. For each loop, outermost first:
+ *
+ *   - In a FOR over a single range whose body doesn't assign the loop
+ *     variable (or, for a global one, call anything that may), every
+ *     #i * K (K a constant) becomes a slot the loop keeps up to date by
+ *     adding K on each pass.
+ *   - Every largest expression in the body (and in a WHILE's condition)
+ *     that can't change while the loop runs becomes a slot that is worked
+ *     out once per run of the loop. An expression can't change if the
+ *     loop assigns none of the variables it reads and it only calls
+ *     builtins whose result depends on their arguments alone, or, at top
+ *     level, FUNCTIONs that are pure functions of their arguments
+ *     (VNMEffects). If anything in the loop calls something that may
+ *     assign globals, expressions reading globals don't count.
+ *
+ * Nothing is worked out ahead of time: the slot is filled when the loop
+ * first gets to the expression (see VNMTemp), so a loop that never gets
+ * there, or an expression that fails, behaves as before. Slots are globals
+ * at top level and frame slots in a FUNCTION. Loops inside a PARFOR, and
+ * FUNCTIONs that YIELD, are left alone.
+ *
+ * Runs unless -Dvnm.optimize=false or -Dvnm.optimize.loops=false.
+ */
+public final class VNMLoops {
+
+    private final VNMEval evaluator;
+    private final VNMFunctionTable functions;
+
+    // Numbers the slots' names, which only show in tree dumps.
+    private final AtomicInteger made = new AtomicInteger();
+
+    public VNMLoops(VNMEval evaluator, VNMFunctionTable functions) {
+        this.evaluator = evaluator;
+        this.functions = functions;
+    }
+
+    public void topLevel(SimpleNode tree) {
+        walk(tree, null);
+    }
+
+    // A body declared again already has its slots (VNMResolver makes
+    // room for them in the frame).
+    public void function(VNMFunction fn) {
+        if (fn.generator) {
+            return;
+        }
+        walk(fn.body, fn);
+    }
+
+    // Finds the loops, outer ones first.
+    private void walk(Node n, VNMFunction fn) {
+        if (n instanceof ASTfn_decl || n instanceof ASTParfor) {
+            return;
+        }
+        if ((n instanceof ASTWhile || n instanceof ASTFor) && ((SimpleNode) n).jjtGetValue() == null) {
+            optimize((SimpleNode) n, fn);
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            walk(n.jjtGetChild(i), fn);
+        }
+    }
+
+    /* =======================
+       ONE LOOP
+       ======================= */
+
+    private void optimize(SimpleNode loop, VNMFunction fn) {
+        Loop l = new Loop(fn);
+        l.scan(loop);
+
+        if (loop instanceof ASTFor) {
+            // scan() counted calls among the values too: a generator or a
+            // pipeline there runs between passes.
+            Node values = loop.jjtGetChild(1);
+            VNMVarRef var = ref(loop.jjtGetChild(0));
+            Loop body = new Loop(fn);
+            body.scan(loop.jjtGetChild(2));
+            // A call in the body may assign a global loop variable.
+            if (var != null && values.jjtGetNumChildren() == 1 && values.jjtGetChild(0) instanceof ASTrange
+                    && !body.assigned.contains(var.name) && (var.local || !body.calls)) {
+                l.reduce(loop.jjtGetChild(2), var);
+            }
+            l.hoist(loop, 2);
+        } else {
+            l.hoist(loop, 0);
+            l.hoist(loop, 1);
+        }
+
+        if (!l.temps.isEmpty() || !l.steps.isEmpty()) {
+            int[] factors = new int[l.factors.size()];
+            for (int i = 0; i < factors.length; i++) {
+                factors[i] = l.factors.get(i).intValue();
+            }
+            loop.jjtSetValue(new VNMLoop(l.temps.toArray(new VNMVarRef[0]),
+                                         l.steps.toArray(new VNMVarRef[0]), factors));
+        }
+    }
+
+    private final class Loop {
+        final VNMFunction fn;
+
+        // Variables assigned anywhere in the loop, by name.
+        final HashSet<String> assigned = new HashSet<String>();
+        // Something in the loop may assign globals.
+        boolean calls;
+        // The loop declares a FUNCTION, so calls may go somewhere else.
+        boolean declares;
+
+        final ArrayList<VNMVarRef> temps = new ArrayList<VNMVarRef>();
+        final ArrayList<VNMVarRef> steps = new ArrayList<VNMVarRef>();
+        final ArrayList<Integer> factors = new ArrayList<Integer>();
+
+        Loop(VNMFunction fn) {
+            this.fn = fn;
+        }
+
+        void scan(Node n) {
+            if (n instanceof ASTfn_decl) {
+                declares = true;
+                calls = true;
+                return;
+            }
+            if (n instanceof ASTAssign || n instanceof ASTFor || n instanceof ASTParfor) {
+                Node target = n.jjtGetChild(0);
+                if (target instanceof ASTindex) {
+                    target = target.jjtGetChild(0);
+                }
+                assigned.add(VNMResolver.nameOf(target));
+            } else if (n instanceof ASTvar_decl) {
+                for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                    assigned.add(VNMResolver.nameOf(n.jjtGetChild(i)));
+                }
+            } else if (n instanceof ASTYield) {
+                calls = true;
+            } else if (n instanceof ASTfn_call || n instanceof ASTboolean_call) {
+                calls |= mayAssignGlobals((SimpleNode) n);
+            }
+            for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                scan(n.jjtGetChild(i));
+            }
+        }
+
+        // A call to a FUNCTION may assign globals, unless it is known to be
+        // pure. A FUNCTION body is worked on when it is declared, and what
+        // its callees do can change after that.
+        private boolean mayAssignGlobals(SimpleNode call) {
+            if (call.jjtGetValue() instanceof VNMBuiltin) {
+                String name = VNMResolver.nameOf(call.jjtGetChild(0));
+                if (!VNMPipeline.isStage(name)) {
+                    return !VNMBuiltins.isPure(name);
+                }
+            }
+            return fn != null || !VNMEffects.isPureCall(call, functions);
+        }
+
+        /* ---------- strength reduction ---------- */
+
+        void reduce(Node n, VNMVarRef var) {
+            if (n instanceof ASTfn_decl || n instanceof ASTParfor || isVariable(n)) {
+                return;
+            }
+            for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                Node child = n.jjtGetChild(i);
+                Integer factor = factor(child, var);
+                if (factor != null) {
+                    VNMFolder.replace(n, i, temp(child, stepFor(factor)));
+                } else {
+                    reduce(child, var);
+                }
+            }
+        }
+
+        // K for #i * K or K * #i, or null.
+        private Integer factor(Node n, VNMVarRef var) {
+            if (!(n instanceof ASTmul) || n.jjtGetNumChildren() != 2) {
+                return null;
+            }
+            for (int i = 0; i < 2; i++) {
+                VNMVarRef ref = ref(n.jjtGetChild(i));
+                Object k = VNMFolder.constant(n.jjtGetChild(1 - i));
+                if (ref != null && !(ref instanceof VNMTemp) && ref.name.equals(var.name)
+                        && k instanceof Integer) {
+                    return (Integer) k;
+                }
+            }
+            return null;
+        }
+
+        private VNMVarRef stepFor(Integer factor) {
+            int at = factors.indexOf(factor);
+            if (at >= 0) {
+                return steps.get(at);
+            }
+            VNMVarRef step = slot();
+            steps.add(step);
+            factors.add(factor);
+            return step;
+        }
+
+        /* ---------- invariant code motion ---------- */
+
+        void hoist(Node parent, int i) {
+            Node n = parent.jjtGetChild(i);
+            if (n instanceof ASTfn_decl || n instanceof ASTParfor || n instanceof ASTstring) {
+                return;
+            }
+            if (n instanceof ASTSpawn) {
+                // Each SPAWN starts a task of its own, and the evaluator
+                // needs the call itself there; only its arguments can move.
+                Node call = n.jjtGetChild(0);
+                for (int j = 1; j < call.jjtGetNumChildren(); j++) {
+                    hoist(call, j);
+                }
+                return;
+            }
+            if (worthKeeping(n) && invariant(n)) {
+                VNMVarRef temp = slot();
+                temps.add(temp);
+                VNMFolder.replace(parent, i, temp(n, temp));
+                return;
+            }
+            // Targets of assignments and loops are not expressions; call
+            // names aren't either.
+            int first = (n instanceof ASTAssign || n instanceof ASTFor
+                         || n instanceof ASTfn_call || n instanceof ASTboolean_call) ? 1 : 0;
+            if (n instanceof ASTvar_decl || isVariable(n)) {
+                return;
+            }
+            if (first == 1 && n instanceof ASTAssign && n.jjtGetChild(0) instanceof ASTindex) {
+                hoist(n.jjtGetChild(0), 1);
+            }
+            for (int j = first; j < n.jjtGetNumChildren(); j++) {
+                hoist(n, j);
+            }
+        }
+
+        // Operators and calls; a variable or a literal is already as cheap
+        // as a slot.
+        private boolean worthKeeping(Node n) {
+            return n instanceof ASTsum || n instanceof ASTneg || n instanceof ASTmul
+                || n instanceof ASTdiv || n instanceof ASTmod || n instanceof ASTcomparison
+                || n instanceof ASTnot || n instanceof ASTand || n instanceof ASTor
+                || n instanceof ASTindex || n instanceof ASTfn_call || n instanceof ASTboolean_call;
+        }
+
+        private boolean invariant(Node n) {
+            if (n instanceof ASTSpawn || n instanceof ASTAwait || n instanceof ASTYield
+                    || n instanceof ASTfn_decl) {
+                return false;
+            }
+            if (isVariable(n)) {
+                VNMVarRef ref = ref(n);
+                if (ref == null || steps.contains(ref)) {
+                    return false;
+                }
+                if (ref instanceof VNMTemp) {
+                    // An outer loop's slot stays put while this loop runs;
+                    // VNMCommon's are filled again on each pass.
+                    return !(ref instanceof VNMShared);
+                }
+                return !assigned.contains(ref.name) && (ref.local || !calls);
+            }
+            if (n instanceof ASTfn_call || n instanceof ASTboolean_call) {
+                if (!invariantCall((SimpleNode) n)) {
+                    return false;
+                }
+                for (int i = 1; i < n.jjtGetNumChildren(); i++) {
+                    if (!invariant(n.jjtGetChild(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                if (!invariant(n.jjtGetChild(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean invariantCall(SimpleNode call) {
+            Object target = VNMResolver.target(call);
+            if (target instanceof VNMBuiltin) {
+                String name = VNMResolver.nameOf(call.jjtGetChild(0));
+                return VNMBuiltins.isPure(name) && VNMBuiltins.isDeterministic(name)
+                       && !VNMPipeline.isStage(name);
+            }
+            if (fn != null || calls || declares || !(target instanceof Integer)) {
+                return false;
+            }
+            VNMFunction callee = functions.get(((Integer) target).intValue());
+            return callee != null && !callee.generator
+                   && VNMEffects.dependsOnlyOnArgs(callee, functions);
+        }
+
+        private VNMVarRef slot() {
+            String name = "#~" + made.incrementAndGet();
+            if (fn != null) {
+                return new VNMTemp(name, true, fn.frameSize++);
+            }
+            return new VNMTemp(name, false, evaluator.globalSlot(name));
+        }
+    }
+
+    /* =======================
+       NODES
+       ======================= */
+
+    private static SimpleNode temp(Node expression, VNMVarRef slot) {
+        SimpleNode node = new ASTidnum(VNMTreeConstants.JJTIDNUM);
+        node.jjtSetValue(slot);
+        node.jjtAddChild(expression, 0);
+        expression.jjtSetParent(node);
+        return node;
+    }
+
+    private static boolean isVariable(Node n) {
+        return n instanceof ASTidnum || n instanceof ASTidbool || n instanceof ASTidvec;
+    }
+
+    private static VNMVarRef ref(Node n) {
+        Object ref = ((SimpleNode) n).jjtGetValue();
+        return (ref instanceof VNMVarRef) ? (VNMVarRef) ref : null;
+    }
+}
@@ -0,0 +1,193 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembered results of one FUNCTION.
+ *
+ * A call to a function that is a pure function of its arguments (see
+ * VNMEffects) first looks its arguments up here and only runs the body if
+ * they are new; the result is then kept for next time. The table is bounded,
+ * and when it is full the entry used longest ago goes. Only calls whose
+ * arguments and result are all numbers or booleans are remembered, so
+ * nothing in the table can change behind its back.
+ *
+ * By default this is on for pure functions that are recursive, where the
+ * same arguments tend to come back (think #fib), and off for the rest. A
+ * script can decide for itself, per function:
+ *
+ *   #memo("#f", 1000)   remember up to 1000 results of #f
+ *   #memo("#f", 0)      never remember results of #f
+ *   #memo("#f", -1)     back to the default
+ *   v_memostats("#f")   [hits, misses, evictions, entries]
+ *
+ * Any FUNCTION declaration empties every table, since a new definition of a
+ * callee can change the results. The setting stays with the name.
+ */
+public final class VNMMemo {
+
+    public static final int DEFAULT = -1;
+
+    private static final Object NO_ARGS = Collections.emptyList();
+
+    // DEFAULT, 0 for off, or the number of results to keep.
+    private volatile int setting = DEFAULT;
+
+    // The function table's version when on and capacity were worked out.
+    private volatile int version = -1;
+    private volatile boolean on;
+    private int capacity;
+
+    private final LinkedHashMap<Object, Object> table = new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+            if (size() > capacity) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private long hits, misses, evictions;
+
+    /* =======================
+       CALLS
+       ======================= */
+
+    // An empty table with the same setting.
+    public VNMMemo copy() {
+        VNMMemo memo = new VNMMemo();
+        memo.setting = setting;
+        return memo;
+    }
+
+    // True if calls to fn go through the table. Worked out again whenever a
+    // FUNCTION has been declared since the last time.
+    public boolean isOn(VNMFunction fn, VNMFunctionTable functions) {
+        if (version != functions.version()) {
+            refresh(fn, functions);
+        }
+        return on;
+    }
+
+    private synchronized void refresh(VNMFunction fn, VNMFunctionTable functions) {
+        int now = functions.version();
+        if (version == now) {
+            return;
+        }
+        int s = setting;
+        boolean wanted = (s > 0) || (s == DEFAULT && VNMConfig.MEMO && VNMEffects.isRecursive(fn, functions));
+        on = wanted && canRemember(fn, functions);
+        capacity = (s > 0) ? s : VNMConfig.MEMO_SIZE;
+        table.clear();
+        version = now;
+    }
+
+    public static boolean canRemember(VNMFunction fn, VNMFunctionTable functions) {
+        return !fn.generator && !fn.name.startsWith("v_") && VNMEffects.dependsOnlyOnArgs(fn, functions);
+    }
+
+    // The table key for these arguments, or null if the call can't be
+    // remembered.
+    public static Object key(Object[] stack, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            if (!isValue(stack[i])) {
+                return null;
+            }
+        }
+        if (count == 0) {
+            return NO_ARGS;
+        }
+        if (count == 1) {
+            return stack[from];
+        }
+        return Arrays.asList(Arrays.copyOfRange(stack, from, from + count));
+    }
+
+    public static boolean isValue(Object o) {
+        return o instanceof Integer || o instanceof Boolean || o instanceof Long || o instanceof BigInteger;
+    }
+
+    // The remembered result, or null.
+    public synchronized Object get(Object key) {
+        Object result = table.get(key);
+        if (result != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return result;
+    }
+
+    public synchronized void put(Object key, Object result) {
+        if (isValue(result)) {
+            table.put(key, result);
+        }
+    }
+
+    /* =======================
+       BUILTINS
+       ======================= */
+
+    // Like the pipeline builtins, these only check their arguments and hand
+    // back a Request; the evaluator runs it against its function table.
+    public static final VNMBuiltin CONTROL = args -> {
+        VNMBuiltins.expect("#memo", args, 2);
+        if (!(args[1] instanceof Integer) || ((Integer) args[1]).intValue() < DEFAULT) {
+            throw new Exception("#memo needs a size, 0 for off or -1 for the default");
+        }
+        return new Request(functionName("#memo", args[0]), ((Integer) args[1]).intValue());
+    };
+
+    public static final VNMBuiltin STATS = args -> {
+        VNMBuiltins.expect("v_memostats", args, 1);
+        return new Request(functionName("v_memostats", args[0]), null);
+    };
+
+    private static String functionName(String builtin, Object name) throws Exception {
+        if (!(name instanceof String) || !(((String) name).startsWith("#") || ((String) name).startsWith("?"))) {
+            throw new Exception(builtin + " needs the name of a # or ? FUNCTION, in quotes");
+        }
+        return (String) name;
+    }
+
+    public static final class Request {
+        private final String name;
+        private final Integer setting;
+
+        private Request(String name, Integer setting) {
+            this.name = name;
+            this.setting = setting;
+        }
+
+        public Object run(VNMFunctionTable functions) throws Exception {
+            VNMMemo memo = functions.memo(functions.indexOf(name));
+            if (setting == null) {
+                return memo.stats();
+            }
+            VNMFunction fn = functions.lookup(name);
+            int s = setting.intValue();
+            if (s > 0 && fn != null && !canRemember(fn, functions)) {
+                throw new Exception("Function " + name + " can't be memoized: it is not a pure function of its arguments");
+            }
+            memo.set(s);
+            return setting;
+        }
+    }
+
+    private synchronized void set(int s) {
+        setting = s;
+        version = -1;
+    }
+
+    private synchronized VNMIntVector stats() {
+        int[] values = { clamp(hits), clamp(misses), clamp(evictions), table.size() };
+        return VNMIntVector.wrap(values, values.length);
+    }
+
+    private static int clamp(long n) {
+        return (int) Math.min(n, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,165 @@
+import java.math.BigInteger;
+
+/**
+ * Arithmetic on VNM numbers of any size.
+ *
+ * A number is an Integer while it fits in 32 bits, a Long while it fits in
+ * 64 and a BigInteger beyond that. Every result is put back into the
+ * smallest of the three that holds it, so a number that shrinks again
+ * (say 2^40 - 2^40 + 1) is an ordinary Integer and can index a vector.
+ *
+ * VNMEval does int arithmetic itself, guarded by Math.addExact and friends,
+ * and only calls in here when one of those overflows or an operand is
+ * already too big for an int. Vector elements stay 32-bit ints: a bigger
+ * number can't be stored in a vector.
+ */
+public final class VNMNumbers {
+
+    private VNMNumbers() {
+    }
+
+    public static boolean isNumber(Object o) {
+        return o instanceof Integer || o instanceof Long || o instanceof BigInteger;
+    }
+
+    // True for a number too big for an int.
+    public static boolean isBig(Object o) {
+        return o instanceof Long || o instanceof BigInteger;
+    }
+
+    // A NUMBER literal. Literals too big for an int are parsed as they are.
+    public static Object parse(String text) {
+        if (text.length() < 10) {
+            return Integer.valueOf(Integer.parseInt(text));
+        }
+        return normalize(new BigInteger(text));
+    }
+
+    public static Object valueOf(long value) {
+        if (value == (int) value) {
+            return Integer.valueOf((int) value);
+        }
+        return Long.valueOf(value);
+    }
+
+    private static Object normalize(BigInteger value) {
+        if (value.bitLength() < 64) {
+            return valueOf(value.longValue());
+        }
+        return value;
+    }
+
+    // The int a number stands for, when one is needed (an index, a range
+    // bound, a vector element).
+    public static int toInt(Object o) throws Exception {
+        if (o instanceof Integer) {
+            return ((Integer) o).intValue();
+        }
+        if (o instanceof Long || o instanceof BigInteger) {
+            throw new Exception("Number " + o + " does not fit in 32 bits");
+        }
+        throw new Exception("Expected a number, not " + describe(o));
+    }
+
+    private static String describe(Object o) {
+        if (o instanceof VNMVector) {
+            return "a vector";
+        }
+        if (o instanceof Boolean) {
+            return "a boolean";
+        }
+        return String.valueOf(o);
+    }
+
+    private static boolean fitsLong(Object o) {
+        return o instanceof Integer || o instanceof Long;
+    }
+
+    private static BigInteger big(Object o) {
+        if (o instanceof BigInteger) {
+            return (BigInteger) o;
+        }
+        return BigInteger.valueOf(((Number) o).longValue());
+    }
+
+    /* =======================
+       OPERATIONS
+       ======================= */
+
+    public static Object add(Object a, Object b) {
+        if (fitsLong(a) && fitsLong(b)) {
+            long x = ((Number) a).longValue(), y = ((Number) b).longValue();
+            long r = x + y;
+            if (((x ^ r) & (y ^ r)) >= 0) {
+                return valueOf(r);
+            }
+        }
+        return normalize(big(a).add(big(b)));
+    }
+
+    public static Object subtract(Object a, Object b) {
+        if (fitsLong(a) && fitsLong(b)) {
+            long x = ((Number) a).longValue(), y = ((Number) b).longValue();
+            long r = x - y;
+            if (((x ^ y) & (x ^ r)) >= 0) {
+                return valueOf(r);
+            }
+        }
+        return normalize(big(a).subtract(big(b)));
+    }
+
+    public static Object multiply(Object a, Object b) {
+        if (fitsLong(a) && fitsLong(b)) {
+            long x = ((Number) a).longValue(), y = ((Number) b).longValue();
+            long hi = Math.multiplyHigh(x, y);
+            long lo = x * y;
+            if ((hi == 0 && lo >= 0) || (hi == -1 && lo < 0)) {
+                return valueOf(lo);
+            }
+        }
+        return normalize(big(a).multiply(big(b)));
+    }
+
+    // Truncates toward zero, like int division.
+    public static Object divide(Object a, Object b) {
+        checkDivisor(b);
+        if (fitsLong(a) && fitsLong(b)) {
+            long x = ((Number) a).longValue(), y = ((Number) b).longValue();
+            if (!(x == Long.MIN_VALUE && y == -1)) {
+                return valueOf(x / y);
+            }
+        }
+        return normalize(big(a).divide(big(b)));
+    }
+
+    // Takes the sign of a, like int %.
+    public static Object remainder(Object a, Object b) {
+        checkDivisor(b);
+        if (fitsLong(a) && fitsLong(b)) {
+            long y = ((Number) b).longValue();
+            return valueOf((y == -1) ? 0 : ((Number) a).longValue() % y);
+        }
+        return normalize(big(a).remainder(big(b)));
+    }
+
+    public static Object negate(Object a) {
+        if (fitsLong(a) && ((Number) a).longValue() != Long.MIN_VALUE) {
+            return valueOf(-((Number) a).longValue());
+        }
+        return normalize(big(a).negate());
+    }
+
+    public static int compare(Object a, Object b) {
+        if (fitsLong(a) && fitsLong(b)) {
+            return Long.compare(((Number) a).longValue(), ((Number) b).longValue());
+        }
+        return big(a).compareTo(big(b));
+    }
+
+    // Same message as int division, whatever the size of the numbers.
+    private static void checkDivisor(Object b) {
+        if ((b instanceof BigInteger) ? ((BigInteger) b).signum() == 0 : ((Number) b).longValue() == 0) {
+            throw new ArithmeticException("/ by zero");
+        }
+    }
+}
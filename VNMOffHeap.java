@@ -0,0 +1,168 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Element storage for very large vectors, kept outside the Java heap.
+ *
+ * Memory comes from direct ByteBuffers, or from a file mapped into memory
+ * (see VNMVectorIO). A single buffer can't be bigger than 2 GB, so the space
+ * is split into fixed 256 MB chunks and an element index is turned into
+ * (chunk, byte position). Chunks are a multiple of 8 bytes, so an int or long
+ * never straddles two of them. Elements are always little-endian, the same
+ * as in vector files, so mapped and allocated stores can be copied into
+ * each other byte for byte.
+ *
+ * The garbage collector never has to look at or move the elements: the heap
+ * only holds the chunk objects themselves, whatever the vector's size.
+ * The memory is given back when the store becomes unreachable.
+ */
+public final class VNMOffHeap {
+
+    private static final int CHUNK_SHIFT = 28;
+    private static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_BYTES - 1;
+
+    private final ByteBuffer[] chunks;
+    private final long bytes;
+
+    public VNMOffHeap(long bytes) {
+        this.bytes = bytes;
+        int count = (int) ((bytes + CHUNK_BYTES - 1) >>> CHUNK_SHIFT);
+        chunks = new ByteBuffer[Math.max(count, 1)];
+        long left = bytes;
+        for (int c = 0; c < chunks.length; c++) {
+            int size = (int) Math.min(left, CHUNK_BYTES);
+            chunks[c] = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+            left -= size;
+        }
+    }
+
+    private VNMOffHeap(ByteBuffer[] chunks, long bytes) {
+        this.chunks = chunks;
+        this.bytes = bytes;
+    }
+
+    // Maps bytes bytes of a file, starting at position, one chunk at a time.
+    // Nothing is read yet: the OS pages the file in as elements are touched.
+    // Mode is PRIVATE (writes stay in this process, the file never changes)
+    // or READ_ONLY for files we can't open for writing.
+    public static VNMOffHeap map(FileChannel channel, FileChannel.MapMode mode, long position, long bytes) throws IOException {
+        int count = (int) ((bytes + CHUNK_BYTES - 1) >>> CHUNK_SHIFT);
+        ByteBuffer[] chunks = new ByteBuffer[Math.max(count, 1)];
+        long left = bytes;
+        for (int c = 0; c < chunks.length; c++) {
+            long size = Math.min(left, CHUNK_BYTES);
+            chunks[c] = channel.map(mode, position + ((long) c << CHUNK_SHIFT), size)
+                               .order(ByteOrder.LITTLE_ENDIAN);
+            left -= size;
+        }
+        return new VNMOffHeap(chunks, bytes);
+    }
+
+    // Writes n bytes, starting at byte from, to the channel's current position.
+    public void writeTo(FileChannel channel, long from, long n) throws IOException {
+        while (n > 0) {
+            int at = (int) (from & CHUNK_MASK);
+            int piece = (int) Math.min(n, CHUNK_BYTES - at);
+            ByteBuffer window = chunks[(int) (from >>> CHUNK_SHIFT)].duplicate();
+            window.limit(at + piece).position(at);
+            while (window.hasRemaining()) {
+                channel.write(window);
+            }
+            from += piece;
+            n -= piece;
+        }
+    }
+
+    // True if a vector of this many bytes should live here instead of on the heap.
+    public static boolean wanted(long bytes) {
+        return bytes >= VNMConfig.OFFHEAP_BYTES;
+    }
+
+    public long byteSize() {
+        return bytes;
+    }
+
+    // True for a read-only file mapping. Vectors copy it before writing.
+    public boolean isReadOnly() {
+        return chunks[0].isReadOnly();
+    }
+
+    public int intCapacity() {
+        return (int) Math.min(bytes >>> 2, Integer.MAX_VALUE);
+    }
+
+    public int longCapacity() {
+        return (int) Math.min(bytes >>> 3, Integer.MAX_VALUE);
+    }
+
+    /* =======================
+       ELEMENT ACCESS
+       ======================= */
+
+    public int getInt(long i) {
+        long at = i << 2;
+        return chunks[(int) (at >>> CHUNK_SHIFT)].getInt((int) (at & CHUNK_MASK));
+    }
+
+    public void putInt(long i, int value) {
+        long at = i << 2;
+        chunks[(int) (at >>> CHUNK_SHIFT)].putInt((int) (at & CHUNK_MASK), value);
+    }
+
+    public long getLong(long i) {
+        long at = i << 3;
+        return chunks[(int) (at >>> CHUNK_SHIFT)].getLong((int) (at & CHUNK_MASK));
+    }
+
+    public void putLong(long i, long value) {
+        long at = i << 3;
+        chunks[(int) (at >>> CHUNK_SHIFT)].putLong((int) (at & CHUNK_MASK), value);
+    }
+
+    /* =======================
+       BULK COPIES
+       ======================= */
+
+    // Copies n bytes from src (starting at byte srcAt) to dst (at byte dstAt),
+    // one chunk-sized piece at a time.
+    public static void copyBytes(VNMOffHeap src, long srcAt, VNMOffHeap dst, long dstAt, long n) {
+        while (n > 0) {
+            int srcOff = (int) (srcAt & CHUNK_MASK);
+            int dstOff = (int) (dstAt & CHUNK_MASK);
+            long piece = Math.min(n, Math.min(CHUNK_BYTES - srcOff, CHUNK_BYTES - dstOff));
+            dst.chunks[(int) (dstAt >>> CHUNK_SHIFT)].put(dstOff, src.chunks[(int) (srcAt >>> CHUNK_SHIFT)], srcOff, (int) piece);
+            srcAt += piece;
+            dstAt += piece;
+            n -= piece;
+        }
+    }
+
+    // Copies n ints from a heap array into this store, starting at element at.
+    public void putInts(long at, int[] src, int srcOff, int n) {
+        while (n > 0) {
+            long byteAt = at << 2;
+            int chunkOff = (int) (byteAt & CHUNK_MASK);
+            int piece = (int) Math.min(n, (CHUNK_BYTES - chunkOff) >>> 2);
+            chunks[(int) (byteAt >>> CHUNK_SHIFT)].asIntBuffer().put(chunkOff >>> 2, src, srcOff, piece);
+            at += piece;
+            srcOff += piece;
+            n -= piece;
+        }
+    }
+
+    // Copies n ints starting at element at into a heap array.
+    public void getInts(long at, int[] dst, int dstOff, int n) {
+        while (n > 0) {
+            long byteAt = at << 2;
+            int chunkOff = (int) (byteAt & CHUNK_MASK);
+            int piece = (int) Math.min(n, (CHUNK_BYTES - chunkOff) >>> 2);
+            chunks[(int) (byteAt >>> CHUNK_SHIFT)].asIntBuffer().get(chunkOff >>> 2, dst, dstOff, piece);
+            at += piece;
+            dstOff += piece;
+            n -= piece;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Where printed output collects before it is written.
+ *
+ * TestVNM points System.out at one of these, so everything printed (PRINT,
+ * statement values, error messages) goes through the same buffer in the
+ * same order. The evaluator also writes to it directly: ints and int
+ * vectors are turned into ASCII digits in the buffer, string literals are
+ * copied from the bytes VNMResolver encoded once (see VNMText), and other
+ * strings are copied a char at a time while they are plain ASCII, so
+ * printing allocates nothing. The buffer is written out in one call
+ * instead of one per PRINT, and only when vnm.output.flush says so:
+ *
+ *   exit   everything is kept until the end of the script (the buffer
+ *          grows as needed), then written at once
+ *   size   the buffer is written whenever it is full (the default)
+ *   timer  the same, and also every vnm.output.flush.ms milliseconds
+ *
+ * vnm.output.buffer is the buffer size. flush() always writes what is
+ * there, e.g. after each statement typed in at the terminal.
+ *
+ * Like PrintStream, this never throws: once the real output fails, the rest
+ * is dropped.
+ */
+public final class VNMOutput extends OutputStream {
+
+    public static final Charset CHARSET = Charset.defaultCharset();
+
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(CHARSET);
+    private static final byte[] TRUE = "true".getBytes(CHARSET);
+    private static final byte[] FALSE = "false".getBytes(CHARSET);
+    private static final byte[] SEPARATOR = ", ".getBytes(CHARSET);
+    private static final byte[] MIN_INT = String.valueOf(Integer.MIN_VALUE).getBytes(CHARSET);
+
+    private final OutputStream target;
+    private final boolean grow;
+    private final Thread timer;
+
+    private byte[] buffer;
+    private int used;
+    private boolean failed;
+    private volatile boolean closed;
+
+    public VNMOutput(OutputStream target, String policy, int size, long period) {
+        this.target = target;
+        this.buffer = new byte[Math.max(64, size)];
+        this.grow = policy.equals("exit");
+        if (policy.equals("timer")) {
+            timer = new Thread(() -> {
+                try {
+                    while (!closed) {
+                        Thread.sleep(Math.max(1, period));
+                        flush();
+                    }
+                } catch (InterruptedException e) {
+                    // Closed.
+                }
+            }, "VNM output timer");
+            timer.setDaemon(true);
+            timer.start();
+        } else {
+            timer = null;
+        }
+    }
+
+    /* =======================
+       WHAT THE EVALUATOR PRINTS
+       ======================= */
+
+    // Prints a value the way toString() would spell it.
+    public synchronized void print(Object value) {
+        if (value instanceof Integer) {
+            putInt(((Integer) value).intValue());
+        } else if (value instanceof Boolean) {
+            put(((Boolean) value).booleanValue() ? TRUE : FALSE);
+        } else if (value instanceof VNMIntVector || value instanceof VNMRange) {
+            VNMVector v = (VNMVector) value;
+            int n = v.length();
+            room(1);
+            buffer[used++] = '[';
+            for (int i = 0; i < n; i++) {
+                if (i > 0) {
+                    put(SEPARATOR);
+                }
+                putInt(v instanceof VNMRange ? ((VNMRange) v).getInt(i) : ((VNMIntVector) v).getInt(i));
+            }
+            room(1);
+            buffer[used++] = ']';
+        } else {
+            putString(value.toString());
+        }
+    }
+
+    public synchronized void print(VNMText literal) {
+        put(literal.bytes);
+    }
+
+    public synchronized void newline() {
+        put(NEWLINE);
+    }
+
+    /* =======================
+       OUTPUTSTREAM
+       ======================= */
+
+    public synchronized void write(int b) {
+        room(1);
+        buffer[used++] = (byte) b;
+    }
+
+    public synchronized void write(byte[] b, int off, int len) {
+        if (len > buffer.length && !grow) {
+            writeOut();
+            send(b, off, len);
+            return;
+        }
+        room(len);
+        System.arraycopy(b, off, buffer, used, len);
+        used += len;
+    }
+
+    public synchronized void flush() {
+        writeOut();
+        if (!failed) {
+            try {
+                target.flush();
+            } catch (IOException e) {
+                failed = true;
+            }
+        }
+    }
+
+    public void close() {
+        closed = true;
+        if (timer != null) {
+            timer.interrupt();
+        }
+        flush();
+    }
+
+    /* =======================
+       THE BUFFER
+       ======================= */
+
+    private void put(byte[] b) {
+        write(b, 0, b.length);
+    }
+
+    // Writes the digits straight into the buffer, last one first.
+    private void putInt(int v) {
+        if (v == Integer.MIN_VALUE) {
+            put(MIN_INT);
+            return;
+        }
+        room(11);
+        if (v < 0) {
+            buffer[used++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        for (int rest = v / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int pos = used + digits;
+        do {
+            buffer[--pos] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        used += digits;
+    }
+
+    // ASCII chars are the same byte in every charset a terminal uses; the
+    // first other char sends the rest of the string through the encoder.
+    private void putString(String s) {
+        int n = s.length();
+        room(Math.min(n, buffer.length));
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                put(s.substring(i).getBytes(CHARSET));
+                return;
+            }
+            if (used == buffer.length) {
+                room(1);
+            }
+            buffer[used++] = (byte) c;
+        }
+    }
+
+    // Makes room for n more bytes: writes the buffer out, or under "exit"
+    // makes it bigger.
+    private void room(int n) {
+        if (used + n <= buffer.length) {
+            return;
+        }
+        if (grow) {
+            byte[] bigger = new byte[Math.max(buffer.length * 2, used + n)];
+            System.arraycopy(buffer, 0, bigger, 0, used);
+            buffer = bigger;
+        } else {
+            writeOut();
+        }
+    }
+
+    private void writeOut() {
+        if (used > 0) {
+            send(buffer, 0, used);
+            used = 0;
+        }
+    }
+
+    private void send(byte[] b, int off, int len) {
+        if (failed) {
+            return;
+        }
+        try {
+            target.write(b, off, len);
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Hands output over to a writer thread.
+ *
+ * Used by TestVNM when -Dvnm.pipeline=true: System.out is pointed at one of
+ * these, so the evaluator doesn't wait for the terminal or a slow pipe.
+ * Bytes are collected into chunks of CHUNK bytes, and full chunks are put
+ * into a queue that the writer thread empties into the real output. The
+ * queue holds at most vnm.pipeline.output bytes' worth of chunks; when it
+ * is full, writing waits, so output that can't be written fast enough
+ * slows the script down instead of piling up in memory.
+ *
+ * close() sends what is left and waits until the writer has written it all.
+ */
+public final class VNMOutputPipe extends OutputStream {
+
+    static final int CHUNK = 8192;
+
+    // Marks the end of the output for the writer thread.
+    private static final byte[] END = new byte[0];
+
+    private final ArrayBlockingQueue<byte[]> chunks;
+    private final Thread writer;
+
+    private byte[] chunk = new byte[CHUNK];
+    private int used;
+
+    public VNMOutputPipe(OutputStream target, long capacity) {
+        chunks = new ArrayBlockingQueue<byte[]>((int) Math.max(1, Math.min(capacity / CHUNK, 1 << 16)));
+        writer = new Thread(() -> {
+            try {
+                byte[] next;
+                while ((next = chunks.take()) != END) {
+                    target.write(next);
+                    if (chunks.isEmpty()) {
+                        target.flush();
+                    }
+                }
+                target.flush();
+            } catch (InterruptedException | IOException e) {
+                // Nothing more can be written.
+            }
+        }, "VNM output");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void write(int b) throws IOException {
+        if (used == CHUNK) {
+            send();
+        }
+        chunk[used++] = (byte) b;
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (used == CHUNK) {
+                send();
+            }
+            int n = Math.min(len, CHUNK - used);
+            System.arraycopy(b, off, chunk, used, n);
+            used += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    // Sends what has been written so far without waiting for a full chunk.
+    // Printing doesn't call this; output normally leaves a chunk at a time.
+    public void flush() throws IOException {
+        if (used > 0) {
+            send();
+        }
+    }
+
+    public void close() throws IOException {
+        flush();
+        put(END);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void send() throws IOException {
+        byte[] full = (used == CHUNK) ? chunk : Arrays.copyOf(chunk, used);
+        put(full);
+        chunk = new byte[CHUNK];
+        used = 0;
+    }
+
+    private void put(byte[] b) throws IOException {
+        try {
+            chunks.put(b);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+}
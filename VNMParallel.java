@@ -0,0 +1,147 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs work over the elements of a large vector as fork/join tasks.
+ *
+ * The element range 0..n is cut in half, at multiples of GRAIN, until the
+ * pieces are no bigger than vnm.parallel.threshold elements. The cuts only
+ * depend on n and the threshold, never on the number of threads, and each
+ * pair of partial results is combined left then right. A result is
+ * therefore the same for every -Dvnm.parallelism, including 1, where the
+ * body simply runs once over the whole range on the calling thread. (The
+ * combiners in use are exactly associative anyway: long + for #sum and
+ * #trues, whose int elements can't overflow a long, min and max, the
+ * leftmost hit for #indexof, and none at all for work that writes its
+ * pieces out itself, like element-wise operators and the pipelines'
+ * parallel stages, which collect their pieces in source order.)
+ *
+ * Pieces start at multiples of GRAIN, which is a multiple of 64, so pieces
+ * of a boolean result never share a word.
+ *
+ * The same pool runs the iterations of PARFOR loops and SPAWNed calls.
+ */
+public final class VNMParallel {
+
+    public static final int GRAIN = 1024;
+
+    // Does the work for elements from..to-1 and returns its partial result.
+    public interface Body {
+        long run(int from, int to) throws Exception;
+    }
+
+    public interface Combiner {
+        long combine(long left, long right);
+    }
+
+    private static final ForkJoinPool POOL =
+        (VNMConfig.PARALLELISM > 1) ? new ForkJoinPool(VNMConfig.PARALLELISM) : null;
+
+    private VNMParallel() {
+    }
+
+    // True if work over n elements would be split up at all.
+    public static boolean worthIt(int n) {
+        return POOL != null && n > Math.max(VNMConfig.PARALLEL_THRESHOLD, GRAIN);
+    }
+
+    public static long run(int n, Body body, Combiner combiner) throws Exception {
+        if (!worthIt(n)) {
+            return body.run(0, n);
+        }
+        return invoke(new Piece(0, n, Math.max(VNMConfig.PARALLEL_THRESHOLD, GRAIN), GRAIN, body, combiner));
+    }
+
+    // True if there are threads to split work between at all.
+    public static boolean enabled() {
+        return POOL != null;
+    }
+
+    // Runs body over 0..n in pieces of at most size, cut anywhere. For loops
+    // whose iterations are much more work than a vector element, where the
+    // pieces can be a lot smaller.
+    public static void forEach(int n, int size, Body body) throws Exception {
+        if (POOL == null || n <= size) {
+            body.run(0, n);
+            return;
+        }
+        invoke(new Piece(0, n, Math.max(1, size), 1, body, (l, r) -> 0));
+    }
+
+    // Starts a task on the pool. Without a pool it runs to the end right
+    // here instead.
+    public static void start(ForkJoinTask<?> task) {
+        if (POOL == null) {
+            task.invoke();
+        } else if (ForkJoinTask.inForkJoinPool()) {
+            task.fork();
+        } else {
+            POOL.execute(task);
+        }
+    }
+
+    private static long invoke(Piece all) throws Exception {
+        try {
+            return POOL.invoke(all);
+        } catch (Failure f) {
+            // Fork/join may wrap what a task threw in copies of it; the
+            // original is at the bottom of the chain.
+            Throwable cause = f;
+            while (cause instanceof Failure && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    private static final class Piece extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+
+        // Pieces up to limit long aren't split; cuts are at multiples of grain.
+        private final int limit, grain;
+        private final Body body;
+        private final Combiner combiner;
+
+        Piece(int from, int to, int limit, int grain, Body body, Combiner combiner) {
+            this.from = from;
+            this.to = to;
+            this.limit = limit;
+            this.grain = grain;
+            this.body = body;
+            this.combiner = combiner;
+        }
+
+        protected Long compute() {
+            int size = to - from;
+            if (size <= limit) {
+                try {
+                    return Long.valueOf(body.run(from, to));
+                } catch (Exception | Error e) {
+                    throw new Failure(e);
+                }
+            }
+            int mid = from + Math.max(grain, (size / 2) / grain * grain);
+            Piece left = new Piece(from, mid, limit, grain, body, combiner);
+            Piece right = new Piece(mid, to, limit, grain, body, combiner);
+            left.fork();
+            long r = right.compute().longValue();
+            long l = left.join().longValue();
+            return Long.valueOf(combiner.combine(l, r));
+        }
+    }
+
+    // Carries whatever a piece threw back to run().
+    private static final class Failure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Failure(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Parses top-level statements on a thread of its own, ahead of the
+ * evaluator.
+ *
+ * Used by TestVNM when -Dvnm.pipeline=true. The parser thread puts each
+ * tree into a queue of at most vnm.pipeline.statements entries and waits
+ * when it is full, so it never gets far ahead of the evaluator. Whatever
+ * ends parsing (end of file, a syntax error, a lexical error) goes into the
+ * queue too and take() throws it when its turn comes, so the evaluator
+ * sees exactly what calling the parser itself would have given it.
+ */
+public final class VNMParseAhead {
+
+    // Stands for a null tree, which the queue can't hold.
+    private static final Object NOTHING = new Object();
+
+    private final ArrayBlockingQueue<Object> trees;
+
+    public VNMParseAhead(VNM parser, int capacity) {
+        trees = new ArrayBlockingQueue<Object>(Math.max(1, capacity));
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    SimpleNode tree = parser.start();
+                    trees.put(tree == null ? NOTHING : tree);
+                }
+            } catch (InterruptedException e) {
+                // Nobody is taking trees any more.
+            } catch (Throwable t) {
+                try {
+                    trees.put(t);
+                } catch (InterruptedException e) {
+                    // Same.
+                }
+            }
+        }, "VNM parser");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // The next tree, waiting for the parser if need be.
+    public SimpleNode take() throws ParseException, InterruptedException {
+        Object next = trees.take();
+        if (next instanceof ParseException) {
+            throw (ParseException) next;
+        }
+        if (next instanceof RuntimeException) {
+            throw (RuntimeException) next;
+        }
+        if (next instanceof Error) {
+            throw (Error) next;
+        }
+        return next == NOTHING ? null : (SimpleNode) next;
+    }
+}
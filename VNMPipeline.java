@@ -0,0 +1,301 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Lazy map / filter / reduce over a numeric vector or range.
+ *
+ *   v_map(v_a, "#f")          #f applied to every element
+ *   v_filter(v_a, "?p")       the elements for which ?p is true
+ *   #reduce(v_a, "#f", #x)    #f(...#f(#f(#x, a0), a1)..., an), left to right
+ *   #preduce(v_a, "#f", #x)   the same, split between threads
+ *
+ * The functions are named by strings since VNM has no function values.
+ * v_map and v_filter don't do anything by themselves: they return one of
+ * these, which just records the source and the list of stages. Nested
+ * directly in each other, they add their stage to the list, so
+ *
+ *   #reduce(v_map(v_filter(v_a, "?even"), "#square"), "#add", 0)
+ *
+ * is one loop over v_a that sends each element through ?even, #square and
+ * #add in turn, with no vector in between. A FOR over a pipeline pulls the
+ * elements the same way. Anywhere else the evaluator runs the pipeline
+ * right after the call and the result is an ordinary vector (see
+ * VNMEval.callBuiltin).
+ *
+ * When every function involved is pure (VNMEffects) and the source is big
+ * enough to split (VNMParallel), building the result vector is split
+ * between threads, each with its own evaluator, and the pieces are joined
+ * in order, so the result doesn't change. #preduce also folds each piece
+ * on its own, starting from #x, and then folds the pieces' results left to
+ * right. That is only the same as #reduce when #f is associative and #x
+ * leaves a value unchanged, e.g. "#add" and 0; saying #preduce is the
+ * script's promise that it is.
+ */
+public final class VNMPipeline {
+
+    private static final int MAP = 0, FILTER = 1;
+
+    // A numeric vector or a range.
+    private final VNMVector source;
+    private final boolean ownsSource;
+
+    private final int[] kinds;
+    private final String[] names;
+
+    // Set for #reduce and #preduce: the pipeline then stands for one number.
+    private final String reducer;
+    private final Object initial;
+    private final boolean parallelReduce;
+
+    private VNMPipeline(VNMVector source, boolean ownsSource, int[] kinds, String[] names,
+                        String reducer, Object initial, boolean parallelReduce) {
+        this.source = source;
+        this.ownsSource = ownsSource;
+        this.kinds = kinds;
+        this.names = names;
+        this.reducer = reducer;
+        this.initial = initial;
+        this.parallelReduce = parallelReduce;
+    }
+
+    /* =======================
+       BUILTINS
+       ======================= */
+
+    public static final VNMBuiltin MAP_BUILTIN = args -> stage("v_map", MAP, args);
+    public static final VNMBuiltin FILTER_BUILTIN = args -> stage("v_filter", FILTER, args);
+    public static final VNMBuiltin REDUCE_BUILTIN = args -> reduction("#reduce", args, false);
+    public static final VNMBuiltin PREDUCE_BUILTIN = args -> reduction("#preduce", args, true);
+
+    // True for the builtins that take a function name and build a pipeline.
+    public static boolean isStage(String name) {
+        return name.equals("v_map") || name.equals("v_filter")
+            || name.equals("#reduce") || name.equals("#preduce");
+    }
+
+    // Their source argument is left lazy: a range isn't turned into a vector.
+    public static boolean isStage(VNMBuiltin builtin) {
+        return builtin == MAP_BUILTIN || builtin == FILTER_BUILTIN
+            || builtin == REDUCE_BUILTIN || builtin == PREDUCE_BUILTIN;
+    }
+
+    private static VNMPipeline stage(String builtin, int kind, Object[] args) throws Exception {
+        VNMBuiltins.expect(builtin, args, 2);
+        String name = functionName(builtin, args[1]);
+        VNMPipeline from = pipeline(builtin, args[0]);
+        int n = from.kinds.length;
+        int[] kinds = Arrays.copyOf(from.kinds, n + 1);
+        String[] names = Arrays.copyOf(from.names, n + 1);
+        kinds[n] = kind;
+        names[n] = name;
+        return new VNMPipeline(from.source, from.ownsSource, kinds, names, null, null, false);
+    }
+
+    private static VNMPipeline reduction(String builtin, Object[] args, boolean parallel) throws Exception {
+        VNMBuiltins.expect(builtin, args, 3);
+        String name = functionName(builtin, args[1]);
+        if (!VNMNumbers.isNumber(args[2])) {
+            throw new Exception(builtin + " needs a number to start from");
+        }
+        VNMPipeline from = pipeline(builtin, args[0]);
+        return new VNMPipeline(from.source, from.ownsSource, from.kinds, from.names, name, args[2], parallel);
+    }
+
+    // The source argument as a pipeline with no stages yet. A vector that
+    // belongs to a variable is shared, so a FOR body changing the variable
+    // doesn't change what the loop sees.
+    private static VNMPipeline pipeline(String builtin, Object source) throws Exception {
+        if (source instanceof VNMPipeline) {
+            VNMPipeline p = (VNMPipeline) source;
+            if (p.reducer != null) {
+                throw new Exception(builtin + " needs a numeric vector");
+            }
+            return p;
+        }
+        if (source instanceof VNMRange) {
+            return new VNMPipeline((VNMRange) source, false, new int[0], new String[0], null, null, false);
+        }
+        if (!(source instanceof VNMIntVector)) {
+            throw new Exception(builtin + " needs a numeric vector");
+        }
+        VNMVector v = (VNMVector) source;
+        VNMVector own = v.isBound() ? v.share() : v;
+        return new VNMPipeline(own, own != v, new int[0], new String[0], null, null, false);
+    }
+
+    private static String functionName(String builtin, Object name) throws Exception {
+        if (!(name instanceof String)) {
+            throw new Exception(builtin + " needs the name of a FUNCTION, in quotes");
+        }
+        return (String) name;
+    }
+
+    public boolean isReduction() {
+        return reducer != null;
+    }
+
+    // Lets go of the source vector once the pipeline is used up.
+    public void close() {
+        if (ownsSource) {
+            source.release();
+        }
+    }
+
+    /* =======================
+       RUNNING
+       ======================= */
+
+    // The functions behind the names, checked against what each stage needs.
+    private VNMFunction[] bind(VNMEval eval) throws Exception {
+        VNMFunction[] fns = new VNMFunction[names.length + 1];
+        for (int s = 0; s < names.length; s++) {
+            fns[s] = (kinds[s] == MAP) ? eval.function(names[s], "#", 1, "v_map")
+                                       : eval.function(names[s], "?", 1, "v_filter");
+        }
+        if (reducer != null) {
+            fns[names.length] = eval.function(reducer, "#", 2, parallelReduce ? "#preduce" : "#reduce");
+        }
+        return fns;
+    }
+
+    private boolean allPure(VNMEval eval, VNMFunction[] fns) {
+        for (VNMFunction fn : fns) {
+            if (fn != null && !eval.isPure(fn)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Runs the pipeline to the end: a vector, or a number for a reduction.
+    public Object run(VNMEval eval) throws Exception {
+        try {
+            VNMFunction[] fns = bind(eval);
+            int n = source.length();
+            boolean split = VNMParallel.worthIt(n) && allPure(eval, fns);
+            if (reducer == null) {
+                return split ? collectParallel(eval, fns, n) : collect(eval, fns, 0, n);
+            }
+            if (split && parallelReduce) {
+                return reduceParallel(eval, fns, n);
+            }
+            return fold(eval, fns, 0, n, initial);
+        } finally {
+            close();
+        }
+    }
+
+    // Element i of the source after the stages, or null if a filter drops it.
+    private Object element(VNMEval eval, VNMFunction[] fns, int i) throws Exception {
+        Object x = source.get(i);
+        for (int s = 0; s < kinds.length; s++) {
+            Object y = eval.apply(fns[s], x);
+            if (kinds[s] == MAP) {
+                if (!(y instanceof Integer)) {
+                    if (VNMNumbers.isBig(y)) {
+                        VNMNumbers.toInt(y);
+                    }
+                    throw new Exception("v_map: " + names[s] + " must return a number");
+                }
+                x = y;
+            } else if (!(y instanceof Boolean)) {
+                throw new Exception("v_filter: " + names[s] + " must return a boolean");
+            } else if (!((Boolean) y).booleanValue()) {
+                return null;
+            }
+        }
+        return x;
+    }
+
+    private VNMIntVector collect(VNMEval eval, VNMFunction[] fns, int lo, int hi) throws Exception {
+        VNMIntVector result = new VNMIntVector();
+        for (int i = lo; i < hi; i++) {
+            Object x = element(eval, fns, i);
+            if (x != null) {
+                result.append(((Integer) x).intValue());
+            }
+        }
+        result.trim();
+        return result;
+    }
+
+    private Object fold(VNMEval eval, VNMFunction[] fns, int lo, int hi, Object acc) throws Exception {
+        VNMFunction f = fns[names.length];
+        for (int i = lo; i < hi; i++) {
+            Object x = element(eval, fns, i);
+            if (x != null) {
+                acc = eval.apply(f, acc, x);
+                if (!VNMNumbers.isNumber(acc)) {
+                    throw new Exception(reducer + " must return a number");
+                }
+            }
+        }
+        return acc;
+    }
+
+    // Every piece collects its own elements with its own evaluator; the
+    // pieces are then appended in source order.
+    private VNMIntVector collectParallel(VNMEval eval, VNMFunction[] fns, int n) throws Exception {
+        ConcurrentSkipListMap<Integer, VNMIntVector> pieces = new ConcurrentSkipListMap<Integer, VNMIntVector>();
+        VNMParallel.run(n, (lo, hi) -> {
+            pieces.put(Integer.valueOf(lo), collect(eval.fork(), fns, lo, hi));
+            return 0;
+        }, (l, r) -> 0);
+        VNMIntVector result = new VNMIntVector();
+        for (VNMIntVector piece : pieces.values()) {
+            result.appendAll(piece);
+        }
+        result.trim();
+        return result;
+    }
+
+    private Object reduceParallel(VNMEval eval, VNMFunction[] fns, int n) throws Exception {
+        ConcurrentSkipListMap<Integer, Object> pieces = new ConcurrentSkipListMap<Integer, Object>();
+        VNMParallel.run(n, (lo, hi) -> {
+            pieces.put(Integer.valueOf(lo), fold(eval.fork(), fns, lo, hi, initial));
+            return 0;
+        }, (l, r) -> 0);
+        VNMFunction f = fns[names.length];
+        Object acc = null;
+        for (Object part : pieces.values()) {
+            acc = (acc == null) ? part : eval.apply(f, acc, part);
+        }
+        return acc;
+    }
+
+    // Pulls the elements one at a time, for FOR.
+    public Iter iterate(VNMEval eval) throws Exception {
+        try {
+            return new Iter(eval, bind(eval));
+        } catch (Exception e) {
+            close();
+            throw e;
+        }
+    }
+
+    public final class Iter {
+        private final VNMEval eval;
+        private final VNMFunction[] fns;
+        private int next;
+
+        private Iter(VNMEval eval, VNMFunction[] fns) {
+            this.eval = eval;
+            this.fns = fns;
+        }
+
+        // The next element that makes it through, or null at the end.
+        public Object next() throws Exception {
+            while (next < source.length()) {
+                Object x = element(eval, fns, next++);
+                if (x != null) {
+                    return x;
+                }
+            }
+            return null;
+        }
+
+        public void close() {
+            VNMPipeline.this.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * The integers lo..hi (both ends included), without the elements.
+ *
+ * A range is just its two bounds. FOR walks it with a counter and =in / !in
+ * test it with two comparisons, so "FOR #i =in 1..100000000" never builds a
+ * 100-million-element array. It only turns into a real VNMIntVector when
+ * something needs the elements stored, i.e. when it is assigned to a v_
+ * variable. A range with hi < lo is empty.
+ */
+public final class VNMRange extends VNMVector {
+
+    public final int lo;
+    public final int hi;
+
+    public VNMRange(int lo, int hi) {
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    public int length() {
+        long n = (long) hi - (long) lo + 1;
+        if (n <= 0) {
+            return 0;
+        }
+        if (n > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Range " + lo + ".." + hi + " is too long");
+        }
+        return (int) n;
+    }
+
+    public boolean isBoolean() {
+        return false;
+    }
+
+    public Object get(int i) {
+        return Integer.valueOf(getInt(i));
+    }
+
+    public int getInt(int i) {
+        checkIndex(i);
+        return lo + i;
+    }
+
+    // Ranges never change, so every handle can be the same object.
+    public VNMRange share() {
+        return this;
+    }
+
+    // Nothing to write to.
+    public void own() {
+    }
+
+    // A slice of a range is a shorter range.
+    public VNMRange slice(int from, int to) {
+        int n = length();
+        if (from < 0 || to >= n || to < from - 1) {
+            throw new IndexOutOfBoundsException("Slice " + from + ".." + to + " out of range for vector of length " + n);
+        }
+        return new VNMRange(lo + from, lo + to);
+    }
+
+    // Membership is just a bounds check.
+    public boolean contains(int value) {
+        return value >= lo && value <= hi;
+    }
+
+    // Builds the real vector. Only done when the range is stored. The
+    // elements are written a block at a time, which matters for huge
+    // ranges that end up off the heap.
+    public VNMIntVector toVector() {
+        int n = length();
+        VNMIntVector vec = new VNMIntVector(n);
+        int[] block = new int[Math.min(n, 4096)];
+        for (int done = 0; done < n; done += block.length) {
+            int count = Math.min(block.length, n - done);
+            for (int i = 0; i < count; i++) {
+                block[i] = lo + done + i;
+            }
+            vec.appendInts(block, 0, count, true);
+        }
+        vec.markSorted();
+        return vec;
+    }
+}
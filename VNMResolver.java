@@ -0,0 +1,288 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Name resolution pass.
+ *
+ * Runs over a tree before it is evaluated and replaces the names stored on
+ * identifier nodes with VNMVarRef slots, and the names on call nodes with
+ * function table indexes (or the VNMBuiltin they name), and string literals
+ * with VNMText. Top-level statements are resolved against the
+ * global table; a function body is resolved when its FUNCTION statement runs,
+ * with its parameters and VAR locals mapped to frame slots.
+ */
+public class VNMResolver extends VNMDefaultVisitor {
+
+    private final VNMEval evaluator;
+    private final VNMFunctionTable functions;
+
+    // Simplifies each tree once its names are resolved (null if turned off).
+    private final VNMInliner inliner;
+    private final VNMFolder folder;
+    private final VNMSwitches switches;
+    private final VNMLoops loops;
+    private final VNMCommon common;
+
+    // Local slot numbers of the function being resolved (null at top level).
+    private HashMap<String, Integer> locals;
+    private VNMFunction current;
+
+    public VNMResolver(VNMEval evaluator, VNMFunctionTable functions) {
+        this.evaluator = evaluator;
+        this.functions = functions;
+        this.inliner = VNMConfig.INLINE ? new VNMInliner(evaluator, functions) : null;
+        this.folder = VNMConfig.OPTIMIZE ? new VNMFolder(evaluator) : null;
+        this.switches = VNMConfig.OPTIMIZE_SWITCH ? new VNMSwitches() : null;
+        this.loops = VNMConfig.OPTIMIZE_LOOPS ? new VNMLoops(evaluator, functions) : null;
+        this.common = VNMConfig.OPTIMIZE_CSE ? new VNMCommon(evaluator, functions) : null;
+    }
+
+    // The raw name of an identifier node, whether or not it has been resolved yet.
+    public static String nameOf(Node n) {
+        return String.valueOf(((SimpleNode) n).jjtGetValue());
+    }
+
+    // What a resolved call goes to: a VNMBuiltin, or the FUNCTION's table
+    // index, also when VNMInliner has copied the body in.
+    public static Object target(Node call) {
+        Object value = ((SimpleNode) call).jjtGetValue();
+        return (value instanceof VNMInline) ? ((VNMInline) value).index : value;
+    }
+
+    /* =======================
+       ENTRY POINTS
+       ======================= */
+
+    // Resolves a top-level statement. Anything not inside a function is global.
+    public void resolveTopLevel(SimpleNode tree) throws Exception {
+        locals = null;
+        current = null;
+        tree.jjtAccept(this, null);
+        if (inliner != null) {
+            inliner.topLevel(tree);
+        }
+        if (folder != null) {
+            folder.topLevel(tree);
+        }
+        if (switches != null) {
+            switches.topLevel(tree);
+        }
+        if (loops != null) {
+            loops.topLevel(tree);
+        }
+        if (common != null) {
+            common.topLevel(tree);
+        }
+    }
+
+    // What the folder knows about globals no longer holds (see VNMFolder).
+    public void forgetConstants() {
+        if (folder != null) {
+            folder.forget();
+        }
+    }
+
+    // Builds the VNMFunction for a declaration and resolves its body.
+    // fn_decl children: name, optional ident_list, body.
+    public VNMFunction declare(ASTfn_decl decl) throws Exception {
+        HashMap<String, Integer> savedLocals = locals;
+        VNMFunction savedCurrent = current;
+
+        String name = nameOf(decl.jjtGetChild(0));
+        if (VNMBuiltins.lookup(name) != null) {
+            throw new Exception("Function " + name + " is a builtin and cannot be redeclared");
+        }
+        SimpleNode body = (SimpleNode) decl.jjtGetChild(decl.jjtGetNumChildren() - 1);
+
+        // Parameters get the first slots, in order.
+        locals = new HashMap<String, Integer>();
+        ArrayList<VNMVarRef> params = new ArrayList<VNMVarRef>();
+        if (decl.jjtGetNumChildren() > 2) {
+            SimpleNode idents = (SimpleNode) decl.jjtGetChild(1);
+            for (int i = 0; i < idents.jjtGetNumChildren(); i++) {
+                String param = nameOf(idents.jjtGetChild(i));
+                if (locals.containsKey(param)) {
+                    throw new Exception("Parameter " + param + " declared twice in " + name);
+                }
+                VNMVarRef ref = new VNMVarRef(param, true, locals.size());
+                locals.put(param, Integer.valueOf(ref.index));
+                params.add(ref);
+                ((SimpleNode) idents.jjtGetChild(i)).jjtSetValue(ref);
+            }
+        }
+
+        // Then every name that appears in a VAR statement inside the body.
+        collectLocals(body);
+
+        current = new VNMFunction(name, functions.indexOf(name), decl, body,
+                                  params.toArray(new VNMVarRef[params.size()]));
+        current.frameSize = locals.size();
+        current.generator = yields(body);
+        if (current.generator && !name.startsWith("v_")) {
+            throw new Exception("Function " + name + " uses YIELD, so its name must start with v_");
+        }
+        VNMFunction fn = current;
+        try {
+            body.jjtAccept(this, null);
+            reserve(body, fn);
+            if (inliner != null) {
+                inliner.function(fn);
+            }
+            if (folder != null) {
+                folder.function(body);
+            }
+            if (switches != null) {
+                switches.function(fn);
+            }
+            if (loops != null) {
+                loops.function(fn);
+            }
+            if (common != null) {
+                common.function(fn);
+            }
+        } finally {
+            locals = savedLocals;
+            current = savedCurrent;
+        }
+        return fn;
+    }
+
+    // A body declared again keeps the slots VNMLoops and VNMCommon gave it
+    // the last time; the frame has to make room for them again before
+    // anything else takes slots.
+    private static void reserve(Node n, VNMFunction fn) {
+        if (n instanceof ASTfn_decl) {
+            return;
+        }
+        Object ref = ((SimpleNode) n).jjtGetValue();
+        if (ref instanceof VNMTemp && ((VNMTemp) ref).local) {
+            fn.frameSize = Math.max(fn.frameSize, ((VNMTemp) ref).index + 1);
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            reserve(n.jjtGetChild(i), fn);
+        }
+    }
+
+    // Walks a function body looking for VAR statements. Nested FUNCTION
+    // declarations get their own scope, so I don't look inside them.
+    private void collectLocals(Node n) {
+        if (n instanceof ASTfn_decl) {
+            return;
+        }
+        if (n instanceof ASTvar_decl) {
+            for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                String var = nameOf(n.jjtGetChild(i));
+                if (!locals.containsKey(var)) {
+                    locals.put(var, Integer.valueOf(locals.size()));
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            collectLocals(n.jjtGetChild(i));
+        }
+    }
+
+    // True if a YIELD appears in the body, outside nested FUNCTIONs.
+    static boolean yields(Node n) {
+        if (n instanceof ASTYield) {
+            return true;
+        }
+        if (n instanceof ASTfn_decl) {
+            return false;
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            if (yields(n.jjtGetChild(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* =======================
+       IDENTIFIERS
+       ======================= */
+
+    private Object resolveVar(SimpleNode n) throws Exception {
+        if (n.jjtGetValue() instanceof VNMTemp) {
+            // Added by VNMLoops or VNMCommon the last time round; keeps
+            // its slot.
+            return n.childrenAccept(this, null);
+        }
+        String name = nameOf(n);
+        Integer slot = (locals == null) ? null : locals.get(name);
+        if (slot != null) {
+            n.jjtSetValue(new VNMVarRef(name, true, slot.intValue()));
+        } else {
+            n.jjtSetValue(new VNMVarRef(name, false, evaluator.globalSlot(name)));
+        }
+        return null;
+    }
+
+    public Object visit(ASTidnum n, Object d) throws Exception {
+        return resolveVar(n);
+    }
+
+    public Object visit(ASTidbool n, Object d) throws Exception {
+        return resolveVar(n);
+    }
+
+    public Object visit(ASTidvec n, Object d) throws Exception {
+        return resolveVar(n);
+    }
+
+    // String literals are split from their quotes and encoded once here.
+    public Object visit(ASTstring n, Object d) throws Exception {
+        if (!(n.jjtGetValue() instanceof VNMText)) {
+            n.jjtSetValue(new VNMText(nameOf(n)));
+        }
+        return null;
+    }
+
+    /* =======================
+       FUNCTIONS
+       ======================= */
+
+    // A nested declaration is resolved on its own when it actually runs.
+    public Object visit(ASTfn_decl n, Object d) throws Exception {
+        return null;
+    }
+
+    // Call sites keep the callee's table index as their value, or the
+    // builtin itself if the name is one (builtins win over FUNCTIONs).
+    // A copy VNMInliner made the last time round is dropped here.
+    // The name node itself is left alone, it is not a variable.
+    private Object resolveCall(SimpleNode n) throws Exception {
+        String name = nameOf(n.jjtGetChild(0));
+        VNMBuiltin builtin = VNMBuiltins.lookup(name);
+        n.jjtSetValue(builtin != null ? (Object) builtin : Integer.valueOf(functions.indexOf(name)));
+        for (int i = 1; i < n.jjtGetNumChildren(); i++) {
+            n.jjtGetChild(i).jjtAccept(this, null);
+        }
+        return null;
+    }
+
+    public Object visit(ASTfn_call n, Object d) throws Exception {
+        return resolveCall(n);
+    }
+
+    public Object visit(ASTboolean_call n, Object d) throws Exception {
+        return resolveCall(n);
+    }
+
+    // "RETURN f(...)" inside f is a self-recursive tail call. I tag the
+    // RETURN node with the function so the evaluator can loop instead of
+    // growing the stack.
+    public Object visit(ASTReturn n, Object d) throws Exception {
+        n.jjtSetValue(null);
+        n.childrenAccept(this, null);
+        if (current != null && n.jjtGetNumChildren() == 1) {
+            Node value = n.jjtGetChild(0);
+            if ((value instanceof ASTfn_call || value instanceof ASTboolean_call)
+                    && nameOf(value.jjtGetChild(0)).equals(current.name)) {
+                n.jjtSetValue(current);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * VNMKernel written as plain loops. Used when the Vector API isn't
+ * available, and by VNMSimdKernel for the tails and for division.
+ */
+public class VNMScalarKernel extends VNMKernel {
+
+    public String name() {
+        return "scalar";
+    }
+
+    public void binary(int op, int[] a, int aOff, int[] b, int bOff, int[] out, int outOff, int n) {
+        switch (op) {
+            case ADD:
+                for (int i = 0; i < n; i++) out[outOff + i] = a[aOff + i] + b[bOff + i];
+                break;
+            case SUB:
+                for (int i = 0; i < n; i++) out[outOff + i] = a[aOff + i] - b[bOff + i];
+                break;
+            case MUL:
+                for (int i = 0; i < n; i++) out[outOff + i] = a[aOff + i] * b[bOff + i];
+                break;
+            case DIV:
+                for (int i = 0; i < n; i++) out[outOff + i] = a[aOff + i] / b[bOff + i];
+                break;
+            default:
+                for (int i = 0; i < n; i++) out[outOff + i] = a[aOff + i] % b[bOff + i];
+                break;
+        }
+    }
+
+    public void compare(int op, int[] a, int aOff, int[] b, int bOff, long[] out, int n) {
+        compareFrom(op, a, aOff, b, bOff, out, 0, n);
+    }
+
+    // Same as compare(), for elements from..n-1 only. Bits below from are kept.
+    static void compareFrom(int op, int[] a, int aOff, int[] b, int bOff, long[] out, int from, int n) {
+        for (int i = from; i < n; i++) {
+            int x = a[aOff + i], y = b[bOff + i];
+            boolean bit;
+            switch (op) {
+                case LT:  bit = x < y;  break;
+                case LE:  bit = x <= y; break;
+                case GT:  bit = x > y;  break;
+                case GE:  bit = x >= y; break;
+                case EQ:  bit = x == y; break;
+                default:  bit = x != y; break;
+            }
+            int w = i >>> 6;
+            if ((i & 63) == 0) {
+                out[w] = 0;
+            }
+            if (bit) {
+                out[w] |= 1L << i;
+            }
+        }
+    }
+
+    public long sum(int[] a, int off, int n) {
+        long s = 0;
+        for (int i = 0; i < n; i++) s += a[off + i];
+        return s;
+    }
+
+    public int min(int[] a, int off, int n) {
+        int m = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) m = Math.min(m, a[off + i]);
+        return m;
+    }
+
+    public int max(int[] a, int off, int n) {
+        int m = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) m = Math.max(m, a[off + i]);
+        return m;
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * A slot VNMCommon added for an expression that a block works out more
+ * than once.
+ *
+ * The first place the expression is worked out carries a VNMFirst, which
+ * always works it out and keeps the value if it is a number or a boolean;
+ * the later places carry one of these for the same slot and just read it.
+ * As with any VNMTemp, an empty slot means the value couldn't be kept, and
+ * the read works the expression out again.
+ */
+public class VNMShared extends VNMTemp {
+
+    public VNMShared(String name, boolean local, int index) {
+        super(name, local, index);
+    }
+}
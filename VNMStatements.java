@@ -0,0 +1,208 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Runs independent top-level statements at the same time.
+ *
+ * Used by TestVNM when -Dvnm.statements.parallel=true. Statements are
+ * resolved as they are parsed and collected into a group for as long as
+ * each new one is independent of the ones already in it: it writes no
+ * global variable they read or write, and reads none they write. Calls
+ * count with everything the called FUNCTIONs (and the functions they call)
+ * read and write. The group is run when a statement doesn't fit, and at
+ * the end of the script. Each statement gets its own evaluator, sharing
+ * the globals, and a buffer that its PRINTs, its value and its error go
+ * into. The buffers are printed in source order, so the output is the same
+ * as running the statements one after another.
+ *
+ * Some statements can't be checked this way and run on their own once the
+ * group before them has finished: FUNCTION declarations (which change what
+ * later calls do), SPAWN and AWAIT (whose handles and output depend on
+ * order), calls to builtins with side effects or hidden inputs (#save,
+ * v_load, #memo, v_memostats), and calls to FUNCTIONs that aren't declared
+ * yet or that do any of these.
+ */
+public final class VNMStatements {
+
+    // More than this many statements in a group are not waited for.
+    private static final int GROUP = 256;
+
+    private final VNMEval evaluator;
+    private final VNMFunctionTable functions;
+
+    private final ArrayList<SimpleNode> group = new ArrayList<SimpleNode>();
+    private final HashSet<String> reads = new HashSet<String>();
+    private final HashSet<String> writes = new HashSet<String>();
+
+    public VNMStatements(VNMEval evaluator) {
+        this.evaluator = evaluator;
+        this.functions = evaluator.functions();
+    }
+
+    // Takes the next top-level statement. Anything whose turn has come is
+    // printed.
+    public void add(SimpleNode tree) {
+        Access access = new Access();
+        try {
+            evaluator.resolve(tree);
+            access.statement(tree);
+        } catch (Exception e) {
+            access.barrier = true;
+        }
+        if (access.barrier) {
+            flush();
+            print("", evaluate(evaluator, tree));
+            return;
+        }
+        if (group.size() == GROUP || access.conflicts(reads, writes)) {
+            flush();
+        }
+        group.add(tree);
+        reads.addAll(access.reads);
+        writes.addAll(access.writes);
+    }
+
+    // Runs and prints the statements collected so far.
+    public void flush() {
+        int n = group.size();
+        if (n == 1) {
+            print("", evaluate(evaluator, group.get(0)));
+        } else if (n > 1) {
+            String[] output = new String[n];
+            Object[] results = new Object[n];
+            evaluator.countOwners();
+            try {
+                VNMParallel.forEach(n, 1, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        VNMEval own = evaluator.forStatement();
+                        results[i] = evaluate(own, group.get(i));
+                        output[i] = own.output();
+                    }
+                    return 0;
+                });
+            } catch (Exception e) {
+                // Can't happen: evaluate() catches what a statement throws.
+                throw new IllegalStateException(e);
+            }
+            for (int i = 0; i < n; i++) {
+                print(output[i], results[i]);
+            }
+        }
+        group.clear();
+        reads.clear();
+        writes.clear();
+    }
+
+    // The statement's value, or the Exception it threw.
+    private static Object evaluate(VNMEval evaluator, SimpleNode tree) {
+        try {
+            return evaluator.evaluateResolved(tree);
+        } catch (Exception e) {
+            return new Failed(e);
+        }
+    }
+
+    private static final class Failed {
+        final Exception error;
+
+        Failed(Exception error) {
+            this.error = error;
+        }
+    }
+
+    // Prints what TestVNM prints after a statement: its value, or its error.
+    private static void print(String output, Object result) {
+        System.out.print(output);
+        if (result instanceof Failed) {
+            System.out.println(((Failed) result).error);
+        } else if (result != null) {
+            System.out.println(result);
+        }
+    }
+
+    /* =======================
+       READS AND WRITES
+       ======================= */
+
+    // The global variables one statement reads and writes, by name.
+    private final class Access {
+        final HashSet<String> reads = new HashSet<String>();
+        final HashSet<String> writes = new HashSet<String>();
+        boolean barrier;
+
+        private final HashSet<VNMFunction> seen = new HashSet<VNMFunction>();
+
+        boolean conflicts(HashSet<String> otherReads, HashSet<String> otherWrites) {
+            for (String name : writes) {
+                if (otherReads.contains(name) || otherWrites.contains(name)) {
+                    return true;
+                }
+            }
+            for (String name : reads) {
+                if (otherWrites.contains(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void statement(Node n) {
+            if (n instanceof ASTfn_decl || n instanceof ASTSpawn || n instanceof ASTAwait) {
+                barrier = true;
+                return;
+            }
+            if (n instanceof ASTAssign || n instanceof ASTFor || n instanceof ASTParfor) {
+                Node target = n.jjtGetChild(0);
+                if (target instanceof ASTindex) {
+                    target = target.jjtGetChild(0);
+                }
+                write(target);
+            } else if (n instanceof ASTvar_decl) {
+                for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                    write(n.jjtGetChild(i));
+                }
+                return;
+            } else if (n instanceof ASTfn_call || n instanceof ASTboolean_call) {
+                call((SimpleNode) n);
+            }
+            Object ref = ((SimpleNode) n).jjtGetValue();
+            if (ref instanceof VNMVarRef && !((VNMVarRef) ref).local) {
+                reads.add(((VNMVarRef) ref).name);
+            }
+            for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+                statement(n.jjtGetChild(i));
+            }
+        }
+
+        private void write(Node var) {
+            Object ref = ((SimpleNode) var).jjtGetValue();
+            if (ref instanceof VNMVarRef && !((VNMVarRef) ref).local) {
+                writes.add(((VNMVarRef) ref).name);
+            }
+        }
+
+        // A call reads and writes whatever the FUNCTION's body does.
+        private void call(SimpleNode call) {
+            Object target = VNMResolver.target(call);
+            VNMFunction fn;
+            if (target instanceof VNMBuiltin) {
+                String name = VNMResolver.nameOf(call.jjtGetChild(0));
+                if (!VNMBuiltins.isPure(name) || !VNMBuiltins.isDeterministic(name)) {
+                    barrier = true;
+                    return;
+                }
+                if (!VNMPipeline.isStage(name)) {
+                    return;
+                }
+                fn = VNMEffects.stageFunction(call, functions);
+            } else {
+                fn = functions.get(((Integer) target).intValue());
+            }
+            if (fn == null) {
+                barrier = true;
+            } else if (seen.add(fn)) {
+                statement(fn.body);
+            }
+        }
+    }
+}
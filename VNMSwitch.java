@@ -0,0 +1,66 @@
+import java.util.HashMap;
+
+/**
+ * What VNMSwitches left on an IF whose first arms all test one expression
+ * with == against int constants.
+ *
+ * The evaluator works subject out once and, if it is an int, runs the arm
+ * for it straight away: from an array indexed by subject - low when the
+ * constants are close together, from a HashMap otherwise. If no arm has
+ * the value, otherwise runs (the rest of the chain, which can be an IF of
+ * its own, or the ELSE), or nothing if it is null. Any other value is
+ * tested arm by arm as written, which gives the same answer since subject
+ * has no side effects.
+ */
+public final class VNMSwitch {
+
+    public final Node subject;
+    public final Node otherwise;
+
+    private final Node[] arms;
+    private final int low;
+    private final int[] table;
+    private final HashMap<Integer, Integer> map;
+
+    // keys[i] selects arms[i]; the keys are distinct.
+    public VNMSwitch(Node subject, int[] keys, Node[] arms, Node otherwise, boolean dense) {
+        this.subject = subject;
+        this.arms = arms;
+        this.otherwise = otherwise;
+        int low = Integer.MAX_VALUE, high = Integer.MIN_VALUE;
+        for (int key : keys) {
+            low = Math.min(low, key);
+            high = Math.max(high, key);
+        }
+        this.low = low;
+        if (dense) {
+            // Arm number + 1, so 0 means none.
+            table = new int[high - low + 1];
+            for (int i = 0; i < keys.length; i++) {
+                table[keys[i] - low] = i + 1;
+            }
+            map = null;
+        } else {
+            table = null;
+            map = new HashMap<Integer, Integer>();
+            for (int i = 0; i < keys.length; i++) {
+                map.put(Integer.valueOf(keys[i]), Integer.valueOf(i));
+            }
+        }
+    }
+
+    // The arm to run for this value, or otherwise.
+    public Node select(int value) {
+        if (table != null) {
+            long at = (long) value - low;
+            int arm = (at >= 0 && at < table.length) ? table[(int) at] : 0;
+            return (arm == 0) ? otherwise : arms[arm - 1];
+        }
+        Integer arm = map.get(Integer.valueOf(value));
+        return (arm == null) ? otherwise : arms[arm.intValue()];
+    }
+
+    public String toString() {
+        return "switch of " + arms.length + " arms" + ((table != null) ? ", table" : ", hashed");
+    }
+}
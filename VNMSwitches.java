@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Turns long IF/ELIF chains that compare one expression with == against
+ * int constants into a VNMSwitch.
+ *
+ * Runs after VNMFolder, so constants are parsed and anything it could
+ * decide is gone, and before VNMLoops and VNMCommon. The chain is taken
+ * from the first arm for as long as each condition is "e == K" or
+ * "K == e", with the same e each time; what is left of it (more ELIFs, an
+ * ELSE, or nothing) runs when no K matches. A K seen before can never
+ * match and ends the chain, and so does any other kind of condition. e may
+ * only read variables and do arithmetic or indexing on them, so working it
+ * out once instead of once per arm changes nothing.
+ *
+ * Chains with fewer than vnm.switch.min arms are left alone. Runs unless
+ * -Dvnm.optimize=false or -Dvnm.optimize.switch=false.
+ */
+public final class VNMSwitches {
+
+    public void topLevel(SimpleNode tree) {
+        walk(tree);
+    }
+
+    public void function(VNMFunction fn) {
+        walk(fn.body);
+    }
+
+    private void walk(Node n) {
+        if (n instanceof ASTfn_decl) {
+            return;
+        }
+        if (n instanceof ASTIf) {
+            VNMSwitch s = chain((ASTIf) n);
+            ((ASTIf) n).jjtSetValue(s);
+            if (s != null) {
+                // The arms' conditions are still in the tree, for when the
+                // value isn't an int, but they hold nothing to compile.
+                walkArms(n, s);
+                return;
+            }
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            walk(n.jjtGetChild(i));
+        }
+    }
+
+    private void walkArms(Node n, VNMSwitch s) {
+        while (n instanceof ASTIf && n != s.otherwise) {
+            walk(n.jjtGetChild(1));
+            n = (n.jjtGetNumChildren() > 2) ? n.jjtGetChild(2) : null;
+        }
+        if (s.otherwise != null) {
+            walk(s.otherwise);
+        }
+    }
+
+    /* =======================
+       ONE CHAIN
+       ======================= */
+
+    private static VNMSwitch chain(ASTIf first) {
+        Node subject = null;
+        ArrayList<Integer> keys = new ArrayList<Integer>();
+        ArrayList<Node> arms = new ArrayList<Node>();
+        HashSet<Integer> seen = new HashSet<Integer>();
+        Node n = first;
+        while (n instanceof ASTIf) {
+            Node test = n.jjtGetChild(0);
+            if (!(test instanceof ASTcomparison) || !(test.jjtGetChild(1) instanceof ASTeq)) {
+                break;
+            }
+            Object left = VNMFolder.constant(test.jjtGetChild(0));
+            Object right = VNMFolder.constant(test.jjtGetChild(2));
+            Node e = (right instanceof Integer) ? test.jjtGetChild(0) : test.jjtGetChild(2);
+            Object k = (right instanceof Integer) ? right : left;
+            if (!(k instanceof Integer) || !seen.add((Integer) k)) {
+                break;
+            }
+            if (subject == null) {
+                if (!simple(e)) {
+                    break;
+                }
+                subject = e;
+            } else if (!same(subject, e)) {
+                break;
+            }
+            keys.add((Integer) k);
+            arms.add(n.jjtGetChild(1));
+            n = (n.jjtGetNumChildren() > 2) ? n.jjtGetChild(2) : null;
+        }
+        if (keys.size() < VNMConfig.SWITCH_MIN) {
+            return null;
+        }
+        if (n instanceof ASTNULL) {
+            n = null;
+        }
+        int[] k = new int[keys.size()];
+        long low = Long.MAX_VALUE, high = Long.MIN_VALUE;
+        for (int i = 0; i < k.length; i++) {
+            k[i] = keys.get(i).intValue();
+            low = Math.min(low, k[i]);
+            high = Math.max(high, k[i]);
+        }
+        // An array as long as four times the arms is still small.
+        boolean dense = high - low < 4L * k.length;
+        return new VNMSwitch(subject, k, arms.toArray(new Node[0]), n, dense);
+    }
+
+    // Variables, numbers, arithmetic and indexing: nothing that calls out,
+    // so working it out once is the same as once per arm.
+    private static boolean simple(Node n) {
+        if (n instanceof ASTidnum || n instanceof ASTidvec) {
+            return ((SimpleNode) n).jjtGetValue() instanceof VNMVarRef;
+        }
+        if (!(n instanceof ASTnumber || n instanceof ASTsum || n instanceof ASTpos
+              || n instanceof ASTneg || n instanceof ASTmul || n instanceof ASTdiv
+              || n instanceof ASTmod || n instanceof ASTindex)) {
+            return false;
+        }
+        for (int i = 0; i < n.jjtGetNumChildren(); i++) {
+            if (!simple(n.jjtGetChild(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The same expression, node for node.
+    private static boolean same(Node a, Node b) {
+        if (a.getClass() != b.getClass() || a.jjtGetNumChildren() != b.jjtGetNumChildren()) {
+            return false;
+        }
+        Object x = ((SimpleNode) a).jjtGetValue();
+        Object y = ((SimpleNode) b).jjtGetValue();
+        if (x instanceof VNMVarRef && y instanceof VNMVarRef) {
+            VNMVarRef p = (VNMVarRef) x, q = (VNMVarRef) y;
+            if (p.local != q.local || p.index != q.index || !p.name.equals(q.name)) {
+                return false;
+            }
+        } else if (x == null ? y != null : !x.equals(y)) {
+            return false;
+        }
+        for (int i = 0; i < a.jjtGetNumChildren(); i++) {
+            if (!same(a.jjtGetChild(i), b.jjtGetChild(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
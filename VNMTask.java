@@ -0,0 +1,55 @@
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A FUNCTION call started with SPAWN.
+ *
+ * The call runs on the fork/join pool (see VNMParallel) with an evaluator
+ * of its own: its own frames, a copy of the global variables and of the
+ * function table as they were at the SPAWN, and a buffer that PRINT writes
+ * into. Nothing the rest of the script does afterwards can change what the
+ * task sees, and nothing it prints shows up before it is awaited, so the
+ * output is the same whatever order the threads run in.
+ *
+ * AWAIT (or the end of the script) joins the task, which helps run other
+ * tasks if it is waiting on a pool thread, prints the buffer and hands back
+ * the result, or throws what the call threw.
+ */
+public final class VNMTask extends RecursiveTask<Object> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final VNMEval evaluator;
+    private final VNMFunction function;
+    private final int argc;
+
+    private Exception failure;
+
+    VNMTask(VNMEval evaluator, VNMFunction function, int argc) {
+        this.evaluator = evaluator;
+        this.function = function;
+        this.argc = argc;
+    }
+
+    protected Object compute() {
+        try {
+            return evaluator.runTask(function, argc);
+        } catch (Exception e) {
+            failure = e;
+            return null;
+        }
+    }
+
+    // Waits for the call to finish. Returns what it printed; result()
+    // then has its value.
+    String await() {
+        join();
+        return evaluator.output();
+    }
+
+    Object result() throws Exception {
+        if (failure != null) {
+            throw failure;
+        }
+        return getRawResult();
+    }
+}
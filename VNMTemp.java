@@ -0,0 +1,16 @@
+/**
+ * A slot VNMLoops added to hold the value of an expression inside a loop.
+ *
+ * The node carrying one of these is an ASTidnum whose only child is the
+ * expression it stands for, so everything that looks through the tree for
+ * the variables an expression reads still finds them. The loop empties the
+ * slot when it starts (see VNMLoop). The first read after that works the
+ * expression out and, if the value is a number or a boolean, keeps it for
+ * the reads after it.
+ */
+public class VNMTemp extends VNMVarRef {
+
+    public VNMTemp(String name, boolean local, int index) {
+        super(name, local, index);
+    }
+}
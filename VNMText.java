@@ -0,0 +1,27 @@
+/**
+ * A resolved string literal.
+ *
+ * The parser leaves a string literal's raw spelling, quotes included, as the
+ * node's value. VNMResolver swaps it for one of these, which keeps the text
+ * without quotes (so evaluating the literal allocates nothing) and its bytes
+ * as VNMOutput writes them (so PRINT copies them instead of encoding the
+ * string every time it runs).
+ */
+public final class VNMText {
+
+    public final String raw;
+    public final String text;
+    public final byte[] bytes;
+
+    public VNMText(String raw) {
+        this.raw = raw;
+        this.text = (raw.length() >= 2 && raw.startsWith("\"") && raw.endsWith("\""))
+                    ? raw.substring(1, raw.length() - 1) : raw;
+        this.bytes = text.getBytes(VNMOutput.CHARSET);
+    }
+
+    // I return the raw spelling so tree dumps look the same as before resolution.
+    public String toString() {
+        return raw;
+    }
+}
@@ -35,7 +35,7 @@ static private int jjMoveStringLiteralDfa0_0(){
       case 35:
          return jjMoveStringLiteralDfa1_0(0x18000000L);
       case 37:
-         jjmatchedKind = 54;
+         jjmatchedKind = 58;
          return jjMoveNfa_0(0, 0);
       case 38:
          jjmatchedKind = 17;
@@ -76,6 +76,8 @@ static private int jjMoveStringLiteralDfa0_0(){
       case 62:
          jjmatchedKind = 7;
          return jjMoveStringLiteralDfa1_0(0x100L);
+      case 65:
+         return jjMoveStringLiteralDfa1_0(0x800000000000L);
       case 68:
          return jjMoveStringLiteralDfa1_0(0x40000000L);
       case 69:
@@ -85,21 +87,27 @@ static private int jjMoveStringLiteralDfa0_0(){
       case 73:
          return jjMoveStringLiteralDfa1_0(0x200000000L);
       case 80:
-         return jjMoveStringLiteralDfa1_0(0x60000000000L);
+         return jjMoveStringLiteralDfa1_0(0x260000000000L);
       case 82:
          return jjMoveStringLiteralDfa1_0(0x8000000000L);
+      case 83:
+         return jjMoveStringLiteralDfa1_0(0x400000000000L);
       case 84:
          return jjMoveStringLiteralDfa1_0(0x400000000L);
       case 86:
          return jjMoveStringLiteralDfa1_0(0x80000000000L);
       case 87:
          return jjMoveStringLiteralDfa1_0(0x80000000L);
+      case 89:
+         return jjMoveStringLiteralDfa1_0(0x100000000000L);
       case 91:
          jjmatchedKind = 22;
          return jjMoveNfa_0(0, 0);
       case 93:
          jjmatchedKind = 24;
          return jjMoveNfa_0(0, 0);
+      case 97:
+         return jjMoveStringLiteralDfa1_0(0x800000000000L);
       case 100:
          return jjMoveStringLiteralDfa1_0(0x40000000L);
       case 101:
@@ -109,15 +117,19 @@ static private int jjMoveStringLiteralDfa0_0(){
       case 105:
          return jjMoveStringLiteralDfa1_0(0x200000000L);
       case 112:
-         return jjMoveStringLiteralDfa1_0(0x60000000000L);
+         return jjMoveStringLiteralDfa1_0(0x260000000000L);
       case 114:
          return jjMoveStringLiteralDfa1_0(0x8000000000L);
+      case 115:
+         return jjMoveStringLiteralDfa1_0(0x400000000000L);
       case 116:
          return jjMoveStringLiteralDfa1_0(0x400000000L);
       case 118:
          return jjMoveStringLiteralDfa1_0(0x80000000000L);
       case 119:
          return jjMoveStringLiteralDfa1_0(0x80000000L);
+      case 121:
+         return jjMoveStringLiteralDfa1_0(0x100000000000L);
       case 124:
          jjmatchedKind = 18;
          return jjMoveNfa_0(0, 0);
@@ -181,7 +193,7 @@ static private int jjMoveStringLiteralDfa1_0(long active0){
          }
          break;
       case 65:
-         return jjMoveStringLiteralDfa2_0(active0, 0x80000000000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x280000000000L);
       case 69:
          return jjMoveStringLiteralDfa2_0(active0, 0x8000000000L);
       case 70:
@@ -199,7 +211,7 @@ static private int jjMoveStringLiteralDfa1_0(long active0){
             jjmatchedKind = 37;
             jjmatchedPos = 1;
          }
-         break;
+         return jjMoveStringLiteralDfa2_0(active0, 0x100000000000L);
       case 76:
          return jjMoveStringLiteralDfa2_0(active0, 0x1800000000L);
       case 78:
@@ -211,12 +223,16 @@ static private int jjMoveStringLiteralDfa1_0(long active0){
             jjmatchedPos = 1;
          }
          return jjMoveStringLiteralDfa2_0(active0, 0x100000000L);
+      case 80:
+         return jjMoveStringLiteralDfa2_0(active0, 0x400000000000L);
       case 82:
          return jjMoveStringLiteralDfa2_0(active0, 0x60000000000L);
       case 85:
          return jjMoveStringLiteralDfa2_0(active0, 0x4000000000L);
+      case 87:
+         return jjMoveStringLiteralDfa2_0(active0, 0x800000000000L);
       case 97:
-         return jjMoveStringLiteralDfa2_0(active0, 0x80000000000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x280000000000L);
       case 101:
          return jjMoveStringLiteralDfa2_0(active0, 0x8000000000L);
       case 102:
@@ -234,7 +250,7 @@ static private int jjMoveStringLiteralDfa1_0(long active0){
             jjmatchedKind = 37;
             jjmatchedPos = 1;
          }
-         return jjMoveStringLiteralDfa2_0(active0, 0x1800L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x100000001800L);
       case 108:
          return jjMoveStringLiteralDfa2_0(active0, 0x1800000000L);
       case 110:
@@ -246,10 +262,14 @@ static private int jjMoveStringLiteralDfa1_0(long active0){
             jjmatchedPos = 1;
          }
          return jjMoveStringLiteralDfa2_0(active0, 0x100000000L);
+      case 112:
+         return jjMoveStringLiteralDfa2_0(active0, 0x400000000000L);
       case 114:
          return jjMoveStringLiteralDfa2_0(active0, 0x60000000000L);
       case 117:
          return jjMoveStringLiteralDfa2_0(active0, 0x4000000000L);
+      case 119:
+         return jjMoveStringLiteralDfa2_0(active0, 0x800000000000L);
       default :
          break;
    }
@@ -264,6 +284,8 @@ static private int jjMoveStringLiteralDfa2_0(long old0, long active0){
    }
    switch(curChar)
    {
+      case 65:
+         return jjMoveStringLiteralDfa3_0(active0, 0xc00000000000L);
       case 68:
          if ((active0 & 0x10000000000L) != 0L)
          {
@@ -272,7 +294,7 @@ static private int jjMoveStringLiteralDfa2_0(long old0, long active0){
          }
          break;
       case 69:
-         return jjMoveStringLiteralDfa3_0(active0, 0x400000000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x100400000000L);
       case 73:
          return jjMoveStringLiteralDfa3_0(active0, 0x60880000000L);
       case 78:
@@ -288,11 +310,13 @@ static private int jjMoveStringLiteralDfa2_0(long old0, long active0){
             jjmatchedKind = 43;
             jjmatchedPos = 2;
          }
-         break;
+         return jjMoveStringLiteralDfa3_0(active0, 0x200000000000L);
       case 83:
          return jjMoveStringLiteralDfa3_0(active0, 0x1000000000L);
       case 84:
          return jjMoveStringLiteralDfa3_0(active0, 0x8000000000L);
+      case 97:
+         return jjMoveStringLiteralDfa3_0(active0, 0xc00000000000L);
       case 100:
          if ((active0 & 0x10000000000L) != 0L)
          {
@@ -301,7 +325,7 @@ static private int jjMoveStringLiteralDfa2_0(long old0, long active0){
          }
          break;
       case 101:
-         return jjMoveStringLiteralDfa3_0(active0, 0x400000000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x100400000000L);
       case 105:
          return jjMoveStringLiteralDfa3_0(active0, 0x60880000000L);
       case 110:
@@ -327,7 +351,7 @@ static private int jjMoveStringLiteralDfa2_0(long old0, long active0){
             jjmatchedKind = 43;
             jjmatchedPos = 2;
          }
-         break;
+         return jjMoveStringLiteralDfa3_0(active0, 0x200000000000L);
       case 115:
          return jjMoveStringLiteralDfa3_0(active0, 0x1000000000L);
       case 116:
@@ -361,9 +385,11 @@ static private int jjMoveStringLiteralDfa3_0(long old0, long active0){
             jjmatchedKind = 35;
             jjmatchedPos = 3;
          }
-         break;
+         return jjMoveStringLiteralDfa4_0(active0, 0x200000000000L);
+      case 73:
+         return jjMoveStringLiteralDfa4_0(active0, 0x800000000000L);
       case 76:
-         return jjMoveStringLiteralDfa4_0(active0, 0x80000000L);
+         return jjMoveStringLiteralDfa4_0(active0, 0x100080000000L);
       case 78:
          if ((active0 & 0x400000000L) != 0L)
          {
@@ -373,6 +399,8 @@ static private int jjMoveStringLiteralDfa3_0(long old0, long active0){
          return jjMoveStringLiteralDfa4_0(active0, 0x60000000000L);
       case 85:
          return jjMoveStringLiteralDfa4_0(active0, 0x8000000000L);
+      case 87:
+         return jjMoveStringLiteralDfa4_0(active0, 0x400000000000L);
       case 99:
          return jjMoveStringLiteralDfa4_0(active0, 0x4000000000L);
       case 101:
@@ -388,9 +416,11 @@ static private int jjMoveStringLiteralDfa3_0(long old0, long active0){
             jjmatchedKind = 35;
             jjmatchedPos = 3;
          }
-         break;
+         return jjMoveStringLiteralDfa4_0(active0, 0x200000000000L);
+      case 105:
+         return jjMoveStringLiteralDfa4_0(active0, 0x800000000000L);
       case 108:
-         return jjMoveStringLiteralDfa4_0(active0, 0x80000000L);
+         return jjMoveStringLiteralDfa4_0(active0, 0x100080000000L);
       case 110:
          if ((active0 & 0x400000000L) != 0L)
          {
@@ -400,6 +430,8 @@ static private int jjMoveStringLiteralDfa3_0(long old0, long active0){
          return jjMoveStringLiteralDfa4_0(active0, 0x60000000000L);
       case 117:
          return jjMoveStringLiteralDfa4_0(active0, 0x8000000000L);
+      case 119:
+         return jjMoveStringLiteralDfa4_0(active0, 0x400000000000L);
       default :
          break;
    }
@@ -414,6 +446,13 @@ static private int jjMoveStringLiteralDfa4_0(long old0, long active0){
    }
    switch(curChar)
    {
+      case 68:
+         if ((active0 & 0x100000000000L) != 0L)
+         {
+            jjmatchedKind = 44;
+            jjmatchedPos = 4;
+         }
+         break;
       case 69:
          if ((active0 & 0x80000000L) != 0L)
          {
@@ -421,6 +460,15 @@ static private int jjMoveStringLiteralDfa4_0(long old0, long active0){
             jjmatchedPos = 4;
          }
          break;
+      case 78:
+         if ((active0 & 0x400000000000L) != 0L)
+         {
+            jjmatchedKind = 46;
+            jjmatchedPos = 4;
+         }
+         break;
+      case 79:
+         return jjMoveStringLiteralDfa5_0(active0, 0x200000000000L);
       case 82:
          return jjMoveStringLiteralDfa5_0(active0, 0x8000000000L);
       case 84:
@@ -429,7 +477,19 @@ static private int jjMoveStringLiteralDfa4_0(long old0, long active0){
             jjmatchedKind = 41;
             jjmatchedPos = 4;
          }
+         else if ((active0 & 0x800000000000L) != 0L)
+         {
+            jjmatchedKind = 47;
+            jjmatchedPos = 4;
+         }
          return jjMoveStringLiteralDfa5_0(active0, 0x44000000000L);
+      case 100:
+         if ((active0 & 0x100000000000L) != 0L)
+         {
+            jjmatchedKind = 44;
+            jjmatchedPos = 4;
+         }
+         break;
       case 101:
          if ((active0 & 0x80000000L) != 0L)
          {
@@ -437,6 +497,15 @@ static private int jjMoveStringLiteralDfa4_0(long old0, long active0){
             jjmatchedPos = 4;
          }
          break;
+      case 110:
+         if ((active0 & 0x400000000000L) != 0L)
+         {
+            jjmatchedKind = 46;
+            jjmatchedPos = 4;
+         }
+         break;
+      case 111:
+         return jjMoveStringLiteralDfa5_0(active0, 0x200000000000L);
       case 114:
          return jjMoveStringLiteralDfa5_0(active0, 0x8000000000L);
       case 116:
@@ -445,6 +514,11 @@ static private int jjMoveStringLiteralDfa4_0(long old0, long active0){
             jjmatchedKind = 41;
             jjmatchedPos = 4;
          }
+         else if ((active0 & 0x800000000000L) != 0L)
+         {
+            jjmatchedKind = 47;
+            jjmatchedPos = 4;
+         }
          return jjMoveStringLiteralDfa5_0(active0, 0x44000000000L);
       default :
          break;
@@ -471,6 +545,13 @@ static private int jjMoveStringLiteralDfa5_0(long old0, long active0){
             jjmatchedPos = 5;
          }
          break;
+      case 82:
+         if ((active0 & 0x200000000000L) != 0L)
+         {
+            jjmatchedKind = 45;
+            jjmatchedPos = 5;
+         }
+         break;
       case 105:
          return jjMoveStringLiteralDfa6_0(active0, 0x4000000000L);
       case 108:
@@ -482,6 +563,13 @@ static private int jjMoveStringLiteralDfa5_0(long old0, long active0){
             jjmatchedPos = 5;
          }
          break;
+      case 114:
+         if ((active0 & 0x200000000000L) != 0L)
+         {
+            jjmatchedKind = 45;
+            jjmatchedPos = 5;
+         }
+         break;
       default :
          break;
    }
@@ -578,8 +666,8 @@ static private int jjMoveNfa_0(int startState, int curPos)
                case 0:
                   if ((0x3ff000000000000L & l) != 0L)
                   {
-                     if (kind > 49)
-                        kind = 49;
+                     if (kind > 53)
+                        kind = 53;
                      { jjCheckNAdd(3); }
                   }
                   else if (curChar == 47)
@@ -596,14 +684,14 @@ static private int jjMoveNfa_0(int startState, int curPos)
                      { jjCheckNAddTwoStates(1, 2); }
                   break;
                case 2:
-                  if (curChar == 34 && kind > 48)
-                     kind = 48;
+                  if (curChar == 34 && kind > 52)
+                     kind = 52;
                   break;
                case 3:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 49)
-                     kind = 49;
+                  if (kind > 53)
+                     kind = 53;
                   { jjCheckNAdd(3); }
                   break;
                case 4:
@@ -613,8 +701,8 @@ static private int jjMoveNfa_0(int startState, int curPos)
                case 6:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 50)
-                     kind = 50;
+                  if (kind > 54)
+                     kind = 54;
                   jjstateSet[jjnewStateCnt++] = 6;
                   break;
                case 7:
@@ -624,15 +712,15 @@ static private int jjMoveNfa_0(int startState, int curPos)
                case 9:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 51)
-                     kind = 51;
+                  if (kind > 55)
+                     kind = 55;
                   jjstateSet[jjnewStateCnt++] = 9;
                   break;
                case 11:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 52)
-                     kind = 52;
+                  if (kind > 56)
+                     kind = 56;
                   jjstateSet[jjnewStateCnt++] = 11;
                   break;
                case 13:
@@ -644,12 +732,12 @@ static private int jjMoveNfa_0(int startState, int curPos)
                      { jjCheckNAddStates(0, 2); }
                   break;
                case 15:
-                  if ((0x2400L & l) != 0L && kind > 53)
-                     kind = 53;
+                  if ((0x2400L & l) != 0L && kind > 57)
+                     kind = 57;
                   break;
                case 16:
-                  if (curChar == 10 && kind > 53)
-                     kind = 53;
+                  if (curChar == 10 && kind > 57)
+                     kind = 57;
                   break;
                case 17:
                   if (curChar == 13)
@@ -681,16 +769,16 @@ static private int jjMoveNfa_0(int startState, int curPos)
                case 6:
                   if ((0x7fffffe07fffffeL & l) == 0L)
                      break;
-                  if (kind > 50)
-                     kind = 50;
+                  if (kind > 54)
+                     kind = 54;
                   { jjCheckNAdd(6); }
                   break;
                case 8:
                case 9:
                   if ((0x7fffffe07fffffeL & l) == 0L)
                      break;
-                  if (kind > 51)
-                     kind = 51;
+                  if (kind > 55)
+                     kind = 55;
                   { jjCheckNAdd(9); }
                   break;
                case 10:
@@ -700,8 +788,8 @@ static private int jjMoveNfa_0(int startState, int curPos)
                case 11:
                   if ((0x7fffffe07fffffeL & l) == 0L)
                      break;
-                  if (kind > 52)
-                     kind = 52;
+                  if (kind > 56)
+                     kind = 56;
                   { jjCheckNAdd(11); }
                   break;
                case 14:
@@ -770,7 +858,8 @@ public static final String[] jjstrLiteralImages = {
 "\41\75", "\75\151\156", "\41\151\156", "\53", "\55", "\52", "\57", "\46", "\174", 
 "\41", "\72\75", "\50", "\133", "\51", "\135", "\54", "\73", "\43\61", "\43\60", 
 "\56\56", null, null, null, null, null, null, null, null, null, null, null, null, null, 
-null, null, null, null, null, null, null, null, null, null, null, "\45", };
+null, null, null, null, null, null, null, null, null, null, null, null, null, null, 
+null, "\45", };
 static protected Token jjFillToken()
 {
    final Token t;
@@ -996,16 +1085,16 @@ public static final String[] lexStateNames = {
 public static final int[] jjnewLexState = {
    -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 
    -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 
-   -1, -1, -1, -1, -1, 
+   -1, -1, -1, -1, -1, -1, -1, -1, -1, 
 };
 static final long[] jjtoToken = {
-   0x5f0fffffffffe1L, 
+   0x5f0ffffffffffe1L, 
 };
 static final long[] jjtoSkip = {
-   0x2000000000001eL, 
+   0x20000000000001eL, 
 };
 static final long[] jjtoSpecial = {
-   0x20000000000000L, 
+   0x200000000000000L, 
 };
 static final long[] jjtoMore = {
    0x0L, 
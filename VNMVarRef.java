@@ -0,0 +1,29 @@
+/**
+ * A resolved variable reference.
+ *
+ * The parser leaves the raw spelling of every identifier (like "#x" or "v_a")
+ * as the node's value. Before a tree runs, VNMResolver swaps that string for
+ * one of these, so the evaluator can go straight to a slot instead of looking
+ * the name up in a map on every access.
+ */
+public class VNMVarRef {
+
+    public final String name;
+
+    // true  = slot in the current function frame
+    // false = slot in the global table
+    public final boolean local;
+
+    public final int index;
+
+    public VNMVarRef(String name, boolean local, int index) {
+        this.name = name;
+        this.local = local;
+        this.index = index;
+    }
+
+    // I return the plain name so tree dumps look the same as before resolution.
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runtime value of a v_ variable.
+ *
+ * There are two kinds: numeric vectors (VNMIntVector, elements kept in an
+ * int[]) and boolean vectors (VNMBoolVector, elements packed 64 to a long).
+ * Neither boxes its elements, and either moves its elements off the Java
+ * heap (VNMOffHeap) once they get big enough. Code that doesn't care about the kind can use
+ * length() and get(), which boxes one element at a time.
+ *
+ * Vectors have value semantics but are copied lazily. "v_a := v_b" and
+ * passing a vector to a function give the receiver a new handle on the same
+ * storage (share()), and the handles count how many of them are alive. The
+ * first write through a handle whose storage is shared copies it first.
+ */
+public abstract class VNMVector {
+
+    // Number of live handles on this handle's storage. null means this
+    // handle has never been shared, so it is the only one.
+    protected AtomicInteger owners;
+
+    // Set once a variable holds this handle. Putting it anywhere else after
+    // that has to go through share().
+    private boolean bound;
+
+    public abstract int length();
+
+    public abstract boolean isBoolean();
+
+    // Element i as an Integer or Boolean.
+    public abstract Object get(int i);
+
+    // A new handle on the same elements. Nothing is copied.
+    public abstract VNMVector share();
+
+    // Returns a handle a variable can hold on to: this one if nobody holds it
+    // yet, otherwise a shared copy.
+    public VNMVector claim() {
+        if (bound) {
+            VNMVector copy = share();
+            copy.bound = true;
+            return copy;
+        }
+        bound = true;
+        return this;
+    }
+
+    public boolean isBound() {
+        return bound;
+    }
+
+    // Called when a variable stops holding this handle. It no longer
+    // counts as an owner, so the remaining ones may write in place again.
+    public void release() {
+        if (owners != null) {
+            owners.decrementAndGet();
+            owners = null;
+        }
+        bound = false;
+    }
+
+    // Adds this handle to the owner count of its storage and hands back the
+    // counter for the new handle to use.
+    protected AtomicInteger addOwner() {
+        if (owners == null) {
+            owners = new AtomicInteger(1);
+        }
+        owners.incrementAndGet();
+        return owners;
+    }
+
+    // Starts counting owners now instead of on the first share(), so
+    // handles can then be shared from several threads at once.
+    public void countOwners() {
+        if (owners == null) {
+            owners = new AtomicInteger(1);
+        }
+    }
+
+    // Makes sure writes through this handle go straight to its storage,
+    // e.g. before several threads write different elements of it.
+    public abstract void own();
+
+    // True if some other live handle uses the same storage, in which case
+    // the storage must be copied before writing to it.
+    protected boolean isShared() {
+        return owners != null && owners.get() > 1;
+    }
+
+    // Throws the same kind of error for every out-of-range access.
+    protected void checkIndex(int i) {
+        if (i < 0 || i >= length()) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of range for vector of length " + length());
+        }
+    }
+
+    // Capacity to grow to when an append runs out of room. I grow by half
+    // again each time so a long run of appends costs amortized O(1).
+    protected static int grownCapacity(int current, int needed) {
+        int grown = current + (current >> 1) + 1;
+        if (grown < needed) {
+            grown = needed;
+        }
+        if (grown < 0) {
+            grown = Integer.MAX_VALUE - 8;
+        }
+        return grown;
+    }
+
+    // Vectors print the way they are written, e.g. [1, 2, 3].
+    public String toString() {
+        int n = length();
+        StringBuilder sb = new StringBuilder(2 + n * 4);
+        sb.append('[');
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(get(i));
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary vector files, for the builtins #save(v_a, "file") and v_load("file").
+ *
+ * Layout, all little-endian:
+ *
+ *   bytes 0-3    "VNMV"
+ *   bytes 4-7    kind: 0 numeric, 1 boolean
+ *   bytes 8-15   number of elements
+ *   bytes 16-    numeric: one int per element
+ *                boolean: one long per 64 elements, element i is bit i % 64
+ *                of word i / 64
+ *
+ * Loading parses nothing. A vector big enough to live off the heap
+ * (VNMConfig.OFFHEAP_BYTES) is mapped straight from the file, so v_load
+ * returns at once and the OS reads pages in as the elements get used.
+ * Writes to a mapped vector stay private to the process; if the file is
+ * read-only the vector is copied on its first write instead. Smaller files
+ * are read into an ordinary array.
+ */
+public final class VNMVectorIO {
+
+    private static final int MAGIC = 'V' | ('N' << 8) | ('M' << 16) | ('V' << 24);
+    private static final int NUMERIC = 0, BOOLEAN = 1;
+    private static final int HEADER = 16;
+
+    private VNMVectorIO() {
+    }
+
+    // #save(v_a, "file"): writes the vector and returns its length.
+    // The file is written next to its final name and then renamed, so a
+    // vector currently mapped from that file is never cut short under us.
+    public static Object save(Object[] args) throws Exception {
+        VNMBuiltins.expect("#save", args, 2);
+        if (!(args[0] instanceof VNMVector) || !(args[1] instanceof String)) {
+            throw new Exception("#save expects a vector and a file name");
+        }
+        VNMVector vec = (VNMVector) args[0];
+        String name = (String) args[1];
+        Path path = Paths.get(name).toAbsolutePath();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putInt(vec.isBoolean() ? BOOLEAN : NUMERIC);
+        header.putLong(vec.length());
+        header.flip();
+
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                if (vec.isBoolean()) {
+                    ((VNMBoolVector) vec).writeTo(out);
+                } else {
+                    ((VNMIntVector) vec).writeTo(out);
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw new Exception("Cannot write " + name + ": " + e.getMessage());
+        }
+        return Integer.valueOf(vec.length());
+    }
+
+    // v_load("file"): the vector saved in the file.
+    public static Object load(Object[] args) throws Exception {
+        VNMBuiltins.expect("v_load", args, 1);
+        if (!(args[0] instanceof String)) {
+            throw new Exception("v_load expects a file name");
+        }
+        String name = (String) args[0];
+        Path path = Paths.get(name);
+        boolean writable = true;
+        FileChannel channel;
+        try {
+            // A private mapping needs a channel opened for writing too, even
+            // though nothing is ever written through it.
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (AccessDeniedException e) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+                writable = false;
+            }
+        } catch (NoSuchFileException e) {
+            throw new Exception("File " + name + " not found");
+        } catch (IOException e) {
+            throw new Exception("Cannot read " + name + ": " + e.getMessage());
+        }
+
+        try (FileChannel in = channel) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(in, header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new Exception(name + " is not a VNM vector file");
+            }
+            int kind = header.getInt(4);
+            long length = header.getLong(8);
+            if ((kind != NUMERIC && kind != BOOLEAN) || length < 0 || length > Integer.MAX_VALUE) {
+                throw new Exception(name + " is not a VNM vector file");
+            }
+            int n = (int) length;
+            long bytes = (kind == NUMERIC) ? length << 2 : ((length + 63) >>> 6) << 3;
+            if (in.size() < HEADER + bytes) {
+                throw new Exception(name + " is cut short: expected " + length + " elements");
+            }
+
+            if (bytes > 0 && VNMOffHeap.wanted(bytes)) {
+                FileChannel.MapMode mode = writable ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_ONLY;
+                VNMOffHeap store = VNMOffHeap.map(in, mode, HEADER, bytes);
+                return (kind == NUMERIC) ? VNMIntVector.wrap(store, n) : VNMBoolVector.wrap(store, n);
+            }
+            ByteBuffer body = ByteBuffer.allocate((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(in, body, HEADER);
+            if (kind == NUMERIC) {
+                int[] values = new int[n];
+                body.asIntBuffer().get(values);
+                return VNMIntVector.wrap(values, n);
+            }
+            long[] words = new long[(int) (bytes >>> 3)];
+            body.asLongBuffer().get(words);
+            return VNMBoolVector.wrap(words, n);
+        } catch (IOException e) {
+            throw new Exception("Cannot read " + name + ": " + e.getMessage());
+        }
+    }
+
+    // Fills buf from the channel, starting at position, and rewinds it.
+    private static void readFully(FileChannel in, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int got = in.read(buf, position + buf.position());
+            if (got < 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+        buf.flip();
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.Arrays;
+
+/**
+ * The general-purpose builtins: #length, v_sort, v_reverse, #indexof and
+ * ?sorted. Each of them would be a FOR loop in VNM, paying for every element
+ * in the interpreter; here they work on the primitive storage directly, a
+ * block at a time.
+ *
+ * Like every builtin they get fresh arguments and return a new vector
+ * (or a number or boolean), never one of the vectors they were given.
+ */
+public final class VNMVectorLib {
+
+    // Elements per block, a multiple of 64 so boolean blocks are whole words.
+    private static final int BLOCK = 4096;
+
+    private VNMVectorLib() {
+    }
+
+    // #length(v_a): number of elements of any vector.
+    public static Object length(Object[] args) throws Exception {
+        return Integer.valueOf(vectorArg("#length", args, 1).length());
+    }
+
+    // v_sort(v_a): the elements in ascending order (false before true for a
+    // boolean vector). Big vectors are sorted with Arrays.parallelSort.
+    public static Object sort(Object[] args) throws Exception {
+        VNMVector v = vectorArg("v_sort", args, 1);
+        int n = v.length();
+        if (v.isBoolean()) {
+            VNMBoolVector b = (VNMBoolVector) v;
+            int trues = b.countTrue(0, n);
+            return fill(n, n - trues);
+        }
+        int[] values = ((VNMIntVector) v).toIntArray();
+        if (VNMParallel.worthIt(n)) {
+            Arrays.parallelSort(values);
+        } else {
+            Arrays.sort(values);
+        }
+        VNMIntVector result = VNMIntVector.wrap(values, n);
+        result.markSorted();
+        return result;
+    }
+
+    // A boolean vector of n elements, false before from and true from there on.
+    private static VNMBoolVector fill(int n, int from) {
+        VNMBoolVector result = VNMBoolVector.falses(n);
+        long[] words = new long[Math.min((n + 63) >>> 6, BLOCK >>> 6)];
+        for (int first = from >>> 6; first << 6 < n; first += words.length) {
+            int count = Math.min(words.length, ((n + 63) >>> 6) - first);
+            for (int w = 0; w < count; w++) {
+                int start = (first + w) << 6;
+                words[w] = (start >= from) ? -1L : -1L << (from - start);
+            }
+            result.setWords(first, words, count);
+        }
+        return result;
+    }
+
+    // v_reverse(v_a): the elements, last one first.
+    public static Object reverse(Object[] args) throws Exception {
+        VNMVector v = vectorArg("v_reverse", args, 1);
+        int n = v.length();
+        if (v.isBoolean()) {
+            VNMBoolVector b = (VNMBoolVector) v;
+            VNMBoolVector result = VNMBoolVector.falses(n);
+            long[] words = new long[Math.min((n + 63) >>> 6, BLOCK >>> 6)];
+            for (int from = 0; from < n; from += BLOCK) {
+                int k = Math.min(BLOCK, n - from);
+                Arrays.fill(words, 0L);
+                for (int i = 0; i < k; i++) {
+                    if (b.getBool(n - 1 - from - i)) {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+                result.setWords(from >>> 6, words, (k + 63) >>> 6);
+            }
+            return result;
+        }
+        VNMIntVector a = (VNMIntVector) v;
+        VNMIntVector result = VNMIntVector.zeros(n);
+        int[] buf = new int[Math.min(n, BLOCK)];
+        for (int from = 0; from < n; from += BLOCK) {
+            int k = Math.min(BLOCK, n - from);
+            a.getInts(n - from - k, buf, 0, k);
+            for (int i = 0, j = k - 1; i < j; i++, j--) {
+                int t = buf[i];
+                buf[i] = buf[j];
+                buf[j] = t;
+            }
+            result.setInts(from, buf, 0, k);
+        }
+        return result;
+    }
+
+    // #indexof(v_a, #x): index of the first element equal to #x, or -1.
+    public static Object indexOf(Object[] args) throws Exception {
+        VNMVector v = vectorArg("#indexof", args, 2);
+        if (v.isBoolean() || !VNMNumbers.isNumber(args[1])) {
+            throw new Exception("#indexof expects a numeric vector and a number");
+        }
+        if (VNMNumbers.isBig(args[1])) {
+            return Integer.valueOf(-1);
+        }
+        VNMIntVector a = (VNMIntVector) v;
+        int target = ((Integer) args[1]).intValue();
+        long at = VNMParallel.run(a.length(), (lo, hi) -> {
+            int[] data = a.array();
+            if (data != null) {
+                int base = a.arrayOffset();
+                for (int i = lo; i < hi; i++) {
+                    if (data[base + i] == target) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            int[] buf = new int[Math.min(hi - lo, BLOCK)];
+            for (int from = lo; from < hi; from += BLOCK) {
+                int k = Math.min(BLOCK, hi - from);
+                a.getInts(from, buf, 0, k);
+                for (int i = 0; i < k; i++) {
+                    if (buf[i] == target) {
+                        return from + i;
+                    }
+                }
+            }
+            return -1;
+        }, VNMVectorLib::first);
+        return Integer.valueOf((int) at);
+    }
+
+    // Keeps the leftmost hit, so the answer is the same however the vector
+    // was split.
+    private static long first(long left, long right) {
+        return (left >= 0) ? left : right;
+    }
+
+    // ?sorted(v_a): whether the elements are in ascending order.
+    public static Object sorted(Object[] args) throws Exception {
+        VNMVector v = vectorArg("?sorted", args, 1);
+        int n = v.length();
+        if (v.isBoolean()) {
+            VNMBoolVector b = (VNMBoolVector) v;
+            // Sorted means every true is in the tail, after all the falses.
+            int trues = b.countTrue(0, n);
+            return Boolean.valueOf(b.countTrue(0, n - trues) == 0);
+        }
+        VNMIntVector a = (VNMIntVector) v;
+        if (a.isSorted()) {
+            return Boolean.TRUE;
+        }
+        int[] buf = new int[Math.min(n, BLOCK)];
+        int previous = Integer.MIN_VALUE;
+        for (int from = 0; from < n; from += BLOCK) {
+            int k = Math.min(BLOCK, n - from);
+            a.getInts(from, buf, 0, k);
+            for (int i = 0; i < k; i++) {
+                if (buf[i] < previous) {
+                    return Boolean.FALSE;
+                }
+                previous = buf[i];
+            }
+        }
+        return Boolean.TRUE;
+    }
+
+    private static VNMVector vectorArg(String name, Object[] args, int count) throws Exception {
+        VNMBuiltins.expect(name, args, count);
+        if (!(args[0] instanceof VNMVector)) {
+            throw new Exception(name + " expects a vector");
+        }
+        return (VNMVector) args[0];
+    }
+}
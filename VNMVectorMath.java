@@ -0,0 +1,253 @@
+import java.util.Arrays;
+
+/**
+ * Element-wise arithmetic, comparisons and reductions on numeric vectors.
+ *
+ * v_a + v_b adds element by element (so do - * / %), and a number on either
+ * side applies to every element: v_a * 2. Comparisons give a boolean
+ * vector, e.g. [v_a < v_b] or [v_a == 0], and so does =in with a vector on
+ * the left: [v_a =in v_b]. #sum, #min and #max reduce a numeric vector to
+ * one number, #trues counts the true elements of a boolean one.
+ *
+ * The work is done a block at a time by VNMKernel. Heap vectors are handed
+ * to it in place; inline and off-heap ones are copied into a small buffer
+ * block by block first, so every kind of storage goes through the same loops.
+ * Big vectors are split between threads by VNMParallel; every piece gets
+ * its own buffers and writes its own part of the result.
+ */
+public final class VNMVectorMath {
+
+    // Elements per block. A multiple of 64, so boolean results fill whole words.
+    private static final int BLOCK = 4096;
+
+    private VNMVectorMath() {
+    }
+
+    // Either operand may be a number or a numeric vector (not both numbers).
+    public static VNMIntVector arithmetic(int op, Object left, Object right) throws Exception {
+        VNMIntVector a = operand(left), b = operand(right);
+        int n = length(a, b);
+        VNMIntVector result = VNMIntVector.zeros(n);
+
+        VNMParallel.run(n, (lo, hi) -> {
+            int block = Math.min(hi - lo, BLOCK);
+            int[] aBuf = buffer(left, block), bBuf = buffer(right, block);
+            // A heap result is written in place; otherwise through a block buffer.
+            int[] target = result.array();
+            int[] out = (target != null) ? target : new int[block];
+            for (int from = lo; from < hi; from += block) {
+                int k = Math.min(block, hi - from);
+                int[] x = source(a, from, k, aBuf), y = source(b, from, k, bBuf);
+                int at = (target != null) ? result.arrayOffset() + from : 0;
+                VNMKernel.INSTANCE.binary(op, x, start(a, from, x, aBuf), y, start(b, from, y, bBuf), out, at, k);
+                if (target == null) {
+                    result.setInts(from, out, 0, k);
+                }
+            }
+            return 0;
+        }, VNMVectorMath::none);
+        return result;
+    }
+
+    public static VNMBoolVector compare(int op, Object left, Object right) throws Exception {
+        VNMIntVector a = operand(left), b = operand(right);
+        int n = length(a, b);
+        VNMBoolVector result = VNMBoolVector.falses(n);
+
+        VNMParallel.run(n, (lo, hi) -> {
+            int block = Math.min(hi - lo, BLOCK);
+            int[] aBuf = buffer(left, block), bBuf = buffer(right, block);
+            long[] out = new long[(block + 63) >>> 6];
+            for (int from = lo; from < hi; from += block) {
+                int k = Math.min(block, hi - from);
+                int[] x = source(a, from, k, aBuf), y = source(b, from, k, bBuf);
+                VNMKernel.INSTANCE.compare(op, x, start(a, from, x, aBuf), y, start(b, from, y, bBuf), out, k);
+                result.setWords(from >>> 6, out, (k + 63) >>> 6);
+            }
+            return 0;
+        }, VNMVectorMath::none);
+        return result;
+    }
+
+    // [v_a =in c]: for every element of v_a, whether it is in c (a vector,
+    // a range or a single number). !in flips every answer.
+    public static VNMBoolVector membership(Object left, Object collection, boolean negate) throws Exception {
+        VNMIntVector a = operand(left);
+        VNMRange range = (collection instanceof VNMRange) ? (VNMRange) collection : null;
+        VNMIntIndex index = null;
+        if (collection instanceof VNMIntVector) {
+            index = ((VNMIntVector) collection).index();
+        } else if (collection instanceof VNMVector && range == null) {
+            throw new Exception("=in needs a numeric vector");
+        }
+        int single = (collection instanceof Integer) ? ((Integer) collection).intValue() : 0;
+        // A number too big for an int can't be equal to an element.
+        boolean none = VNMNumbers.isBig(collection);
+        VNMIntIndex idx = index;
+        int n = a.length();
+        VNMBoolVector result = VNMBoolVector.falses(n);
+
+        VNMParallel.run(n, (lo, hi) -> {
+            int block = Math.min(hi - lo, BLOCK);
+            int[] buf = new int[block];
+            long[] out = new long[(block + 63) >>> 6];
+            for (int from = lo; from < hi; from += block) {
+                int k = Math.min(block, hi - from);
+                int[] x = source(a, from, k, buf);
+                int s = start(a, from, x, buf);
+                Arrays.fill(out, 0L);
+                for (int i = 0; i < k; i++) {
+                    int v = x[s + i];
+                    boolean found = (range != null) ? range.contains(v)
+                                  : (idx != null) ? idx.contains(v) : v == single && !none;
+                    if (found != negate) {
+                        out[i >>> 6] |= 1L << i;
+                    }
+                }
+                result.setWords(from >>> 6, out, (k + 63) >>> 6);
+            }
+            return 0;
+        }, VNMVectorMath::none);
+        return result;
+    }
+
+    /* =======================
+       REDUCTIONS (#sum, #min, #max, #trues)
+       ======================= */
+
+    public static Object sum(Object[] args) throws Exception {
+        VNMIntVector v = reductionArg("#sum", args);
+        long total = VNMParallel.run(v.length(), (lo, hi) -> {
+            int[] buf = new int[Math.min(hi - lo, BLOCK)];
+            long s = 0;
+            for (int from = lo; from < hi; from += BLOCK) {
+                int k = Math.min(BLOCK, hi - from);
+                int[] x = source(v, from, k, buf);
+                s += VNMKernel.INSTANCE.sum(x, start(v, from, x, buf), k);
+            }
+            return s;
+        }, (l, r) -> l + r);
+        return VNMNumbers.valueOf(total);
+    }
+
+    public static Object min(Object[] args) throws Exception {
+        VNMIntVector v = nonEmpty("#min", reductionArg("#min", args));
+        long m = VNMParallel.run(v.length(), (lo, hi) -> {
+            int[] buf = new int[Math.min(hi - lo, BLOCK)];
+            int part = Integer.MAX_VALUE;
+            for (int from = lo; from < hi; from += BLOCK) {
+                int k = Math.min(BLOCK, hi - from);
+                int[] x = source(v, from, k, buf);
+                part = Math.min(part, VNMKernel.INSTANCE.min(x, start(v, from, x, buf), k));
+            }
+            return part;
+        }, Math::min);
+        return Integer.valueOf((int) m);
+    }
+
+    public static Object max(Object[] args) throws Exception {
+        VNMIntVector v = nonEmpty("#max", reductionArg("#max", args));
+        long m = VNMParallel.run(v.length(), (lo, hi) -> {
+            int[] buf = new int[Math.min(hi - lo, BLOCK)];
+            int part = Integer.MIN_VALUE;
+            for (int from = lo; from < hi; from += BLOCK) {
+                int k = Math.min(BLOCK, hi - from);
+                int[] x = source(v, from, k, buf);
+                part = Math.max(part, VNMKernel.INSTANCE.max(x, start(v, from, x, buf), k));
+            }
+            return part;
+        }, Math::max);
+        return Integer.valueOf((int) m);
+    }
+
+    // #trues(v_b): how many elements of a boolean vector are true, e.g.
+    // #trues([v_a =in v_b]) is the number of elements of v_a found in v_b.
+    public static Object trues(Object[] args) throws Exception {
+        VNMBuiltins.expect("#trues", args, 1);
+        if (!(args[0] instanceof VNMBoolVector)) {
+            throw new Exception("#trues expects a boolean vector");
+        }
+        VNMBoolVector v = (VNMBoolVector) args[0];
+        long total = VNMParallel.run(v.length(), (lo, hi) -> v.countTrue(lo, hi), (l, r) -> l + r);
+        return Integer.valueOf((int) total);
+    }
+
+    private static VNMIntVector reductionArg(String name, Object[] args) throws Exception {
+        VNMBuiltins.expect(name, args, 1);
+        if (!(args[0] instanceof VNMIntVector)) {
+            throw new Exception(name + " expects a numeric vector");
+        }
+        return (VNMIntVector) args[0];
+    }
+
+    private static VNMIntVector nonEmpty(String name, VNMIntVector v) throws Exception {
+        if (v.length() == 0) {
+            throw new Exception(name + " of an empty vector");
+        }
+        return v;
+    }
+
+    // Combiner for work that writes its results instead of returning them.
+    private static long none(long left, long right) {
+        return 0;
+    }
+
+    /* =======================
+       OPERANDS AND BLOCKS
+       ======================= */
+
+    // The vector behind an operand, or null for a number.
+    private static VNMIntVector operand(Object value) throws Exception {
+        if (value instanceof VNMRange) {
+            return ((VNMRange) value).toVector();
+        }
+        if (value instanceof VNMIntVector) {
+            return (VNMIntVector) value;
+        }
+        if (value instanceof VNMVector) {
+            throw new Exception("Arithmetic needs numeric vectors");
+        }
+        if (!(value instanceof Integer)) {
+            if (VNMNumbers.isBig(value)) {
+                VNMNumbers.toInt(value);
+            }
+            throw new Exception("Arithmetic needs numbers or numeric vectors");
+        }
+        return null;
+    }
+
+    private static int length(VNMIntVector a, VNMIntVector b) throws Exception {
+        if (a != null && b != null && a.length() != b.length()) {
+            throw new Exception("Vectors of length " + a.length() + " and " + b.length()
+                                + " can't be combined element by element");
+        }
+        return (a != null) ? a.length() : b.length();
+    }
+
+    // A block buffer for an operand. A number is spread over the whole
+    // buffer once, up front, so the kernels only ever see two arrays.
+    private static int[] buffer(Object operand, int block) {
+        int[] buf = new int[block];
+        if (operand instanceof Integer) {
+            Arrays.fill(buf, ((Integer) operand).intValue());
+        }
+        return buf;
+    }
+
+    // The array to read elements from..from+k of v from: the vector's own
+    // heap array if it has one, otherwise buf filled with a copy.
+    private static int[] source(VNMIntVector v, int from, int k, int[] buf) {
+        if (v == null) {
+            return buf;
+        }
+        if (v.array() != null) {
+            return v.array();
+        }
+        v.getInts(from, buf, 0, k);
+        return buf;
+    }
+
+    private static int start(VNMIntVector v, int from, int[] source, int[] buf) {
+        return (source == buf) ? 0 : v.arrayOffset() + from;
+    }
+}
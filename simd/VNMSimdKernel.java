@@ -0,0 +1,135 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VNMKernel on the JDK Vector API, using the widest int vectors the CPU
+ * has (8 lanes with AVX2, 16 with AVX-512).
+ *
+ * Lives in its own directory because it can only be compiled, and loaded,
+ * with --add-modules jdk.incubator.vector. VNMKernel loads it by name.
+ *
+ * Integer division has no SIMD instruction, so / and % stay scalar.
+ * Leftover elements that don't fill a whole vector are done one at a time.
+ */
+public class VNMSimdKernel extends VNMScalarKernel {
+
+    private static final VectorSpecies<Integer> S = IntVector.SPECIES_PREFERRED;
+
+    // Long lanes for sums: half as many as S, so one int vector widens to two.
+    private static final VectorSpecies<Long> L = LongVector.SPECIES_PREFERRED;
+
+    public String name() {
+        return "simd-" + S.length() + "x32";
+    }
+
+    // Each operator gets its own loop: the Vector API only turns into SIMD
+    // instructions when the operation is a constant at the call.
+    public void binary(int op, int[] a, int aOff, int[] b, int bOff, int[] out, int outOff, int n) {
+        int bound = S.loopBound(n);
+        int i = 0;
+        switch (op) {
+            case ADD:
+                for (; i < bound; i += S.length()) {
+                    IntVector.fromArray(S, a, aOff + i).add(IntVector.fromArray(S, b, bOff + i)).intoArray(out, outOff + i);
+                }
+                break;
+            case SUB:
+                for (; i < bound; i += S.length()) {
+                    IntVector.fromArray(S, a, aOff + i).sub(IntVector.fromArray(S, b, bOff + i)).intoArray(out, outOff + i);
+                }
+                break;
+            case MUL:
+                for (; i < bound; i += S.length()) {
+                    IntVector.fromArray(S, a, aOff + i).mul(IntVector.fromArray(S, b, bOff + i)).intoArray(out, outOff + i);
+                }
+                break;
+            default:
+                break;
+        }
+        super.binary(op, a, aOff + i, b, bOff + i, out, outOff + i, n - i);
+    }
+
+    // The lane count divides 64, so one vector's mask bits always land
+    // inside a single word.
+    public void compare(int op, int[] a, int aOff, int[] b, int bOff, long[] out, int n) {
+        int bound = S.loopBound(n);
+        int i = 0;
+        switch (op) {
+            case LT:
+                for (; i < bound; i += S.length()) {
+                    store(out, i, IntVector.fromArray(S, a, aOff + i).lt(IntVector.fromArray(S, b, bOff + i)));
+                }
+                break;
+            case LE:
+                for (; i < bound; i += S.length()) {
+                    store(out, i, IntVector.fromArray(S, a, aOff + i).compare(VectorOperators.LE, IntVector.fromArray(S, b, bOff + i)));
+                }
+                break;
+            case GT:
+                for (; i < bound; i += S.length()) {
+                    store(out, i, IntVector.fromArray(S, a, aOff + i).compare(VectorOperators.GT, IntVector.fromArray(S, b, bOff + i)));
+                }
+                break;
+            case GE:
+                for (; i < bound; i += S.length()) {
+                    store(out, i, IntVector.fromArray(S, a, aOff + i).compare(VectorOperators.GE, IntVector.fromArray(S, b, bOff + i)));
+                }
+                break;
+            case EQ:
+                for (; i < bound; i += S.length()) {
+                    store(out, i, IntVector.fromArray(S, a, aOff + i).eq(IntVector.fromArray(S, b, bOff + i)));
+                }
+                break;
+            default:
+                for (; i < bound; i += S.length()) {
+                    store(out, i, IntVector.fromArray(S, a, aOff + i).compare(VectorOperators.NE, IntVector.fromArray(S, b, bOff + i)));
+                }
+                break;
+        }
+        compareFrom(op, a, aOff, b, bOff, out, i, n);
+    }
+
+    private static void store(long[] out, int i, VectorMask<Integer> m) {
+        long bits = m.toLong();
+        if ((i & 63) == 0) {
+            out[i >>> 6] = bits;
+        } else {
+            out[i >>> 6] |= bits << i;
+        }
+    }
+
+    public long sum(int[] a, int off, int n) {
+        LongVector acc = LongVector.zero(L);
+        int bound = S.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += S.length()) {
+            IntVector v = IntVector.fromArray(S, a, off + i);
+            acc = acc.add((LongVector) v.convertShape(VectorOperators.I2L, L, 0))
+                     .add((LongVector) v.convertShape(VectorOperators.I2L, L, 1));
+        }
+        return acc.reduceLanes(VectorOperators.ADD) + super.sum(a, off + i, n - i);
+    }
+
+    public int min(int[] a, int off, int n) {
+        IntVector acc = IntVector.broadcast(S, Integer.MAX_VALUE);
+        int bound = S.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += S.length()) {
+            acc = acc.min(IntVector.fromArray(S, a, off + i));
+        }
+        return Math.min(acc.reduceLanes(VectorOperators.MIN), super.min(a, off + i, n - i));
+    }
+
+    public int max(int[] a, int off, int n) {
+        IntVector acc = IntVector.broadcast(S, Integer.MIN_VALUE);
+        int bound = S.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += S.length()) {
+            acc = acc.max(IntVector.fromArray(S, a, off + i));
+        }
+        return Math.max(acc.reduceLanes(VectorOperators.MAX), super.max(a, off + i, n - i));
+    }
+}
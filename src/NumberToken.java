@@ -1,13 +1,18 @@
 /**
  * Describes INTEGER tokens
+ *
+ * Only a template: the makefile doesn't compile it and the grammar never
+ * makes one. A NUMBER node keeps the token's image, and VNMEval (or
+ * VNMFolder, once per tree) turns it into a number with VNMNumbers.parse.
  */
 
 public class NumberToken extends Token {
 
   /**
-   * The integer value of the token is also stored for NUMBER tokens
+   * The value of the token is also stored for NUMBER tokens: an Integer,
+   * or a Long / BigInteger for literals too big for an int
    */
-  public Integer value;
+  public Object value;
   
    /* toString() generates string directly from value instead of image
    * to get rid of leading zeroes.
@@ -26,7 +31,7 @@ public class NumberToken extends Token {
   {
     this.kind = VNMConstants.NUMBER  ;
     this.image = image;
-   	value = new Integer(this.image);
+   	value = VNMNumbers.parse(this.image);
   }
 
 }